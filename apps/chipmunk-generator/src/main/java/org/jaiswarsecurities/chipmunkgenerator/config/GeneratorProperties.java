@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+
 /**
  * Configuration properties for the Chipmunk Generator.
  */
@@ -27,11 +29,26 @@ public class GeneratorProperties {
      */
     private String[] regions = {"UK", "US", "JP", "CN"};
     
+    /**
+     * Seed every generated field is derived from; unset draws a new one per file, and it is logged
+     */
+    private Long seed;
+    
     /**
      * Event generation configuration
      */
     private EventGeneration eventGeneration = new EventGeneration();
     
+    /**
+     * Offset index configuration
+     */
+    private Index index = new Index();
+    
+    /**
+     * Upload configuration
+     */
+    private Upload upload = new Upload();
+    
     @Data
     public static class EventGeneration {
         /**
@@ -54,6 +71,26 @@ public class GeneratorProperties {
          */
         private int timeRangeHours = 24;
         
+        /**
+         * Time of the range's start; unset starts it timeRangeHours before now. Set with seed for byte-identical files
+         */
+        private Instant startTime;
+        
+        /**
+         * Intraday volume curve the events follow
+         */
+        private Volume volume = new Volume();
+        
+        /**
+         * Threads generating events; 0 uses one per available core
+         */
+        private int parallelism = 0;
+        
+        /**
+         * Events per time slice, the unit of work handed to a generating thread
+         */
+        private int eventsPerSlice = 10_000;
+        
         /**
          * Base instruments for market data and trades
          */
@@ -77,4 +114,90 @@ public class GeneratorProperties {
             "LSE", "NYSE", "NASDAQ", "TSE", "SSE", "XTRA", "EURONEXT"
         };
     }
+    
+    @Data
+    public static class Volume {
+        /**
+         * Shape of the volume curve over the time range
+         */
+        private Profile profile = Profile.UNIFORM;
+        
+        /**
+         * Mean events per second; when positive, the events span eventCount / rate instead of timeRangeHours
+         */
+        private double targetEventsPerSecond = 0;
+        
+        /**
+         * Length of each of the opening and closing spikes, at most a quarter of the range (OPEN_CLOSE_SPIKES)
+         */
+        private int auctionMinutes = 5;
+        
+        /**
+         * Rate during the spikes relative to the U-shaped curve around them (OPEN_CLOSE_SPIKES)
+         */
+        private double auctionMultiplier = 8;
+        
+        /**
+         * Mean microbursts per hour, arriving as a Poisson process (MICROBURST)
+         */
+        private double burstsPerHour = 60;
+        
+        /**
+         * Length of each microburst (MICROBURST)
+         */
+        private int burstDurationMillis = 50;
+        
+        /**
+         * Events per millisecond during a microburst, on top of the base rate (MICROBURST)
+         */
+        private double peakEventsPerMillis = 20;
+        
+        public enum Profile {
+            /**
+             * Constant rate
+             */
+            UNIFORM,
+            
+            /**
+             * Busy at the start and end of the range, about four times the midday rate
+             */
+            U_SHAPE,
+            
+            /**
+             * U-shaped, with opening and closing auction spikes on top
+             */
+            OPEN_CLOSE_SPIKES,
+            
+            /**
+             * Constant rate broken by short Poisson-arriving bursts at the peak rate
+             */
+            MICROBURST
+        }
+    }
+    
+    @Data
+    public static class Index {
+        /**
+         * Upload a <file>.idx offset index next to each generated file
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Frames between index entries
+         */
+        private int stride = 1024;
+    }
+    
+    @Data
+    public static class Upload {
+        /**
+         * Bytes per multipart upload part; S3 requires at least 5 MiB, and smaller files go up in one PutObject
+         */
+        private int partSizeBytes = 8 * 1024 * 1024;
+        
+        /**
+         * Parts uploaded at once; memory stays at part size times (parallelism + 1) whatever the event count
+         */
+        private int parallelism = 4;
+    }
 }
\ No newline at end of file
@@ -14,29 +14,46 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
 
 /**
  * Service for generating Chipmunk files with realistic financial event data.
- * Creates files in Protobuf format and uploads them to MinIO.
+ * Creates files in Protobuf format and streams them to MinIO with a multipart upload.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChipmunkFileGenerator {
 
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long TIMELINE_STREAM = 1;
+    private static final long EVENT_STREAM = 2;
+    private static final long BURST_STREAM = 3;
+
     private final GeneratorProperties generatorProperties;
     private final S3Client s3Client;
     private final EventDataGenerator eventDataGenerator;
-    private final Random random = new Random();
 
     /**
      * Generates a chipmunk file with the specified number of events and uploads it to MinIO.
+     * Events are framed straight into part buffers that upload while later events are generated,
+     * so memory does not grow with the event count. The file's event rates are stored as object
+     * metadata; they are measured from the timestamps in a cheap pass before generation, since S3
+     * takes metadata only when the upload starts.
      *
      * @param fileName   Name of the file to generate
      * @param eventCount Number of events to generate
@@ -46,56 +63,237 @@ public class ChipmunkFileGenerator {
     public String generateAndUploadChipmunkFile(String fileName, int eventCount) throws IOException {
         log.info("Starting generation of {} events for file: {}", eventCount, fileName);
 
-        // Generate events
-        List<ChipmunkRecord> records = generateChipmunkRecords(eventCount);
+        String s3Key = generatorProperties.getBasePath() + "/" + fileName;
+        GeneratorProperties.Index indexConfig = generatorProperties.getIndex();
+        ChipmunkIndexBuilder indexBuilder = new ChipmunkIndexBuilder(indexConfig.getStride());
+        GeneratorProperties.Upload uploadConfig = generatorProperties.getUpload();
+        Plan plan = plan(eventCount);
         
-        // Serialize to binary format
-        byte[] fileContent = serializeRecords(records);
+        RateStatistics rates = measureRates(plan);
+        log.info("Volume profile {}: peak {} events/ms, {} events/s, mean {} events/s", plan.profile(),
+                rates.getPeakPerMillis(), rates.getPeakPerSecond(),
+                String.format("%.1f", rates.getMeanPerSecond(plan.rangeMillis())));
         
-        // Upload to MinIO
-        String s3Key = generatorProperties.getBasePath() + "/" + fileName;
-        uploadToMinIO(s3Key, fileContent);
+        // Generate, serialize and upload in one pass, noting frame offsets for the index
+        long fileSize;
+        MultipartUploadOutputStream out = new MultipartUploadOutputStream(s3Client, generatorProperties.getBucketName(),
+                s3Key, rates.toMetadata(plan.profile().name(), plan.rangeMillis()),
+                uploadConfig.getPartSizeBytes(), uploadConfig.getParallelism());
+        try {
+            fileSize = writeChipmunkRecords(out, indexBuilder, plan);
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+        try {
+            out.close();
+            log.info("Successfully uploaded file to MinIO: s3://{}/{}", generatorProperties.getBucketName(), s3Key);
+        } catch (RuntimeException e) {
+            log.error("Failed to upload file to MinIO: s3://{}/{}", generatorProperties.getBucketName(), s3Key, e);
+            throw new RuntimeException("Failed to upload to MinIO", e);
+        }
+        
+        if (indexConfig.isEnabled()) {
+            uploadToMinIO(s3Key + ChipmunkIndexBuilder.SIDECAR_SUFFIX, indexBuilder.toByteArray(fileSize));
+        }
         
         log.info("Successfully generated and uploaded {} records ({} bytes) to s3://{}/{}",
-                records.size(), fileContent.length, generatorProperties.getBucketName(), s3Key);
+                eventCount, fileSize, generatorProperties.getBucketName(), s3Key);
         
         return String.format("s3://%s/%s", generatorProperties.getBucketName(), s3Key);
     }
 
     /**
-     * Generates a list of ChipmunkRecord objects with mixed event types.
+     * Generates ChipmunkRecords with mixed event types and writes them as frames in timestamp order,
+     * from the configured seed and start time, or a fresh seed and a range ending now.
+     *
+     * @return Number of bytes written
+     */
+    long writeChipmunkRecords(OutputStream out, int eventCount, ChipmunkIndexBuilder indexBuilder) throws IOException {
+        return writeChipmunkRecords(out, indexBuilder, plan(eventCount));
+    }
+
+    /**
+     * Generates ChipmunkRecords from the given seed, with the range starting at {@code baseTime}.
+     *
+     * @return Number of bytes written
+     */
+    long writeChipmunkRecords(OutputStream out, int eventCount, ChipmunkIndexBuilder indexBuilder,
+                              long seed, Instant baseTime) throws IOException {
+        return writeChipmunkRecords(out, indexBuilder, plan(eventCount, seed, baseTime));
+    }
+
+    /**
+     * Plans a file from the configured seed and start time, or a fresh seed and a range ending now.
+     */
+    Plan plan(int eventCount) {
+        GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
+        long seed = generatorProperties.getSeed() != null ? generatorProperties.getSeed() : new SplittableRandom().nextLong();
+        Instant baseTime = config.getStartTime() != null
+                ? config.getStartTime()
+                : Instant.now().minusMillis(rangeMillis(eventCount));
+        log.info("Generating {} events from {} with seed {}", eventCount, baseTime, seed);
+        return plan(eventCount, seed, baseTime);
+    }
+
+    /**
+     * Plans a file: its time range, volume curve and slices. The slices cut the events into equal
+     * shares in order, each covering the part of the range the volume curve gives those events.
+     */
+    Plan plan(int eventCount, long seed, Instant baseTime) {
+        GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
+        GeneratorProperties.Volume volume = config.getVolume();
+        long rangeMillis = rangeMillis(eventCount);
+        VolumeCurve curve = VolumeCurve.create(volume, eventCount, rangeMillis, derive(seed, BURST_STREAM, 0));
+        int sliceCount = Math.max(1, Math.ceilDiv(eventCount, Math.max(1, config.getEventsPerSlice())));
+        return new Plan(seed, baseTime, eventCount, sliceCount, rangeMillis, volume.getProfile(), curve);
+    }
+
+    /**
+     * Gets the length of the time range: as long as the events take at the target rate if one is
+     * set, otherwise the configured number of hours.
+     */
+    private long rangeMillis(int eventCount) {
+        GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
+        double targetRate = config.getVolume().getTargetEventsPerSecond();
+        return targetRate > 0
+                ? Math.max(1, (long) Math.ceil(eventCount * 1000.0 / targetRate))
+                : TimeUnit.HOURS.toMillis(config.getTimeRangeHours());
+    }
+
+    /**
+     * Measures the event rates of a planned file from its timestamps alone, without building events.
+     */
+    RateStatistics measureRates(Plan plan) {
+        RateStatistics rates = new RateStatistics();
+        for (int slice = 0; slice < plan.sliceCount(); slice++) {
+            for (long timestamp : plan.timestamps(slice)) {
+                rates.onEvent(timestamp);
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Generates ChipmunkRecords on several threads and writes them as frames in timestamp order.
+     *
+     * <p>Each slice is given to a worker, which turns it into an already-sorted run of frames, and
+     * the runs are written in slice order, so nothing is sorted. At most two runs per worker are held
+     * in memory.
+     *
+     * <p>Each slice's timestamps, and every other field of each event, are drawn from generators
+     * derived from the seed and the slice or event index alone, so workers need no coordination and
+     * the output is the same whatever the thread count or scheduling. An event's fields depend only
+     * on the seed and its index; its timestamp also on the event count, slice size and volume curve.
+     *
+     * @return Number of bytes written
+     */
+    private long writeChipmunkRecords(OutputStream out, ChipmunkIndexBuilder indexBuilder, Plan plan) throws IOException {
+        if (plan.eventCount() <= 0) {
+            return 0;
+        }
+        GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
+        int parallelism = Math.min(plan.sliceCount(), config.getParallelism() > 0
+                ? config.getParallelism() : Runtime.getRuntime().availableProcessors());
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("chipmunk-generate-", 1).daemon().factory());
+        Deque<Future<Run>> pending = new ArrayDeque<>();
+        int nextSlice = 0;
+        long offset = 0;
+        try {
+            while (nextSlice < plan.sliceCount() || !pending.isEmpty()) {
+                // Keep a run queued behind each busy worker, but no more than that in memory
+                while (nextSlice < plan.sliceCount() && pending.size() < 2 * parallelism) {
+                    int slice = nextSlice++;
+                    pending.add(workers.submit(() -> generateRun(plan, slice, indexBuilder.getStride())));
+                }
+
+                Run run = awaitRun(pending.remove());
+                for (Mark mark : run.marks()) {
+                    indexBuilder.onFrame(mark.ordinal(), mark.timestamp(), offset + mark.offset());
+                }
+                run.frames().writeTo(out);
+                offset += run.frames().size();
+            }
+        } finally {
+            pending.forEach(run -> run.cancel(true));
+            workers.shutdownNow();
+        }
+
+        return offset;
+    }
+
+    /**
+     * Generates the events of one slice as a run of frames in timestamp order, noting the frames
+     * that the index will need.
      */
-    private List<ChipmunkRecord> generateChipmunkRecords(int eventCount) {
-        List<ChipmunkRecord> records = new ArrayList<>();
-        Instant baseTime = Instant.now().minus(generatorProperties.getEventGeneration().getTimeRangeHours(), ChronoUnit.HOURS);
+    private Run generateRun(Plan plan, int slice, int stride) throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        List<Mark> marks = new ArrayList<>();
+        long firstOrdinal = plan.firstOrdinal(slice);
+        long[] timestamps = plan.timestamps(slice);
         
-        for (int i = 0; i < eventCount; i++) {
-            // Determine event type based on configured ratios
-            String eventType = determineEventType();
+        for (int i = 0; i < timestamps.length; i++) {
+            long ordinal = firstOrdinal + i;
+            SplittableRandom random = derive(plan.seed(), EVENT_STREAM, ordinal);
             
-            // Generate timestamp with realistic distribution
-            Instant eventTime = baseTime.plus((long) (random.nextDouble() * generatorProperties.getEventGeneration().getTimeRangeHours() * 3600), ChronoUnit.SECONDS);
+            // Determine event type based on configured ratios
+            String eventType = determineEventType(random);
             
             // Select random region
             String region = generatorProperties.getRegions()[random.nextInt(generatorProperties.getRegions().length)];
             
             // Generate correlation ID for some events
-            String correlationId = random.nextDouble() < 0.3 ? UUID.randomUUID().toString() : "";
+            String correlationId = random.nextDouble() < 0.3 ? new UUID(random.nextLong(), random.nextLong()).toString() : "";
             
-            ChipmunkRecord record = createChipmunkRecord(eventType, eventTime, region, correlationId);
-            records.add(record);
+            Instant eventTime = Instant.ofEpochMilli(timestamps[i]);
+            ChipmunkRecord record = createChipmunkRecord(random, eventType, eventTime, region, correlationId);
+            if (ordinal % stride == 0) {
+                marks.add(new Mark(ordinal, record.getTimestamp(), frames.size()));
+            }
+            writeFrame(frames, record);
         }
         
-        // Sort by timestamp to maintain chronological order
-        records.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
-        
-        return records;
+        return new Run(frames, marks);
+    }
+
+    /**
+     * Derives an independent generator for one slice's timeline or one event's fields by hashing the
+     * seed with the stream and index, so any of them can be produced without producing the others.
+     */
+    static SplittableRandom derive(long seed, long stream, long index) {
+        return new SplittableRandom(mix64(seed ^ mix64(stream * GOLDEN_GAMMA + index)));
+    }
+
+    /**
+     * Stafford's variant 13 of the 64-bit MurmurHash3 finalizer.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Run awaitRun(Future<Run> run) throws IOException {
+        try {
+            return run.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for generated events");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to generate events", e.getCause());
+        }
     }
 
     /**
      * Creates a ChipmunkRecord based on the event type.
      */
-    private ChipmunkRecord createChipmunkRecord(String eventType, Instant timestamp, String region, String correlationId) {
+    private ChipmunkRecord createChipmunkRecord(RandomGenerator random, String eventType, Instant timestamp,
+                                                String region, String correlationId) {
         ChipmunkRecord.Builder recordBuilder = ChipmunkRecord.newBuilder()
                 .setEventType(eventType)
                 .setTimestamp(timestamp.toEpochMilli())
@@ -104,15 +302,15 @@ public class ChipmunkFileGenerator {
 
         switch (eventType) {
             case "TRADE":
-                TradeEvent tradeEvent = eventDataGenerator.generateTradeEvent(timestamp, region, correlationId);
+                TradeEvent tradeEvent = eventDataGenerator.generateTradeEvent(random, timestamp, region, correlationId);
                 recordBuilder.setPayload(ByteString.copyFrom(tradeEvent.toByteArray()));
                 break;
             case "MARKET_DATA":
-                MarketDataEvent marketDataEvent = eventDataGenerator.generateMarketDataEvent(timestamp, region);
+                MarketDataEvent marketDataEvent = eventDataGenerator.generateMarketDataEvent(random, timestamp, region);
                 recordBuilder.setPayload(ByteString.copyFrom(marketDataEvent.toByteArray()));
                 break;
             case "FX":
-                FxRateEvent fxRateEvent = eventDataGenerator.generateFxRateEvent(timestamp, region);
+                FxRateEvent fxRateEvent = eventDataGenerator.generateFxRateEvent(random, timestamp, region);
                 recordBuilder.setPayload(ByteString.copyFrom(fxRateEvent.toByteArray()));
                 break;
             default:
@@ -125,7 +323,7 @@ public class ChipmunkFileGenerator {
     /**
      * Determines the event type based on configured ratios.
      */
-    private String determineEventType() {
+    private String determineEventType(RandomGenerator random) {
         double rand = random.nextDouble();
         GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
         
@@ -139,26 +337,23 @@ public class ChipmunkFileGenerator {
     }
 
     /**
-     * Serializes ChipmunkRecord objects to binary format.
-     * Each record is length-prefixed for parsing.
+     * Writes one length-prefixed record.
+     *
+     * @return Number of bytes written
      */
-    private byte[] serializeRecords(List<ChipmunkRecord> records) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private static int writeFrame(OutputStream out, ChipmunkRecord record) throws IOException {
+        byte[] recordBytes = record.toByteArray();
         
-        for (ChipmunkRecord record : records) {
-            byte[] recordBytes = record.toByteArray();
-            
-            // Write length prefix (4 bytes, big-endian)
-            baos.write((recordBytes.length >>> 24) & 0xFF);
-            baos.write((recordBytes.length >>> 16) & 0xFF);
-            baos.write((recordBytes.length >>> 8) & 0xFF);
-            baos.write(recordBytes.length & 0xFF);
-            
-            // Write record data
-            baos.write(recordBytes);
-        }
+        // Write length prefix (4 bytes, big-endian)
+        out.write((recordBytes.length >>> 24) & 0xFF);
+        out.write((recordBytes.length >>> 16) & 0xFF);
+        out.write((recordBytes.length >>> 8) & 0xFF);
+        out.write(recordBytes.length & 0xFF);
+        
+        // Write record data
+        out.write(recordBytes);
         
-        return baos.toByteArray();
+        return 4 + recordBytes.length;
     }
 
     /**
@@ -183,4 +378,53 @@ public class ChipmunkFileGenerator {
             throw new RuntimeException("Failed to upload to MinIO", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Where a file's events fall in time.
+     *
+     * @param sliceCount Number of equal shares the events are cut into, each generated as one run
+     */
+    record Plan(long seed, Instant baseTime, int eventCount, int sliceCount, long rangeMillis,
+                GeneratorProperties.Volume.Profile profile, VolumeCurve curve) {
+
+        int events(int slice) {
+            return eventCount / sliceCount + (slice < eventCount % sliceCount ? 1 : 0);
+        }
+
+        long firstOrdinal(int slice) {
+            return (long) slice * (eventCount / sliceCount) + Math.min(slice, eventCount % sliceCount);
+        }
+
+        /**
+         * Draws a slice's timestamps in ascending order: successive uniform order statistics over the
+         * slice's share of the events, placed in time by the volume curve.
+         */
+        long[] timestamps(int slice) {
+            RandomGenerator random = derive(seed, TIMELINE_STREAM, slice);
+            int events = events(slice);
+            double first = firstOrdinal(slice);
+            long baseMillis = baseTime.toEpochMilli();
+            long[] timestamps = new long[events];
+            
+            double fraction = 0;
+            for (int i = 0; i < events; i++) {
+                // The smallest of the remaining (events - i) uniform draws above the previous one
+                fraction = 1 - (1 - fraction) * Math.pow(random.nextDouble(), 1.0 / (events - i));
+                timestamps[i] = baseMillis + (long) curve.timeAt((first + fraction * events) / eventCount);
+            }
+            return timestamps;
+        }
+    }
+
+    /**
+     * The frames generated for one slice.
+     */
+    private record Run(ByteArrayOutputStream frames, List<Mark> marks) {
+    }
+
+    /**
+     * An index entry within a run, its offset relative to the start of the run.
+     */
+    private record Mark(long ordinal, long timestamp, long offset) {
+    }
+}
@@ -0,0 +1,79 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds the sparse offset index uploaded next to each generated Chipmunk file as {@code <key>.idx}.
+ * Every {@code stride}-th frame is recorded as (ordinal, timestamp, byte offset), which lets the
+ * replay engine resume or seek without reading the frames in front of the target.
+ *
+ * <p>Layout, big-endian, shared with the replay engine's ChipmunkIndex: the magic {@code "CIDX"},
+ * int version, int stride, long size of the indexed file, int entry count, then for each entry
+ * long ordinal, long timestamp (epoch millis) and long offset of the frame's length prefix.
+ */
+public class ChipmunkIndexBuilder {
+
+    /**
+     * Suffix appended to the data object key to form the index key
+     */
+    public static final String SIDECAR_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 1;
+
+    private final int stride;
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+    private final DataOutputStream entries = new DataOutputStream(entryBytes);
+    private int entryCount;
+
+    public ChipmunkIndexBuilder(int stride) {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("Index stride must be positive: " + stride);
+        }
+        this.stride = stride;
+    }
+
+    /**
+     * Gets the number of frames between index entries.
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Notes a frame as it is written; every stride-th frame becomes an index entry.
+     *
+     * @param ordinal Zero-based position of the frame in the file
+     * @param timestamp Event timestamp of the frame in epoch millis
+     * @param offset Byte offset of the frame's length prefix
+     */
+    public void onFrame(long ordinal, long timestamp, long offset) throws IOException {
+        if (ordinal % stride != 0) {
+            return;
+        }
+        entries.writeLong(ordinal);
+        entries.writeLong(timestamp);
+        entries.writeLong(offset);
+        entryCount++;
+    }
+
+    /**
+     * Serializes the index.
+     *
+     * @param dataSize Total size of the indexed file in bytes
+     */
+    public byte[] toByteArray(long dataSize) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(21 + entryBytes.size());
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(stride);
+        out.writeLong(dataSize);
+        out.writeInt(entryCount);
+        entryBytes.writeTo(out);
+        out.flush();
+        return baos.toByteArray();
+    }
+}
@@ -1,31 +1,49 @@
 package org.jaiswarsecurities.chipmunkgenerator.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
 import org.jaiswarsecurities.iris.proto.*;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Service for generating realistic financial event data.
+ *
+ * <p>Each method has a variant taking the random generator to draw from, so parallel callers can
+ * each pass their own rather than contending on (and interleaving draws from) a shared one. Every
+ * field, IDs included, is drawn from that generator or taken from the event time, so an event is
+ * reproduced exactly by a generator in the same state.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class EventDataGenerator {
 
+    private static final HexFormat HEX = HexFormat.of();
+
     private final GeneratorProperties generatorProperties;
-    private final Random random = new Random();
+    private final Random random;
+
+    public EventDataGenerator(GeneratorProperties generatorProperties) {
+        this.generatorProperties = generatorProperties;
+        this.random = generatorProperties.getSeed() != null ? new Random(generatorProperties.getSeed()) : new Random();
+    }
 
     /**
      * Generates a realistic TradeEvent.
      */
     public TradeEvent generateTradeEvent(Instant timestamp, String region, String correlationId) {
+        return generateTradeEvent(random, timestamp, region, correlationId);
+    }
+
+    /**
+     * Generates a realistic TradeEvent from the given random generator.
+     */
+    public TradeEvent generateTradeEvent(RandomGenerator random, Instant timestamp, String region, String correlationId) {
         GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
         
         String instrument = config.getInstruments()[random.nextInt(config.getInstruments().length)];
@@ -43,19 +61,19 @@ public class EventDataGenerator {
         String strategy = strategies[random.nextInt(strategies.length)];
 
         return TradeEvent.newBuilder()
-                .setTradeId(generateTradeId(region))
-                .setOrderId("ORD-" + UUID.randomUUID().toString().substring(0, 8))
+                .setTradeId(generateTradeId(random, timestamp, region))
+                .setOrderId("ORD-" + HEX.toHexDigits(random.nextInt()))
                 .setInstrument(instrument)
-                .setAccount(generateAccountId(region))
-                .setCounterparty(generateCounterparty(venue))
+                .setAccount(generateAccountId(random, region))
+                .setCounterparty(generateCounterparty(random, venue))
                 .setQuantity(quantity)
                 .setPrice(roundToTwoDecimalPlaces(basePrice))
                 .setSide(side)
                 .setVenue(venue)
                 .setTradeTimestamp(timestamp.toEpochMilli())
                 .setStatus(status)
-                .setRegulatoryId(generateRegulatoryId(region))
-                .setTraderId(generateTraderId())
+                .setRegulatoryId(generateRegulatoryId(random, region))
+                .setTraderId(generateTraderId(random))
                 .setStrategyTag(strategy)
                 .setCorrelationId(correlationId)
                 .build();
@@ -65,6 +83,13 @@ public class EventDataGenerator {
      * Generates a realistic MarketDataEvent.
      */
     public MarketDataEvent generateMarketDataEvent(Instant timestamp, String region) {
+        return generateMarketDataEvent(random, timestamp, region);
+    }
+
+    /**
+     * Generates a realistic MarketDataEvent from the given random generator.
+     */
+    public MarketDataEvent generateMarketDataEvent(RandomGenerator random, Instant timestamp, String region) {
         GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
         
         String instrument = config.getInstruments()[random.nextInt(config.getInstruments().length)];
@@ -102,6 +127,13 @@ public class EventDataGenerator {
      * Generates a realistic FxRateEvent.
      */
     public FxRateEvent generateFxRateEvent(Instant timestamp, String region) {
+        return generateFxRateEvent(random, timestamp, region);
+    }
+
+    /**
+     * Generates a realistic FxRateEvent from the given random generator.
+     */
+    public FxRateEvent generateFxRateEvent(RandomGenerator random, Instant timestamp, String region) {
         GeneratorProperties.EventGeneration config = generatorProperties.getEventGeneration();
         
         String currencyPair = config.getCurrencyPairs()[random.nextInt(config.getCurrencyPairs().length)];
@@ -152,9 +184,9 @@ public class EventDataGenerator {
     }
 
     /**
-     * Generates a trade ID with regional prefix.
+     * Generates a trade ID with regional prefix and the trade time.
      */
-    private String generateTradeId(String region) {
+    private String generateTradeId(RandomGenerator random, Instant timestamp, String region) {
         String prefix = switch (region) {
             case "UK" -> "LON";
             case "US" -> "NYC";
@@ -162,13 +194,13 @@ public class EventDataGenerator {
             case "CN" -> "SHG";
             default -> "GLB";
         };
-        return prefix + "-" + System.currentTimeMillis() + "-" + random.nextInt(10000);
+        return prefix + "-" + timestamp.toEpochMilli() + "-" + random.nextInt(10000);
     }
 
     /**
      * Generates an account ID with regional characteristics.
      */
-    private String generateAccountId(String region) {
+    private String generateAccountId(RandomGenerator random, String region) {
         String prefix = switch (region) {
             case "UK" -> "GBP";
             case "US" -> "USD";
@@ -182,7 +214,7 @@ public class EventDataGenerator {
     /**
      * Generates a counterparty based on venue.
      */
-    private String generateCounterparty(String venue) {
+    private String generateCounterparty(RandomGenerator random, String venue) {
         return switch (venue) {
             case "LSE" -> "BARCLAYS-" + random.nextInt(100);
             case "NYSE", "NASDAQ" -> "GOLDMAN-" + random.nextInt(100);
@@ -195,7 +227,7 @@ public class EventDataGenerator {
     /**
      * Generates a regulatory ID based on region.
      */
-    private String generateRegulatoryId(String region) {
+    private String generateRegulatoryId(RandomGenerator random, String region) {
         String prefix = switch (region) {
             case "UK" -> "MIFID-";
             case "US" -> "SEC-";
@@ -203,13 +235,13 @@ public class EventDataGenerator {
             case "CN" -> "CSRC-";
             default -> "REG-";
         };
-        return prefix + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        return prefix + HEX.toHexDigits(random.nextLong()).substring(0, 12);
     }
 
     /**
      * Generates a trader ID.
      */
-    private String generateTraderId() {
+    private String generateTraderId(RandomGenerator random) {
         String[] prefixes = {"TRD", "ALG", "HFT", "INS", "RET"};
         String prefix = prefixes[random.nextInt(prefixes.length)];
         return prefix + "-" + (1000 + random.nextInt(9000));
@@ -0,0 +1,292 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Uploads what is written to it as an S3 object, in fixed-size parts sent several at a time, so
+ * memory stays at part size times (parallelism + 1) however large the object grows.
+ *
+ * <p>Writes fill a part buffer; a full buffer is handed to an upload thread and writing carries on
+ * into a free one, waiting only when every buffer is still being uploaded. The multipart upload
+ * starts when the first part fills, so an object smaller than one part is sent with a single
+ * PutObject on close. If a part or the completion fails, the multipart upload is aborted so its
+ * parts are not left behind in the bucket.
+ */
+@Slf4j
+public class MultipartUploadOutputStream extends OutputStream {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final Map<String, String> metadata;
+    private final int partSize;
+    private final int maxBuffers;
+    private final ExecutorService uploader;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final List<Future<CompletedPart>> parts = new ArrayList<>();
+
+    private int allocatedBuffers;
+    private byte[] buffer;
+    private int position;
+    private long size;
+    private String uploadId;
+    private volatile Exception failure;
+    private boolean closed;
+
+    /**
+     * Creates a stream for one object.
+     *
+     * @param partSize Bytes per part; S3 requires at least 5 MiB for all but the last part
+     * @param parallelism Most parts uploading at once
+     */
+    public MultipartUploadOutputStream(S3Client s3Client, String bucket, String key, int partSize, int parallelism) {
+        this(s3Client, bucket, key, Map.of(), partSize, parallelism);
+    }
+
+    /**
+     * Creates a stream for one object carrying user metadata. S3 takes metadata only when an
+     * object is created, so it has to be known before the first part fills.
+     *
+     * @param metadata User metadata to store with the object
+     * @param partSize Bytes per part; S3 requires at least 5 MiB for all but the last part
+     * @param parallelism Most parts uploading at once
+     */
+    public MultipartUploadOutputStream(S3Client s3Client, String bucket, String key, Map<String, String> metadata,
+                                       int partSize, int parallelism) {
+        if (partSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Part size and parallelism must be positive: " + partSize + ", " + parallelism);
+        }
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.metadata = Map.copyOf(metadata);
+        this.partSize = partSize;
+        this.maxBuffers = parallelism + 1;
+        this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+        this.uploader = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("chipmunk-upload-", 1).daemon().factory());
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer();
+        buffer[position++] = (byte) b;
+        size++;
+        if (position == partSize) {
+            uploadPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureBuffer();
+            int chunk = Math.min(length, partSize - position);
+            System.arraycopy(bytes, offset, buffer, position, chunk);
+            position += chunk;
+            size += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (position == partSize) {
+                uploadPart();
+            }
+        }
+    }
+
+    /**
+     * Uploads what is left and completes the object.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (uploadId == null) {
+                putObject();
+                return;
+            }
+            if (position > 0) {
+                // The last part may be smaller than the others
+                uploadPart();
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(awaitPart(part));
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Completed multipart upload of s3://{}/{} in {} parts ({} bytes)", bucket, key, parts.size(), size);
+        } catch (IOException | RuntimeException e) {
+            abortUpload();
+            throw e;
+        } finally {
+            buffer = null;
+            uploader.shutdownNow();
+        }
+    }
+
+    /**
+     * Abandons the object, e.g. when producing its content failed: nothing is uploaded, and the
+     * multipart upload, if started, is aborted. Closing afterwards does nothing.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer = null;
+        abortUpload();
+        uploader.shutdownNow();
+    }
+
+    private void ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer != null) {
+            return;
+        }
+
+        byte[] free = freeBuffers.poll();
+        if (free == null && allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            free = new byte[partSize];
+        }
+        if (free == null) {
+            // Every buffer is uploading; wait for one to come back
+            try {
+                free = freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a part buffer");
+            }
+        }
+        buffer = free;
+    }
+
+    /**
+     * Hands the current buffer to an upload thread, starting the multipart upload if needed.
+     */
+    private void uploadPart() throws IOException {
+        Exception failed = failure;
+        if (failed != null) {
+            throw new IOException("Failed to upload a part of s3://" + bucket + "/" + key, failed);
+        }
+        if (uploadId == null) {
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(CONTENT_TYPE)
+                    .metadata(metadata)
+                    .build()).uploadId();
+        }
+
+        int partNumber = parts.size() + 1;
+        byte[] part = buffer;
+        int length = position;
+        buffer = null;
+        position = 0;
+        parts.add(uploader.submit(() -> sendPart(partNumber, part, length)));
+    }
+
+    private CompletedPart sendPart(int partNumber, byte[] part, int length) {
+        try {
+            UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(),
+                    // Streams the buffer rather than copying it, and can be reopened if the SDK retries
+                    RequestBody.fromContentProvider(() -> new ByteArrayInputStream(part, 0, length), length, CONTENT_TYPE));
+            return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            freeBuffers.offer(part);
+        }
+    }
+
+    private CompletedPart awaitPart(Future<CompletedPart> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for parts of s3://" + bucket + "/" + key);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to upload a part of s3://" + bucket + "/" + key, e.getCause());
+        }
+    }
+
+    private void putObject() {
+        byte[] content = buffer != null ? buffer : new byte[0];
+        int length = position;
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(CONTENT_TYPE)
+                        .metadata(metadata)
+                        .contentLength((long) length)
+                        .build(),
+                RequestBody.fromContentProvider(() -> new ByteArrayInputStream(content, 0, length), length, CONTENT_TYPE));
+    }
+
+    private void abortUpload() {
+        if (uploadId == null) {
+            return;
+        }
+        parts.forEach(part -> part.cancel(true));
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload {} of s3://{}/{}", uploadId, bucket, key, e);
+        }
+    }
+}
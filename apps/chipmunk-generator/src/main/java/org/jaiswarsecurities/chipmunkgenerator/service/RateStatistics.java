@@ -0,0 +1,86 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Event rates of a generated file, measured from its timestamps in order: the busiest millisecond,
+ * the busiest second and the mean over the time range. They are stored as object metadata on the
+ * file, so a stress test can tell what peak load a file will put on consumers without reading it.
+ */
+public class RateStatistics {
+
+    public static final String VOLUME_PROFILE = "volume-profile";
+    public static final String EVENT_COUNT = "event-count";
+    public static final String PEAK_EVENTS_PER_MS = "peak-events-per-ms";
+    public static final String PEAK_EVENTS_PER_SECOND = "peak-events-per-second";
+    public static final String MEAN_EVENTS_PER_SECOND = "mean-events-per-second";
+
+    private long eventCount;
+    private long currentMillis = Long.MIN_VALUE;
+    private long currentMillisEvents;
+    private long peakPerMillis;
+    private long currentSecond = Long.MIN_VALUE;
+    private long currentSecondEvents;
+    private long peakPerSecond;
+
+    /**
+     * Counts an event; timestamps must arrive in ascending order.
+     *
+     * @param timestamp Event timestamp in epoch millis
+     */
+    public void onEvent(long timestamp) {
+        eventCount++;
+
+        if (timestamp != currentMillis) {
+            currentMillis = timestamp;
+            currentMillisEvents = 0;
+        }
+        peakPerMillis = Math.max(peakPerMillis, ++currentMillisEvents);
+
+        long second = Math.floorDiv(timestamp, 1000);
+        if (second != currentSecond) {
+            currentSecond = second;
+            currentSecondEvents = 0;
+        }
+        peakPerSecond = Math.max(peakPerSecond, ++currentSecondEvents);
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getPeakPerMillis() {
+        return peakPerMillis;
+    }
+
+    public long getPeakPerSecond() {
+        return peakPerSecond;
+    }
+
+    /**
+     * Gets the mean rate over a time range.
+     *
+     * @param rangeMillis Length of the range the events were spread over
+     */
+    public double getMeanPerSecond(long rangeMillis) {
+        return rangeMillis > 0 ? eventCount * 1000.0 / rangeMillis : 0;
+    }
+
+    /**
+     * Formats the statistics as S3 user metadata.
+     *
+     * @param profile Name of the volume profile the file was generated with
+     * @param rangeMillis Length of the range the events were spread over
+     */
+    public Map<String, String> toMetadata(String profile, long rangeMillis) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(VOLUME_PROFILE, profile);
+        metadata.put(EVENT_COUNT, Long.toString(eventCount));
+        metadata.put(PEAK_EVENTS_PER_MS, Long.toString(peakPerMillis));
+        metadata.put(PEAK_EVENTS_PER_SECOND, Long.toString(peakPerSecond));
+        metadata.put(MEAN_EVENTS_PER_SECOND, String.format(Locale.ROOT, "%.3f", getMeanPerSecond(rangeMillis)));
+        return metadata;
+    }
+}
@@ -0,0 +1,183 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
+
+/**
+ * How a file's events are spread over its time range, as a piecewise-constant event rate.
+ *
+ * <p>Timestamps are placed by quantile: the event a fraction {@code q} of the way through the file
+ * is put where the cumulative event count reaches {@code q} of the total. Quantiles drawn in
+ * ascending order therefore give timestamps in ascending order, whatever the profile.
+ *
+ * <p>Smooth profiles are approximated by {@value #SHAPE_SEGMENTS} equal segments. Microbursts are
+ * added as exact segments at the peak rate, and take at most half of the events: when the
+ * configured bursts would need more, each is kept at random with the same probability, which
+ * keeps their arrivals a Poisson process.
+ */
+public final class VolumeCurve {
+
+    private static final int SHAPE_SEGMENTS = 1440;
+    private static final double MAX_BURST_SHARE = 0.5;
+
+    private final double[] boundaries;
+    private final double[] cumulative;
+
+    private VolumeCurve(double[] boundaries, double[] cumulative) {
+        this.boundaries = boundaries;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Builds the curve for a file.
+     *
+     * @param config Volume profile configuration
+     * @param eventCount Number of events in the file
+     * @param rangeMillis Length of the time range
+     * @param random Source of the burst arrivals
+     */
+    public static VolumeCurve create(GeneratorProperties.Volume config, int eventCount, long rangeMillis,
+                                     RandomGenerator random) {
+        double range = Math.max(1, rangeMillis);
+        GeneratorProperties.Volume.Profile profile = config.getProfile();
+        double auction = profile == GeneratorProperties.Volume.Profile.OPEN_CLOSE_SPIKES
+                ? Math.min(TimeUnit.MINUTES.toMillis(config.getAuctionMinutes()), range / 4)
+                : 0;
+        List<double[]> bursts = profile == GeneratorProperties.Volume.Profile.MICROBURST
+                ? drawBursts(config, eventCount, range, random)
+                : List.of();
+
+        DoubleStream.Builder edges = DoubleStream.builder();
+        for (int i = 0; i <= SHAPE_SEGMENTS; i++) {
+            edges.add(range * i / SHAPE_SEGMENTS);
+        }
+        if (auction > 0) {
+            edges.add(auction).add(range - auction);
+        }
+        for (double[] burst : bursts) {
+            edges.add(burst[0]).add(burst[1]);
+        }
+        double[] boundaries = edges.build().sorted().distinct().toArray();
+        int segments = boundaries.length - 1;
+
+        // The shape sets how the events outside bursts are shared between segments
+        double[] shapeWeights = new double[segments];
+        double totalShapeWeight = 0;
+        for (int i = 0; i < segments; i++) {
+            double middle = (boundaries[i] + boundaries[i + 1]) / 2;
+            double density = shape(profile, middle / range);
+            if (middle < auction || middle >= range - auction) {
+                density *= config.getAuctionMultiplier();
+            }
+            shapeWeights[i] = density * (boundaries[i + 1] - boundaries[i]);
+            totalShapeWeight += shapeWeights[i];
+        }
+
+        double peak = config.getPeakEventsPerMillis();
+        double burstEvents = bursts.stream().mapToDouble(burst -> (burst[1] - burst[0]) * peak).sum();
+        double scale = Math.max(0, eventCount - burstEvents) / totalShapeWeight;
+
+        double[] starts = bursts.stream().mapToDouble(burst -> burst[0]).sorted().toArray();
+        double[] ends = bursts.stream().mapToDouble(burst -> burst[1]).sorted().toArray();
+        double[] cumulative = new double[boundaries.length];
+        int started = 0;
+        int ended = 0;
+        for (int i = 0; i < segments; i++) {
+            // Burst edges are boundaries, so the bursts covering a segment start at or before it and end after it
+            while (started < starts.length && starts[started] <= boundaries[i]) {
+                started++;
+            }
+            while (ended < ends.length && ends[ended] <= boundaries[i]) {
+                ended++;
+            }
+            double burstWeight = (started - ended) * peak * (boundaries[i + 1] - boundaries[i]);
+            cumulative[i + 1] = cumulative[i] + shapeWeights[i] * scale + burstWeight;
+        }
+
+        return new VolumeCurve(boundaries, cumulative);
+    }
+
+    /**
+     * Gets the time by which the given fraction of the events has happened.
+     *
+     * @param quantile Fraction of the events, from 0 to 1
+     * @return Milliseconds from the start of the range
+     */
+    public double timeAt(double quantile) {
+        double total = cumulative[cumulative.length - 1];
+        if (total <= 0) {
+            return Math.min(Math.max(quantile, 0), 1) * boundaries[boundaries.length - 1];
+        }
+        double target = Math.min(Math.max(quantile, 0), 1) * total;
+
+        // The first boundary with more events before it than the target closes the segment holding it
+        int low = 1;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] > target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        int segment = low - 1;
+        double events = cumulative[low] - cumulative[segment];
+        if (events <= 0) {
+            return boundaries[low];
+        }
+        return boundaries[segment] + (target - cumulative[segment]) / events * (boundaries[low] - boundaries[segment]);
+    }
+
+    /**
+     * Gets the length of the time range in milliseconds.
+     */
+    public double getRangeMillis() {
+        return boundaries[boundaries.length - 1];
+    }
+
+    /**
+     * Relative event rate of a profile at a fraction of the way through the range.
+     */
+    private static double shape(GeneratorProperties.Volume.Profile profile, double position) {
+        return switch (profile) {
+            case UNIFORM, MICROBURST -> 1;
+            case U_SHAPE, OPEN_CLOSE_SPIKES -> 1 + 3 * (2 * position - 1) * (2 * position - 1);
+        };
+    }
+
+    /**
+     * Draws burst intervals with exponential gaps, thinned so they take at most half of the events.
+     */
+    private static List<double[]> drawBursts(GeneratorProperties.Volume config, int eventCount, double range,
+                                             RandomGenerator random) {
+        List<double[]> bursts = new ArrayList<>();
+        if (config.getBurstsPerHour() <= 0 || config.getBurstDurationMillis() <= 0 || config.getPeakEventsPerMillis() <= 0) {
+            return bursts;
+        }
+        double meanGap = TimeUnit.HOURS.toMillis(1) / config.getBurstsPerHour();
+        for (double start = random.nextExponential() * meanGap; start < range; start += random.nextExponential() * meanGap) {
+            bursts.add(new double[] {start, Math.min(range, start + config.getBurstDurationMillis())});
+        }
+
+        double burstEvents = bursts.stream()
+                .mapToDouble(burst -> (burst[1] - burst[0]) * config.getPeakEventsPerMillis())
+                .sum();
+        double keep = burstEvents > 0 ? Math.min(1, MAX_BURST_SHARE * eventCount / burstEvents) : 1;
+        if (keep < 1) {
+            List<double[]> kept = new ArrayList<>();
+            for (double[] burst : bursts) {
+                if (random.nextDouble() < keep) {
+                    kept.add(burst);
+                }
+            }
+            bursts = kept;
+        }
+        return bursts;
+    }
+}
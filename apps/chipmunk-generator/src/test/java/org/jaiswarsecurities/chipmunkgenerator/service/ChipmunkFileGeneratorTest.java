@@ -1,19 +1,34 @@
 package org.jaiswarsecurities.chipmunkgenerator.service;
 
 import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.lenient;
@@ -46,36 +61,7 @@ class ChipmunkFileGeneratorTest {
         String fileName = "test-events.chip";
         int eventCount = 5; // Small count for testing
         
-        // Mock event generation responses - use lenient() to avoid unnecessary stubbing errors
-        lenient().when(eventDataGenerator.generateTradeEvent(any(), any(), any()))
-            .thenReturn(org.jaiswarsecurities.iris.proto.TradeEvent.newBuilder()
-                .setTradeId("TEST-001")
-                .setInstrument("AAPL")
-                .setPrice(150.0)
-                .setQuantity(100)
-                .setSide("BUY")
-                .setVenue("NYSE")
-                .setTradeTimestamp(System.currentTimeMillis())
-                .build());
-                
-        lenient().when(eventDataGenerator.generateMarketDataEvent(any(), any()))
-            .thenReturn(org.jaiswarsecurities.iris.proto.MarketDataEvent.newBuilder()
-                .setInstrument("AAPL")
-                .setBid(149.5)
-                .setAsk(150.5)
-                .setLastPrice(150.0)
-                .setTimestamp(System.currentTimeMillis())
-                .build());
-                
-        lenient().when(eventDataGenerator.generateFxRateEvent(any(), any()))
-            .thenReturn(org.jaiswarsecurities.iris.proto.FxRateEvent.newBuilder()
-                .setFromCurrency("USD")
-                .setToCurrency("EUR")
-                .setRate(0.85)
-                .setBid(0.849)
-                .setAsk(0.851)
-                .setTimestamp(System.currentTimeMillis())
-                .build());
+        stubEventData();
         
         // Mock S3 upload response
         when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
@@ -90,8 +76,208 @@ class ChipmunkFileGeneratorTest {
         assertTrue(result.contains(fileName));
         assertTrue(result.startsWith("s3://"));
         
-        // Verify S3 upload was called
-        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        // Verify the file and its offset index were uploaded
+        verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.key().endsWith(fileName)
+                && "5".equals(request.metadata().get(RateStatistics.EVENT_COUNT))
+                && request.metadata().containsKey(RateStatistics.PEAK_EVENTS_PER_MS)),
+            any(RequestBody.class));
+        verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.key().endsWith(fileName + ".idx")),
+            any(RequestBody.class));
+    }
+
+    @Test
+    void testRecordsAreWrittenInTimestampOrder() throws Exception {
+        stubEventData();
+        // Several slices on several threads, so runs are concatenated
+        generatorProperties.getEventGeneration().setEventsPerSlice(64);
+        generatorProperties.getEventGeneration().setParallelism(4);
+        ChipmunkIndexBuilder indexBuilder = new ChipmunkIndexBuilder(generatorProperties.getIndex().getStride());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rangeStart = Instant.now().minus(generatorProperties.getEventGeneration().getTimeRangeHours(), ChronoUnit.HOURS)
+            .toEpochMilli();
+
+        long written = chipmunkFileGenerator.writeChipmunkRecords(out, 500, indexBuilder);
+
+        assertEquals(out.size(), written);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        long previous = Long.MIN_VALUE;
+        int frames = 0;
+        while (in.available() > 0) {
+            byte[] frame = new byte[in.readInt()];
+            in.readFully(frame);
+            ChipmunkRecord record = ChipmunkRecord.parseFrom(frame);
+            assertTrue(record.getTimestamp() >= previous);
+            assertTrue(record.getTimestamp() >= rangeStart && record.getTimestamp() <= System.currentTimeMillis());
+            previous = record.getTimestamp();
+            frames++;
+        }
+        assertEquals(500, frames);
+    }
+
+    @Test
+    void testOutputDependsOnlyOnSeed() throws Exception {
+        stubEventData();
+        generatorProperties.getEventGeneration().setEventsPerSlice(50);
+        Instant baseTime = Instant.parse("2024-01-01T00:00:00Z");
+
+        generatorProperties.getEventGeneration().setParallelism(1);
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ChipmunkIndexBuilder sequentialIndex = new ChipmunkIndexBuilder(100);
+        chipmunkFileGenerator.writeChipmunkRecords(sequential, 1000, sequentialIndex, 42L, baseTime);
+
+        generatorProperties.getEventGeneration().setParallelism(8);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        ChipmunkIndexBuilder parallelIndex = new ChipmunkIndexBuilder(100);
+        chipmunkFileGenerator.writeChipmunkRecords(parallel, 1000, parallelIndex, 42L, baseTime);
+
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+        assertArrayEquals(sequentialIndex.toByteArray(sequential.size()), parallelIndex.toByteArray(parallel.size()));
+    }
+
+    @Test
+    void testEventFieldsDependOnlyOnSeedAndIndex() throws Exception {
+        stubEventData();
+        Instant baseTime = Instant.parse("2024-01-01T00:00:00Z");
+
+        generatorProperties.getEventGeneration().setEventsPerSlice(30);
+        ByteArrayOutputStream small = new ByteArrayOutputStream();
+        chipmunkFileGenerator.writeChipmunkRecords(small, 200, new ChipmunkIndexBuilder(100), 42L, baseTime);
+
+        generatorProperties.getEventGeneration().setEventsPerSlice(1000);
+        ByteArrayOutputStream large = new ByteArrayOutputStream();
+        chipmunkFileGenerator.writeChipmunkRecords(large, 200, new ChipmunkIndexBuilder(100), 42L, baseTime);
+
+        // Slicing moves the timestamps but nothing else
+        DataInputStream smallIn = new DataInputStream(new ByteArrayInputStream(small.toByteArray()));
+        DataInputStream largeIn = new DataInputStream(new ByteArrayInputStream(large.toByteArray()));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(readRecord(smallIn).toBuilder().clearTimestamp().build(),
+                readRecord(largeIn).toBuilder().clearTimestamp().build());
+        }
+    }
+
+    @Test
+    void testConfiguredSeedAndStartTimeReproduceFile() throws Exception {
+        stubEventData();
+        generatorProperties.setSeed(42L);
+        generatorProperties.getEventGeneration().setStartTime(Instant.parse("2024-01-01T00:00:00Z"));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        chipmunkFileGenerator.writeChipmunkRecords(first, 300, new ChipmunkIndexBuilder(100));
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        chipmunkFileGenerator.writeChipmunkRecords(second, 300, new ChipmunkIndexBuilder(100));
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(first.toByteArray()));
+        assertTrue(readRecord(in).getTimestamp() >= Instant.parse("2024-01-01T00:00:00Z").toEpochMilli());
+    }
+
+    @Test
+    void testIndexEntriesPointAtFramesAcrossSlices() throws Exception {
+        stubEventData();
+        generatorProperties.getEventGeneration().setEventsPerSlice(37);
+        generatorProperties.getEventGeneration().setParallelism(3);
+        ChipmunkIndexBuilder indexBuilder = new ChipmunkIndexBuilder(10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = chipmunkFileGenerator.writeChipmunkRecords(out, 300, indexBuilder,
+            7L, Instant.parse("2024-01-01T00:00:00Z"));
+
+        byte[] data = out.toByteArray();
+        DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBuilder.toByteArray(written)));
+        index.skipBytes(12);
+        assertEquals(written, index.readLong());
+        int entries = index.readInt();
+        assertEquals(30, entries);
+        for (int i = 0; i < entries; i++) {
+            assertEquals(i * 10L, index.readLong());
+            long timestamp = index.readLong();
+            DataInputStream frame = new DataInputStream(new ByteArrayInputStream(data, (int) index.readLong(), data.length));
+            byte[] record = new byte[frame.readInt()];
+            frame.readFully(record);
+            assertEquals(timestamp, ChipmunkRecord.parseFrom(record).getTimestamp());
+        }
+    }
+
+    @Test
+    void testMicroburstsRaisePeakRate() {
+        Instant baseTime = Instant.parse("2024-01-01T00:00:00Z");
+        generatorProperties.getEventGeneration().setTimeRangeHours(1);
+
+        RateStatistics uniform = chipmunkFileGenerator.measureRates(chipmunkFileGenerator.plan(100_000, 42L, baseTime));
+        generatorProperties.getEventGeneration().getVolume().setProfile(GeneratorProperties.Volume.Profile.MICROBURST);
+        RateStatistics bursty = chipmunkFileGenerator.measureRates(chipmunkFileGenerator.plan(100_000, 42L, baseTime));
+
+        assertEquals(100_000, bursty.getEventCount());
+        assertTrue(uniform.getPeakPerMillis() < 10);
+        assertTrue(bursty.getPeakPerMillis() >= 15);
+        assertTrue(bursty.getPeakPerSecond() > uniform.getPeakPerSecond());
+    }
+
+    @Test
+    void testTargetRateSetsTimeRange() {
+        generatorProperties.getEventGeneration().getVolume().setTargetEventsPerSecond(500);
+
+        ChipmunkFileGenerator.Plan plan = chipmunkFileGenerator.plan(10_000, 42L, Instant.parse("2024-01-01T00:00:00Z"));
+
+        assertEquals(20_000, plan.rangeMillis());
+        assertEquals(500, chipmunkFileGenerator.measureRates(plan).getMeanPerSecond(plan.rangeMillis()), 0.001);
+    }
+
+    @Test
+    void testMeasuredRatesMatchWrittenFile() throws Exception {
+        stubEventData();
+        GeneratorProperties.EventGeneration eventGen = generatorProperties.getEventGeneration();
+        eventGen.setTimeRangeHours(1);
+        eventGen.setEventsPerSlice(700);
+        eventGen.setParallelism(4);
+        eventGen.getVolume().setProfile(GeneratorProperties.Volume.Profile.MICROBURST);
+        eventGen.getVolume().setBurstsPerHour(3600);
+        Instant baseTime = Instant.parse("2024-01-01T00:00:00Z");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chipmunkFileGenerator.writeChipmunkRecords(out, 5_000, new ChipmunkIndexBuilder(100), 42L, baseTime);
+
+        RateStatistics written = new RateStatistics();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        long previous = Long.MIN_VALUE;
+        while (in.available() > 0) {
+            long timestamp = readRecord(in).getTimestamp();
+            assertTrue(timestamp >= previous);
+            written.onEvent(timestamp);
+            previous = timestamp;
+        }
+        RateStatistics measured = chipmunkFileGenerator.measureRates(chipmunkFileGenerator.plan(5_000, 42L, baseTime));
+        assertEquals(measured.getEventCount(), written.getEventCount());
+        assertEquals(measured.getPeakPerMillis(), written.getPeakPerMillis());
+        assertEquals(measured.getPeakPerSecond(), written.getPeakPerSecond());
+    }
+
+    @Test
+    void testLargeFileIsUploadedInParts() throws Exception {
+        stubEventData();
+        generatorProperties.getUpload().setPartSizeBytes(1024);
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+            .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+            .thenAnswer(invocation -> UploadPartResponse.builder()
+                .eTag("etag-" + invocation.<UploadPartRequest>getArgument(0).partNumber())
+                .build());
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+            .thenReturn(PutObjectResponse.builder().build());
+
+        chipmunkFileGenerator.generateAndUploadChipmunkFile("large-events.chip", 200);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertTrue(complete.getValue().multipartUpload().parts().size() > 1);
+        assertTrue(complete.getValue().key().endsWith("large-events.chip"));
+
+        // Only the index, which is small, goes up in a single request
+        verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.key().endsWith("large-events.chip.idx")),
+            any(RequestBody.class));
+        verify(s3Client, never()).putObject(argThat((PutObjectRequest request) -> request.key().endsWith("large-events.chip")),
+            any(RequestBody.class));
     }
 
     @Test
@@ -107,6 +293,19 @@ class ChipmunkFileGeneratorTest {
         assertEquals(0.2, eventGen.getFxRateEventRatio(), 0.001);
         assertEquals(24, eventGen.getTimeRangeHours());
         
+        assertTrue(generatorProperties.getIndex().isEnabled());
+        assertEquals(1024, generatorProperties.getIndex().getStride());
+        
+        assertEquals(8 * 1024 * 1024, generatorProperties.getUpload().getPartSizeBytes());
+        assertEquals(4, generatorProperties.getUpload().getParallelism());
+        
+        assertNull(generatorProperties.getSeed());
+        assertNull(eventGen.getStartTime());
+        assertEquals(GeneratorProperties.Volume.Profile.UNIFORM, eventGen.getVolume().getProfile());
+        assertEquals(0, eventGen.getVolume().getTargetEventsPerSecond(), 0.001);
+        assertEquals(0, eventGen.getParallelism());
+        assertEquals(10_000, eventGen.getEventsPerSlice());
+        
         assertTrue(eventGen.getInstruments().length > 0);
         assertTrue(eventGen.getCurrencyPairs().length > 0);
         assertTrue(eventGen.getVenues().length > 0);
@@ -122,4 +321,42 @@ class ChipmunkFileGeneratorTest {
         
         assertEquals(1.0, sum, 0.001);
     }
-}
\ No newline at end of file
+
+    private static ChipmunkRecord readRecord(DataInputStream in) throws Exception {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        return ChipmunkRecord.parseFrom(frame);
+    }
+
+    private void stubEventData() {
+        lenient().when(eventDataGenerator.generateTradeEvent(any(), any(), any(), any()))
+            .thenReturn(org.jaiswarsecurities.iris.proto.TradeEvent.newBuilder()
+                .setTradeId("TEST-001")
+                .setInstrument("AAPL")
+                .setPrice(150.0)
+                .setQuantity(100)
+                .setSide("BUY")
+                .setVenue("NYSE")
+                .setTradeTimestamp(System.currentTimeMillis())
+                .build());
+                
+        lenient().when(eventDataGenerator.generateMarketDataEvent(any(), any(), any()))
+            .thenReturn(org.jaiswarsecurities.iris.proto.MarketDataEvent.newBuilder()
+                .setInstrument("AAPL")
+                .setBid(149.5)
+                .setAsk(150.5)
+                .setLastPrice(150.0)
+                .setTimestamp(System.currentTimeMillis())
+                .build());
+                
+        lenient().when(eventDataGenerator.generateFxRateEvent(any(), any(), any()))
+            .thenReturn(org.jaiswarsecurities.iris.proto.FxRateEvent.newBuilder()
+                .setFromCurrency("USD")
+                .setToCurrency("EUR")
+                .setRate(0.85)
+                .setBid(0.849)
+                .setAsk(0.851)
+                .setTimestamp(System.currentTimeMillis())
+                .build());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -137,4 +138,33 @@ class EventDataGeneratorTest {
             assertTrue(trade.getQuantity() >= 100 && trade.getQuantity() <= 1000);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSameGeneratorStateReproducesEvents() {
+        Instant timestamp = Instant.parse("2024-01-01T09:30:00Z");
+
+        TradeEvent trade = eventDataGenerator.generateTradeEvent(new SplittableRandom(42), timestamp, "UK", "corr-1");
+        assertEquals(trade, eventDataGenerator.generateTradeEvent(new SplittableRandom(42), timestamp, "UK", "corr-1"));
+        assertTrue(trade.getTradeId().startsWith("LON-" + timestamp.toEpochMilli() + "-"));
+        assertTrue(trade.getOrderId().matches("ORD-[0-9a-f]{8}"));
+        assertTrue(trade.getRegulatoryId().matches("MIFID-[0-9a-f]{12}"));
+
+        assertEquals(eventDataGenerator.generateMarketDataEvent(new SplittableRandom(7), timestamp, "US"),
+                eventDataGenerator.generateMarketDataEvent(new SplittableRandom(7), timestamp, "US"));
+        assertEquals(eventDataGenerator.generateFxRateEvent(new SplittableRandom(7), timestamp, "JP"),
+                eventDataGenerator.generateFxRateEvent(new SplittableRandom(7), timestamp, "JP"));
+    }
+
+    @Test
+    void testConfiguredSeedReproducesEvents() {
+        generatorProperties.setSeed(42L);
+        Instant timestamp = Instant.parse("2024-01-01T09:30:00Z");
+
+        EventDataGenerator first = new EventDataGenerator(generatorProperties);
+        EventDataGenerator second = new EventDataGenerator(generatorProperties);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first.generateTradeEvent(timestamp, "US", ""), second.generateTradeEvent(timestamp, "US", ""));
+        }
+    }
+}
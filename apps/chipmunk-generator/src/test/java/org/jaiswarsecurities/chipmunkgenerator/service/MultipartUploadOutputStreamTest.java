@@ -0,0 +1,163 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MultipartUploadOutputStream.
+ */
+@ExtendWith(MockitoExtension.class)
+class MultipartUploadOutputStreamTest {
+
+    private static final String BUCKET = "chipmunk-archive";
+    private static final String KEY = "generated/test.chip";
+
+    @Mock
+    private S3Client s3Client;
+
+    private Map<Integer, byte[]> uploadedParts;
+
+    @BeforeEach
+    void setUp() {
+        uploadedParts = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    void testSmallObjectIsPutInOneRequest() throws IOException {
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        when(s3Client.putObject(request.capture(), body.capture()))
+                .thenReturn(PutObjectResponse.builder().build());
+
+        try (MultipartUploadOutputStream out = new MultipartUploadOutputStream(s3Client, BUCKET, KEY,
+                Map.of("event-count", "3"), 64, 2)) {
+            out.write(new byte[] {1, 2, 3});
+            assertEquals(3, out.getSize());
+        }
+
+        assertArrayEquals(new byte[] {1, 2, 3}, read(body.getValue()));
+        assertEquals(Map.of("event-count", "3"), request.getValue().metadata());
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testLargeObjectIsUploadedInOrderedParts() throws IOException {
+        stubMultipartUpload();
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        try (MultipartUploadOutputStream out = new MultipartUploadOutputStream(s3Client, BUCKET, KEY,
+                Map.of("event-count", "100"), 16, 2)) {
+            out.write(content[0]);
+            out.write(content, 1, 40);
+            out.write(content, 41, content.length - 41);
+        }
+
+        // Six full parts and a short last one
+        assertEquals(7, uploadedParts.size());
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (int partNumber = 1; partNumber <= 7; partNumber++) {
+            reassembled.write(uploadedParts.get(partNumber));
+        }
+        assertArrayEquals(content, reassembled.toByteArray());
+
+        ArgumentCaptor<CreateMultipartUploadRequest> create = ArgumentCaptor.forClass(CreateMultipartUploadRequest.class);
+        verify(s3Client).createMultipartUpload(create.capture());
+        assertEquals(Map.of("event-count", "100"), create.getValue().metadata());
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        List<CompletedPart> parts = complete.getValue().multipartUpload().parts();
+        assertEquals(7, parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(i + 1, parts.get(i).partNumber());
+            assertEquals("etag-" + (i + 1), parts.get(i).eTag());
+        }
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testFailedPartAbortsUpload() {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("Slow down").build());
+
+        MultipartUploadOutputStream out = new MultipartUploadOutputStream(s3Client, BUCKET, KEY, 16, 2);
+        assertThrows(IOException.class, () -> {
+            try (out) {
+                out.write(new byte[40]);
+            }
+        });
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testAbortUploadsNothing() throws IOException {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        MultipartUploadOutputStream out = new MultipartUploadOutputStream(s3Client, BUCKET, KEY, 16, 2);
+        out.write(new byte[40]);
+
+        out.abort();
+        out.close();
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    private void stubMultipartUpload() {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            byte[] part = read(invocation.getArgument(1));
+            assertEquals(part.length, request.contentLength().longValue());
+            uploadedParts.put(request.partNumber(), part);
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateStatistics.
+ */
+class RateStatisticsTest {
+
+    @Test
+    void testTracksBusiestMillisecondAndSecond() {
+        RateStatistics rates = new RateStatistics();
+        long[] timestamps = {1_000, 1_000, 1_000, 1_500, 1_999, 2_000, 2_001, 2_001, 5_000};
+        for (long timestamp : timestamps) {
+            rates.onEvent(timestamp);
+        }
+
+        assertEquals(9, rates.getEventCount());
+        assertEquals(3, rates.getPeakPerMillis());
+        assertEquals(5, rates.getPeakPerSecond());
+        assertEquals(2.25, rates.getMeanPerSecond(4_000), 0.0001);
+    }
+
+    @Test
+    void testFormatsMetadata() {
+        RateStatistics rates = new RateStatistics();
+        rates.onEvent(0);
+        rates.onEvent(0);
+        rates.onEvent(1);
+
+        Map<String, String> metadata = rates.toMetadata("MICROBURST", 2_000);
+
+        assertEquals("MICROBURST", metadata.get(RateStatistics.VOLUME_PROFILE));
+        assertEquals("3", metadata.get(RateStatistics.EVENT_COUNT));
+        assertEquals("2", metadata.get(RateStatistics.PEAK_EVENTS_PER_MS));
+        assertEquals("3", metadata.get(RateStatistics.PEAK_EVENTS_PER_SECOND));
+        assertEquals("1.500", metadata.get(RateStatistics.MEAN_EVENTS_PER_SECOND));
+    }
+}
@@ -0,0 +1,81 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VolumeCurve.
+ */
+class VolumeCurveTest {
+
+    private static final long DAY = TimeUnit.HOURS.toMillis(24);
+
+    @Test
+    void testUniformSpreadsEventsEvenly() {
+        VolumeCurve curve = curve(GeneratorProperties.Volume.Profile.UNIFORM, 10_000);
+
+        assertEquals(DAY, curve.getRangeMillis(), 0.001);
+        assertEquals(0, curve.timeAt(0), 0.001);
+        assertEquals(DAY / 4.0, curve.timeAt(0.25), 1);
+        assertEquals(DAY / 2.0, curve.timeAt(0.5), 1);
+        assertEquals(DAY, curve.timeAt(1), 0.001);
+    }
+
+    @Test
+    void testUShapeIsBusiestAtTheEdges() {
+        VolumeCurve curve = curve(GeneratorProperties.Volume.Profile.U_SHAPE, 10_000);
+
+        // Symmetric, with the first tenth of the events over sooner than the middle tenth
+        assertEquals(DAY / 2.0, curve.timeAt(0.5), 1);
+        assertTrue(curve.timeAt(0.1) < DAY * 0.1);
+        assertTrue(curve.timeAt(0.1) - curve.timeAt(0) < curve.timeAt(0.55) - curve.timeAt(0.45));
+    }
+
+    @Test
+    void testOpenAndCloseSpikesSitOnTheUShape() {
+        VolumeCurve uShape = curve(GeneratorProperties.Volume.Profile.U_SHAPE, 10_000);
+        VolumeCurve spikes = curve(GeneratorProperties.Volume.Profile.OPEN_CLOSE_SPIKES, 10_000);
+
+        assertTrue(spikes.timeAt(0.02) < uShape.timeAt(0.02));
+        assertTrue(spikes.timeAt(0.98) > uShape.timeAt(0.98));
+        assertEquals(DAY / 2.0, spikes.timeAt(0.5), 1);
+    }
+
+    @Test
+    void testTimeIsNonDecreasingInQuantile() {
+        for (GeneratorProperties.Volume.Profile profile : GeneratorProperties.Volume.Profile.values()) {
+            VolumeCurve curve = curve(profile, 100_000);
+            double previous = 0;
+            for (int i = 0; i <= 10_000; i++) {
+                double time = curve.timeAt(i / 10_000.0);
+                assertTrue(time >= previous, profile + " at " + i);
+                previous = time;
+            }
+            assertEquals(DAY, previous, 0.001);
+        }
+    }
+
+    @Test
+    void testBurstsArePlacedFromSeed() {
+        GeneratorProperties.Volume config = new GeneratorProperties.Volume();
+        config.setProfile(GeneratorProperties.Volume.Profile.MICROBURST);
+
+        VolumeCurve first = VolumeCurve.create(config, 100_000, DAY, new SplittableRandom(42));
+        VolumeCurve second = VolumeCurve.create(config, 100_000, DAY, new SplittableRandom(42));
+
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(first.timeAt(i / 100.0), second.timeAt(i / 100.0));
+        }
+    }
+
+    private static VolumeCurve curve(GeneratorProperties.Volume.Profile profile, int eventCount) {
+        GeneratorProperties.Volume config = new GeneratorProperties.Volume();
+        config.setProfile(profile);
+        return VolumeCurve.create(config, eventCount, DAY, new SplittableRandom(42));
+    }
+}
@@ -4,7 +4,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
-import org.springframework.scheduling.annotation.EnableAsync;
 
 /**
  * IRIS Replay Engine Application
@@ -24,7 +23,6 @@ import org.springframework.scheduling.annotation.EnableAsync;
  */
 @Slf4j
 @SpringBootApplication
-@EnableAsync
 @ConfigurationPropertiesScan("org.jaiswarsecurities.replayengine.config")
 public class ReplayEngineApplication {
 
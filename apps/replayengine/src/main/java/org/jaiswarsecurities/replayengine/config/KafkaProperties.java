@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration properties for Kafka.
  * Binds to the 'kafka' section in replay-config.yaml.
@@ -14,12 +17,24 @@ public class KafkaProperties {
     
     private String bootstrapServers = "localhost:9092";
     
+    /**
+     * Record value format: json (rendered JSON string), protobuf (the record's serialized payload bytes, untouched)
+     */
+    private PayloadFormat payloadFormat = PayloadFormat.JSON;
+    
     @NestedConfigurationProperty
     private Producer producer = new Producer();
     
     @NestedConfigurationProperty
     private Topics topics = new Topics();
     
+    @NestedConfigurationProperty
+    private Partitioning partitioning = new Partitioning();
+    
+    public enum PayloadFormat {
+        JSON, PROTOBUF
+    }
+    
     @Data
     public static class Producer {
         private String acks = "1";
@@ -37,4 +52,42 @@ public class KafkaProperties {
         private String marketData = "market-data";
         private String fxRates = "fx-rates";
     }
+    
+    /**
+     * How the record key, and so the partition, is chosen for each topic.
+     */
+    @Data
+    public static class Partitioning {
+        /**
+         * Key strategy for the trade events topic
+         */
+        private KeyStrategy tradeEvents = KeyStrategy.REGION_TYPE;
+        
+        /**
+         * Key strategy for the market data topic
+         */
+        private KeyStrategy marketData = KeyStrategy.REGION_TYPE;
+        
+        /**
+         * Key strategy for the FX rates topic
+         */
+        private KeyStrategy fxRates = KeyStrategy.REGION_TYPE;
+        
+        /**
+         * Strategies whose values are joined, in order, by the composite strategy
+         */
+        private List<KeyStrategy> compositeFields = new ArrayList<>(List.of(KeyStrategy.REGION_TYPE, KeyStrategy.INSTRUMENT));
+        
+        public enum KeyStrategy {
+            /**
+             * region_EVENTTYPE, the original key; about a dozen distinct values
+             */
+            REGION_TYPE,
+            INSTRUMENT,
+            ACCOUNT,
+            CURRENCY_PAIR,
+            CORRELATION_ID,
+            COMPOSITE
+        }
+    }
 }
\ No newline at end of file
@@ -6,11 +6,13 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Import;
 import org.jaiswarsecurities.awsconfig.AwsConfig;
 
@@ -25,15 +27,40 @@ import java.util.Properties;
 @Import(AwsConfig.class)
 public class ReplayEngineConfig {
     
+    /**
+     * Producer for JSON payloads. Not created when kafka.payload-format is protobuf, since every
+     * record then goes through the byte-array producer and this one would only hold idle buffers
+     * and broker connections.
+     */
     @Bean
     @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "kafka.payload-format", havingValue = "json", matchIfMissing = true)
     public KafkaProducer<String, String> kafkaProducer(KafkaProperties kafkaProperties) {
+        Properties props = producerProperties(kafkaProperties);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        
+        return new KafkaProducer<>(props);
+    }
+    
+    /**
+     * Producer for protobuf payloads, which are sent as the bytes read from the file.
+     * Only created when kafka.payload-format is protobuf; KafkaPublisher checks the source supplies those bytes.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "kafka.payload-format", havingValue = "protobuf")
+    public KafkaProducer<String, byte[]> byteArrayKafkaProducer(KafkaProperties kafkaProperties) {
+        Properties props = producerProperties(kafkaProperties);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        
+        return new KafkaProducer<>(props);
+    }
+    
+    private Properties producerProperties(KafkaProperties kafkaProperties) {
         Properties props = new Properties();
         
         // Basic producer configuration
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         
         // Performance and reliability configuration
         props.put(ProducerConfig.ACKS_CONFIG, kafkaProperties.getProducer().getAcks());
@@ -47,7 +74,7 @@ public class ReplayEngineConfig {
         // Enable idempotence for exactly-once semantics
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         
-        return new KafkaProducer<>(props);
+        return props;
     }
     
     @Bean
@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration properties for the Replay Engine.
  * Binds to the 'replay' section in replay-config.yaml.
@@ -23,7 +27,7 @@ public class ReplayProperties {
     private double speedMultiplier = 1.0;
     
     /**
-     * Batch size for burst mode
+     * Initial size of the in-flight window (events sent to Kafka but not yet acknowledged); adapted from ack latency
      */
     private int burstBatchSize = 1000;
     
@@ -33,6 +37,27 @@ public class ReplayProperties {
     @NestedConfigurationProperty
     private Checkpoint checkpoint = new Checkpoint();
     
+    @NestedConfigurationProperty
+    private Window window = new Window();
+    
+    @NestedConfigurationProperty
+    private Pacing pacing = new Pacing();
+    
+    @NestedConfigurationProperty
+    private FlowControl flowControl = new FlowControl();
+    
+    @NestedConfigurationProperty
+    private Pipeline pipeline = new Pipeline();
+    
+    @NestedConfigurationProperty
+    private EventPool eventPool = new EventPool();
+    
+    @NestedConfigurationProperty
+    private Sessions sessions = new Sessions();
+    
+    @NestedConfigurationProperty
+    private VirtualThreads virtualThreads = new VirtualThreads();
+    
     public enum SpeedMode {
         REAL_TIME("real-time"),
         ACCELERATED("accelerated"),
@@ -65,25 +90,123 @@ public class ReplayProperties {
          */
         private SourceType type = SourceType.MINIO;
         
+        /**
+         * Record format: json (one object per line), protobuf (length-prefixed ChipmunkRecord frames)
+         */
+        private Format format = Format.JSON;
+        
+        /**
+         * Name event ids are derived from; defaults to the bucket/key or file path. Set it to keep
+         * ids stable when the same file is replayed from another location
+         */
+        private String eventIdNamespace;
+        
         @NestedConfigurationProperty
         private Minio minio = new Minio();
         
         @NestedConfigurationProperty
         private Local local = new Local();
         
+        @NestedConfigurationProperty
+        private Index index = new Index();
+        
+        @NestedConfigurationProperty
+        private Merge merge = new Merge();
+        
         public enum SourceType {
             MINIO, LOCAL_FILE
         }
         
+        public enum Format {
+            JSON, PROTOBUF
+        }
+        
         @Data
         public static class Minio {
             private String bucketName = "iris-chipmunk-files";
             private String objectKey;
+            
+            @NestedConfigurationProperty
+            private Prefetch prefetch = new Prefetch();
+            
+            @Data
+            public static class Prefetch {
+                /**
+                 * Fetch objects with concurrent byte-range GETs instead of one serial stream
+                 */
+                private boolean enabled = true;
+                
+                /**
+                 * Size of each ranged GET
+                 */
+                private int partSizeBytes = 8 * 1024 * 1024;
+                
+                /**
+                 * Maximum number of parts fetched concurrently
+                 */
+                private int parallelism = 4;
+                
+                /**
+                 * Retries per part before the replay fails
+                 */
+                private int maxRetries = 3;
+            }
         }
         
         @Data
         public static class Local {
             private String filePath;
+            
+            /**
+             * Memory-map protobuf files and parse frames in place instead of streaming them through the heap
+             */
+            private boolean memoryMapped = true;
+            
+            /**
+             * Size of each mapped window; files larger than this are walked window by window
+             */
+            private long mapWindowBytes = 256L * 1024 * 1024;
+        }
+        
+        @Data
+        public static class Index {
+            /**
+             * Seek through the <file>.idx offset index when resuming protobuf files, instead of reading past earlier frames
+             */
+            private boolean enabled = true;
+            
+            /**
+             * Frames between index entries when a local index has to be built on first read
+             */
+            private int stride = 1024;
+        }
+        
+        @Data
+        public static class Merge {
+            /**
+             * Replay several Chipmunk files as one stream, merged in timestamp order, instead of the single object-key/file-path
+             */
+            private boolean enabled = false;
+            
+            /**
+             * Files to merge: object keys in the MinIO bucket, or local file paths
+             */
+            private List<String> files = new ArrayList<>();
+            
+            /**
+             * Object key or local path of a manifest listing one file per line; '#' starts a comment
+             */
+            private String manifest;
+            
+            /**
+             * Merge every file under this key prefix (MinIO) or in this directory (local)
+             */
+            private String prefix;
+            
+            /**
+             * Only files ending with this suffix are taken from the prefix, so index sidecars are left out
+             */
+            private String suffix = ".chip";
         }
     }
     
@@ -91,11 +214,140 @@ public class ReplayProperties {
     public static class Checkpoint {
         private boolean enabled = true;
         private int intervalSeconds = 30;
+        
+        /**
+         * Checkpoint interval in milliseconds; overrides interval-seconds when positive, e.g. 250 with the FILE journal
+         */
+        private long intervalMillis = 0;
+        
         private StorageType storageType = StorageType.FILE;
-        private String filePath = "/tmp/replay-checkpoint.json";
+        private String filePath = "/tmp/replay-checkpoint.journal";
+        
+        @NestedConfigurationProperty
+        private Journal journal = new Journal();
+        
+        @NestedConfigurationProperty
+        private Dynamodb dynamodb = new Dynamodb();
         
         public enum StorageType {
             FILE, DYNAMODB
         }
+        
+        @Data
+        public static class Journal {
+            /**
+             * Most time between appending a checkpoint and the fsync that makes it durable; appends in between share it
+             */
+            private long fsyncIntervalMillis = 50;
+            
+            /**
+             * Journal size past which it is rewritten down to its latest checkpoint
+             */
+            private long compactThresholdBytes = 64 * 1024;
+        }
+        
+        @Data
+        public static class Dynamodb {
+            /**
+             * Table keyed by fileIdentifier (partition key) and sessionId (sort key), both strings
+             */
+            private String tableName = "replay-checkpoints";
+            
+            /**
+             * Least time between two writes of one checkpoint item; saves in between are coalesced into the next write
+             */
+            private long writeIntervalMillis = 1000;
+        }
+    }
+    
+    @Data
+    public static class Pacing {
+        /**
+         * How long before an event is due the pacer stops parking and spins (real-time and accelerated modes)
+         */
+        private long spinThresholdMicros = 100;
+    }
+    
+    @Data
+    public static class EventPool {
+        /**
+         * Decode protobuf frames into reused events that are returned once their send completes
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Most idle events kept for reuse; events released beyond this are left to the garbage collector
+         */
+        private int capacity = 8192;
+    }
+    
+    @Data
+    public static class Sessions {
+        /**
+         * Most replay sessions running at once; creating another fails until one finishes
+         */
+        private int maxConcurrent = 16;
+    }
+    
+    @Data
+    public static class VirtualThreads {
+        /**
+         * Run replay loops, S3 prefetch and checkpoint persistence on virtual threads instead of platform threads
+         */
+        private boolean enabled = false;
+    }
+    
+    @Data
+    public static class FlowControl {
+        /**
+         * Bound unacknowledged sends with an adaptive window; when disabled sends are only limited by the producer
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Smallest window the controller will shrink to
+         */
+        private int minInFlight = 16;
+        
+        /**
+         * Largest window the controller will grow to
+         */
+        private int maxInFlight = 100_000;
+        
+        /**
+         * Ack latency above this multiple of the uncongested baseline shrinks the window
+         */
+        private double latencyTolerance = 2.0;
+    }
+    
+    @Data
+    public static class Pipeline {
+        /**
+         * Publish from parallel worker lanes fed by a separate reader stage instead of from the reader thread
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Number of publishing lanes; events are assigned to a lane by Kafka key so per-key order is kept
+         */
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        
+        /**
+         * Events buffered per lane before the reader stage blocks
+         */
+        private int queueCapacity = 1024;
+    }
+    
+    @Data
+    public static class Window {
+        /**
+         * Replay only events at or after this instant (ISO-8601, e.g. 2024-01-01T14:30:00Z); unset replays from the start
+         */
+        private Instant start;
+        
+        /**
+         * Replay only events before this instant; unset replays to the end of the file
+         */
+        private Instant end;
     }
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package org.jaiswarsecurities.replayengine.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.PartitionSkewReport;
 import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.jaiswarsecurities.replayengine.model.ReplaySessionRequest;
+import org.jaiswarsecurities.replayengine.model.ReplaySessionStatus;
+import org.jaiswarsecurities.replayengine.model.ReplayStartRequest;
 import org.jaiswarsecurities.replayengine.service.CheckpointManager;
+import org.jaiswarsecurities.replayengine.service.KafkaPublisher;
 import org.jaiswarsecurities.replayengine.service.ReplayScheduler;
+import org.jaiswarsecurities.replayengine.service.ReplaySession;
+import org.jaiswarsecurities.replayengine.service.ReplaySessionManager;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -20,25 +31,35 @@ public class ReplayController {
     
     private final ReplayScheduler replayScheduler;
     private final CheckpointManager checkpointManager;
+    private final KafkaPublisher kafkaPublisher;
+    private final ReplaySessionManager sessionManager;
+    private final ReplayProperties replayProperties;
     
     /**
-     * Starts the replay process.
+     * Starts the replay process, optionally bounded to a time window given in the body. A bound
+     * missing from the body falls back to the configured window.
      */
     @PostMapping("/start")
-    public ResponseEntity<Map<String, String>> startReplay() {
+    public ResponseEntity<Map<String, String>> startReplay(@RequestBody(required = false) ReplayStartRequest request) {
         try {
             if (replayScheduler.isRunning()) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Replay is already running"));
             }
             
-            CompletableFuture<Void> future = replayScheduler.startReplay();
+            ReplayProperties.Window window = replayProperties.getWindow();
+            Instant start = request != null && request.getStart() != null ? request.getStart() : window.getStart();
+            Instant end = request != null && request.getEnd() != null ? request.getEnd() : window.getEnd();
+            CompletableFuture<Void> future = replayScheduler.startReplay(start, end);
             
             return ResponseEntity.ok(Map.of(
                     "status", "started",
                     "message", "Replay started successfully"
             ));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to start replay: " + e.getMessage()));
@@ -84,6 +105,68 @@ public class ReplayController {
         ));
     }
     
+    /**
+     * Gets how published events are spread over each topic's partitions, to spot skewed keys.
+     */
+    @GetMapping("/partitions")
+    public ResponseEntity<List<PartitionSkewReport>> getPartitionSkew() {
+        return ResponseEntity.ok(kafkaPublisher.getPartitionSkewReports());
+    }
+    
+    /**
+     * Lists the replay sessions, running or finished.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<List<ReplaySessionStatus>> getSessions() {
+        return ResponseEntity.ok(sessionManager.getSessions().stream()
+                .map(ReplaySession::getStatus)
+                .toList());
+    }
+    
+    /**
+     * Creates a replay session and starts it, overriding the configured source, speed, window
+     * or topics with the fields given in the body.
+     */
+    @PutMapping("/sessions/{id}")
+    public ResponseEntity<?> createSession(@PathVariable String id,
+                                           @RequestBody(required = false) ReplaySessionRequest request) {
+        try {
+            ReplaySession session = sessionManager.createSession(id, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(session.getStatus());
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to start replay session: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Gets the progress of a replay session.
+     */
+    @GetMapping("/sessions/{id}")
+    public ResponseEntity<ReplaySessionStatus> getSession(@PathVariable String id) {
+        ReplaySession session = sessionManager.getSession(id);
+        return session != null
+                ? ResponseEntity.ok(session.getStatus())
+                : ResponseEntity.notFound().build();
+    }
+    
+    /**
+     * Stops a replay session if it is running and removes it.
+     */
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<Void> deleteSession(@PathVariable String id) {
+        return sessionManager.deleteSession(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+    
     /**
      * Gets health information about the replay engine.
      */
@@ -1,23 +1,35 @@
 package org.jaiswarsecurities.replayengine.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Represents a parsed event from a Chipmunk file.
  * This is the canonical event format used throughout the IRIS system.
+ *
+ * <p>Events decoded by the pooled protobuf path are mutable views that are reused: they carry
+ * the time as epoch nanos, their id as bytes in buffers they keep, and their payload as
+ * protobuf bytes that are turned into a data map or JSON only if asked for. Such events come
+ * from a {@link ChipmunkEventPool} and go back to it through {@link #recycle()}.
  */
 @Data
-@Builder
 @NoArgsConstructor
-@AllArgsConstructor
 public class ChipmunkEvent {
     
+    private static final int MAX_LONG_DIGITS = 19;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    
     /**
      * Unique identifier for this event
      */
@@ -33,26 +45,348 @@ public class ChipmunkEvent {
      */
     private Instant timestamp;
     
+    /**
+     * Original timestamp in nanoseconds since the epoch, set by the pooled decoder instead of timestamp
+     */
+    private long epochNanos;
+    
     /**
      * Region where the event originated: UK, US, JAPAN, CHINA
      */
     private String region;
     
+    /**
+     * Instrument or symbol the event refers to, if any; extracted at parse time for partitioning
+     */
+    private String instrument;
+    
+    /**
+     * Trading account of a trade event, if any
+     */
+    private String account;
+    
+    /**
+     * Currency pair of an FX event as BASE/QUOTE, if any
+     */
+    private String currencyPair;
+    
+    /**
+     * Correlation identifier linking related events, if any
+     */
+    private String correlationId;
+    
     /**
      * The raw event data as key-value pairs
      */
     private Map<String, Object> data;
     
+    /**
+     * Deferred loader for the data map, used by readers that only parse the routing fields up front
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Supplier<Map<String, Object>> dataLoader;
+    
     /**
      * The serialized JSON representation of the event
      */
     private String jsonPayload;
     
+    /**
+     * Deferred renderer for the JSON representation, used when it may never be needed
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Supplier<String> jsonPayloadLoader;
+    
+    /**
+     * The serialized protobuf payload (TradeEvent, MarketDataEvent or FxRateEvent) as read from a
+     * protobuf Chipmunk file; null for JSON sources
+     */
+    @ToString.Exclude
+    private byte[] payload;
+    
+    /**
+     * Turns the protobuf payload into the data map on first access, for events read by the pooled decoder
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient PayloadDecoder payloadDecoder;
+    
     /**
      * The original line number in the chipmunk file (for debugging/replay tracking)
      */
     private long lineNumber;
     
+    /**
+     * Position of the event in its replay's dispatch order, used to track its acknowledgement
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient long replaySequence;
+    
+    // Flyweight state kept across reuse; none of it is part of the event's value, and none of it
+    // is taken by the builder
+    
+    // Bytes of an id assigned with assignEventId; the String is built from them on demand
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient byte[] eventIdBytes;
+    
+    // Set by ChipmunkEventPool on the events it creates
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    transient PoolSlot poolSlot;
+    
+    @Builder
+    private ChipmunkEvent(String eventId, EventType eventType, Instant timestamp, long epochNanos, String region,
+                          String instrument, String account, String currencyPair, String correlationId,
+                          Map<String, Object> data, Supplier<Map<String, Object>> dataLoader, String jsonPayload,
+                          Supplier<String> jsonPayloadLoader, byte[] payload, PayloadDecoder payloadDecoder,
+                          long lineNumber, long replaySequence) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.timestamp = timestamp;
+        this.epochNanos = epochNanos;
+        this.region = region;
+        this.instrument = instrument;
+        this.account = account;
+        this.currencyPair = currencyPair;
+        this.correlationId = correlationId;
+        this.data = data;
+        this.dataLoader = dataLoader;
+        this.jsonPayload = jsonPayload;
+        this.jsonPayloadLoader = jsonPayloadLoader;
+        this.payload = payload;
+        this.payloadDecoder = payloadDecoder;
+        this.lineNumber = lineNumber;
+        this.replaySequence = replaySequence;
+    }
+    
+    /**
+     * Gets the event id, building the String from the id buffer on first access for pooled events.
+     */
+    public String getEventId() {
+        if (eventId == null && eventIdBytes != null) {
+            eventId = new String(eventIdBytes, StandardCharsets.US_ASCII);
+        }
+        return eventId;
+    }
+    
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+        this.eventIdBytes = null;
+    }
+    
+    /**
+     * Gets the event id as UTF-8 bytes. For pooled events this is the buffer the id was written
+     * into, which is overwritten once the event is recycled.
+     */
+    public byte[] getEventIdBytes() {
+        if (eventIdBytes != null) {
+            return eventIdBytes;
+        }
+        return eventId != null ? eventId.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    /**
+     * Sets the event id to the prefix followed by the ordinal in decimal, written into buffers
+     * the event keeps so that pooled events get ids without allocating.
+     *
+     * @param prefix ASCII bytes the id starts with
+     * @param ordinal Non-negative number that ends the id
+     */
+    public void assignEventId(byte[] prefix, long ordinal) {
+        if (ordinal < 0) {
+            setEventId(new String(prefix, StandardCharsets.US_ASCII) + ordinal);
+            return;
+        }
+        
+        int digits = decimalDigits(ordinal);
+        byte[] bytes = poolSlot != null
+                ? poolSlot.eventIdBuffer(digits, prefix.length + digits)
+                : new byte[prefix.length + digits];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        writeDecimal(bytes, prefix.length, ordinal, digits);
+        
+        eventId = null;
+        eventIdBytes = bytes;
+    }
+    
+    /**
+     * Gets the line number as ASCII decimal bytes. Pooled events reuse their buffers, so the
+     * array is overwritten once the event is recycled.
+     */
+    public byte[] getLineNumberBytes() {
+        if (poolSlot == null || lineNumber < 0) {
+            return Long.toString(lineNumber).getBytes(StandardCharsets.US_ASCII);
+        }
+        
+        int digits = decimalDigits(lineNumber);
+        byte[] bytes = poolSlot.lineNumberBuffer(digits);
+        writeDecimal(bytes, 0, lineNumber, digits);
+        return bytes;
+    }
+    
+    /**
+     * Gets the original timestamp, building it from the epoch nanos on first access for pooled events.
+     */
+    public Instant getTimestamp() {
+        if (timestamp == null && epochNanos != 0) {
+            timestamp = Instant.ofEpochSecond(0, epochNanos);
+        }
+        return timestamp;
+    }
+    
+    /**
+     * Gets the original timestamp in nanoseconds since the epoch.
+     */
+    public long getEpochNanos() {
+        if (timestamp != null) {
+            return timestamp.getEpochSecond() * NANOS_PER_SECOND + timestamp.getNano();
+        }
+        return epochNanos;
+    }
+    
+    public void setEpochNanos(long epochNanos) {
+        this.epochNanos = epochNanos;
+        this.timestamp = null;
+    }
+    
+    /**
+     * Hands the event back to the pool it came from once nothing will read it again. Does nothing
+     * for events that were not taken from a pool.
+     */
+    public void recycle() {
+        if (poolSlot != null) {
+            poolSlot.pool.release(this);
+        }
+    }
+    
+    /**
+     * Clears every value of the event, keeping the buffers it reuses.
+     */
+    void reset() {
+        eventId = null;
+        eventIdBytes = null;
+        eventType = null;
+        timestamp = null;
+        epochNanos = 0;
+        region = null;
+        instrument = null;
+        account = null;
+        currencyPair = null;
+        correlationId = null;
+        data = null;
+        dataLoader = null;
+        jsonPayload = null;
+        jsonPayloadLoader = null;
+        payload = null;
+        payloadDecoder = null;
+        lineNumber = 0;
+    }
+    
+    private static int decimalDigits(long value) {
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+    
+    private static void writeDecimal(byte[] target, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+    
+    /**
+     * Gets the raw event data, materialising it on first access if parsing was deferred.
+     */
+    public Map<String, Object> getData() {
+        if (data == null) {
+            if (dataLoader != null) {
+                data = dataLoader.get();
+                dataLoader = null;
+            } else if (payloadDecoder != null) {
+                data = payloadDecoder.decodeData(this);
+            }
+        }
+        return data;
+    }
+    
+    /**
+     * Gets the JSON representation of the event, rendering it on first access if it was deferred.
+     */
+    public String getJsonPayload() {
+        if (jsonPayload == null) {
+            if (jsonPayloadLoader != null) {
+                jsonPayload = jsonPayloadLoader.get();
+                jsonPayloadLoader = null;
+            } else if (payloadDecoder != null) {
+                jsonPayload = payloadDecoder.toJson(getData());
+            }
+        }
+        return jsonPayload;
+    }
+    
+    /**
+     * Pool membership of a pooled event and the buffers it reuses for its id and line number.
+     */
+    static final class PoolSlot {
+        
+        final ChipmunkEventPool pool;
+        
+        boolean inPool;
+        
+        // One buffer per digit count of the number written into it
+        private final byte[][] eventIdBuffers = new byte[MAX_LONG_DIGITS + 1][];
+        private final byte[][] lineNumberBuffers = new byte[MAX_LONG_DIGITS + 1][];
+        
+        PoolSlot(ChipmunkEventPool pool) {
+            this.pool = pool;
+        }
+        
+        byte[] eventIdBuffer(int digits, int length) {
+            byte[] bytes = eventIdBuffers[digits];
+            if (bytes == null || bytes.length != length) {
+                bytes = new byte[length];
+                eventIdBuffers[digits] = bytes;
+            }
+            return bytes;
+        }
+        
+        byte[] lineNumberBuffer(int digits) {
+            byte[] bytes = lineNumberBuffers[digits];
+            if (bytes == null) {
+                bytes = new byte[digits];
+                lineNumberBuffers[digits] = bytes;
+            }
+            return bytes;
+        }
+    }
+    
+    /**
+     * Builds the data map and JSON of events whose payload was kept as protobuf bytes.
+     */
+    public interface PayloadDecoder {
+        
+        /**
+         * Decodes the event's payload into its data map.
+         */
+        Map<String, Object> decodeData(ChipmunkEvent event);
+        
+        /**
+         * Renders a data map as JSON.
+         */
+        String toJson(Map<String, Object> data);
+    }
+    
     public enum EventType {
         TRADE("trade-events"),
         MARKET_DATA("market-data"),
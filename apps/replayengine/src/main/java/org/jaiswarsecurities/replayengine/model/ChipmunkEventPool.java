@@ -0,0 +1,74 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of reusable ChipmunkEvents for the pooled protobuf decode path.
+ *
+ * <p>The reader takes an event with {@link #acquire()} and decodes a frame into it; whoever
+ * finishes with the event last (normally the send callback) calls {@link ChipmunkEvent#recycle()},
+ * which clears it and puts it back. When the pool is empty a new event is created, and events
+ * released while the pool is full are left to the garbage collector, so the pool never blocks.
+ */
+public class ChipmunkEventPool {
+
+    private final BlockingQueue<ChipmunkEvent> idle;
+    private final LongAdder created = new LongAdder();
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param capacity Most idle events kept for reuse
+     */
+    public ChipmunkEventPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Event pool capacity must be positive: " + capacity);
+        }
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes an idle event, or creates one if none is idle.
+     *
+     * @return A cleared event owned by the caller until it is recycled
+     */
+    public ChipmunkEvent acquire() {
+        ChipmunkEvent event = idle.poll();
+        if (event == null) {
+            event = new ChipmunkEvent();
+            event.poolSlot = new ChipmunkEvent.PoolSlot(this);
+            created.increment();
+        }
+        event.poolSlot.inPool = false;
+        return event;
+    }
+
+    /**
+     * Clears an event and keeps it for reuse if there is room.
+     */
+    void release(ChipmunkEvent event) {
+        // A second recycle of the same event would hand it to two readers at once
+        if (event.poolSlot.inPool) {
+            return;
+        }
+        event.reset();
+        event.poolSlot.inPool = true;
+        idle.offer(event);
+    }
+
+    /**
+     * Gets the number of events created because the pool was empty.
+     */
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * Gets the number of idle events ready for reuse.
+     */
+    public int getAvailable() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,48 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.SortedMap;
+
+/**
+ * How the events published to one topic are spread over its partitions.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionSkewReport {
+
+    /**
+     * The Kafka topic
+     */
+    private String topic;
+
+    /**
+     * Key strategy used for the topic
+     */
+    private String keyStrategy;
+
+    /**
+     * Events acknowledged across all partitions of the topic
+     */
+    private long totalEvents;
+
+    /**
+     * Partitions the topic has, or the number that received events if the producer could not say
+     */
+    private int partitions;
+
+    /**
+     * Events acknowledged per partition, by partition number, including partitions that received none
+     */
+    private SortedMap<Integer, Long> partitionCounts;
+
+    /**
+     * Busiest partition's count divided by the mean over all partitions; 1.0 is perfectly even
+     */
+    private double maxToMeanRatio;
+}
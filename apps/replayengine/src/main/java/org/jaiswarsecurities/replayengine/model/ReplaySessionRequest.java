@@ -0,0 +1,60 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Body of a request creating a replay session.
+ * Omitted fields fall back to the configured replay settings.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplaySessionRequest {
+
+    /**
+     * Object key to replay from the configured MinIO bucket
+     */
+    private String objectKey;
+
+    /**
+     * Local file to replay
+     */
+    private String filePath;
+
+    /**
+     * Object keys or local paths to replay merged in timestamp order
+     */
+    private List<String> files;
+
+    /**
+     * Replay speed mode: real-time, accelerated, burst
+     */
+    private String speedMode;
+
+    /**
+     * Speed multiplier for accelerated mode
+     */
+    private Double speedMultiplier;
+
+    /**
+     * Replay only events at or after this instant
+     */
+    private Instant start;
+
+    /**
+     * Replay only events before this instant
+     */
+    private Instant end;
+
+    /**
+     * Prefix added to every configured topic name, so the session publishes to its own topics
+     */
+    private String topicPrefix;
+}
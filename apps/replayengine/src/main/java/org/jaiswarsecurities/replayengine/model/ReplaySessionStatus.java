@@ -0,0 +1,68 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of one replay session's progress.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplaySessionStatus {
+
+    /**
+     * The session id
+     */
+    private String id;
+
+    /**
+     * Lifecycle state: CREATED, RUNNING, COMPLETED, STOPPED or FAILED
+     */
+    private String state;
+
+    /**
+     * Identifier of the replayed source, as used for its checkpoint
+     */
+    private String source;
+
+    /**
+     * Replay speed mode
+     */
+    private String speedMode;
+
+    /**
+     * Number of events published so far
+     */
+    private long eventsProcessed;
+
+    /**
+     * Number of events that failed to publish
+     */
+    private long eventsFailed;
+
+    /**
+     * Events sent and awaiting acknowledgement
+     */
+    private int inFlight;
+
+    /**
+     * When the session started
+     */
+    private Instant startedAt;
+
+    /**
+     * When the session completed, stopped or failed
+     */
+    private Instant finishedAt;
+
+    /**
+     * Why the session failed, if it did
+     */
+    private String error;
+}
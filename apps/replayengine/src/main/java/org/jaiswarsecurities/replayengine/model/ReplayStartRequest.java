@@ -0,0 +1,30 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Optional body of a replay start request.
+ * Each bound it gives replaces that bound of the configured replay window; an omitted bound
+ * keeps the configured one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayStartRequest {
+    
+    /**
+     * Replay only events at or after this instant
+     */
+    private Instant start;
+    
+    /**
+     * Replay only events before this instant
+     */
+    private Instant end;
+}
@@ -0,0 +1,163 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the resume position of a replay: the position just after the last event that was
+ * acknowledged along with every event dispatched before it.
+ *
+ * <p>Each dispatched event takes the next sequence number and a slot in a ring holding its
+ * position, i.e. where a replay resumes once that event is safely in Kafka. Acks complete out of
+ * order across partitions; the watermark only moves over a contiguous run of acknowledged slots
+ * at the head of the ring, so events still in flight are never skipped on resume and events
+ * already acknowledged are never sent again. A failed send freezes the watermark just before it,
+ * since the event is not in Kafka; the slots after it are still freed so the replay carries on.
+ *
+ * <p>One thread dispatches; acks may come from any thread. Dispatching takes no lock unless the
+ * ring is full, in which case it waits for the head to be acknowledged. Completions take a short
+ * lock to fold the head of the ring into the watermark.
+ */
+public class AckWatermark {
+
+    private static final byte PENDING = 0;
+    private static final byte ACKNOWLEDGED = 1;
+    private static final byte FAILED = 2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    // Written by the dispatching thread before the send, read under the lock after its completion
+    private final long[] positions;
+    // Only accessed under the lock
+    private final byte[] states;
+    private final int mask;
+
+    // Next sequence number; written only by the dispatching thread
+    private long next;
+    // Lowest sequence number not yet folded into the watermark
+    private volatile long head;
+    private volatile long position;
+    private volatile boolean frozen;
+
+    /**
+     * Creates a watermark.
+     *
+     * @param capacity Most events dispatched but not yet folded in, rounded up to a power of two;
+     *                 should be at least the number of events that can be in flight
+     * @param initialPosition Position the replay starts from, e.g. the one in its checkpoint
+     */
+    public AckWatermark(int capacity, long initialPosition) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Watermark capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        this.positions = new long[size];
+        this.states = new byte[size];
+        this.mask = size - 1;
+        this.position = initialPosition;
+    }
+
+    /**
+     * Registers the next dispatched event, waiting while the ring is full.
+     *
+     * @param resumePosition Where the replay resumes once this event and all before it are
+     *                       acknowledged; must not decrease from one event to the next
+     * @return The sequence number to acknowledge or fail the event with
+     * @throws InterruptedException if the thread is interrupted while waiting for a free slot
+     */
+    public long track(long resumePosition) throws InterruptedException {
+        long sequence = next;
+        if (sequence - head > mask) {
+            awaitSlot(sequence);
+        }
+        int slot = (int) sequence & mask;
+        positions[slot] = resumePosition;
+        next = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Marks an event as acknowledged by Kafka.
+     */
+    public void acknowledge(long sequence) {
+        complete(sequence, ACKNOWLEDGED);
+    }
+
+    /**
+     * Marks an event as failed: it is not in Kafka, so the watermark never moves past it.
+     */
+    public void fail(long sequence) {
+        complete(sequence, FAILED);
+    }
+
+    /**
+     * Gets the position just after the last event acknowledged with all events before it.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Whether a failed send has stopped the watermark for the rest of the replay.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Gets the number of events dispatched but not yet folded into the watermark.
+     */
+    public long getPending() {
+        return Math.max(0, next - head);
+    }
+
+    private void complete(long sequence, byte state) {
+        lock.lock();
+        try {
+            if (sequence < head) {
+                return;
+            }
+            states[(int) sequence & mask] = state;
+
+            long current = head;
+            long advanced = current;
+            boolean failed = frozen;
+            long acknowledgedPosition = position;
+            while (true) {
+                int slot = (int) advanced & mask;
+                byte slotState = states[slot];
+                if (slotState == PENDING) {
+                    break;
+                }
+                if (slotState == FAILED) {
+                    failed = true;
+                } else if (!failed) {
+                    acknowledgedPosition = positions[slot];
+                }
+                states[slot] = PENDING;
+                advanced++;
+            }
+
+            if (advanced != current) {
+                position = acknowledgedPosition;
+                frozen = failed;
+                head = advanced;
+                slotFreed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSlot(long sequence) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (sequence - head > mask) {
+                slotFreed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
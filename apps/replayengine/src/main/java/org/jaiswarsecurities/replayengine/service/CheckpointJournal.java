@@ -0,0 +1,443 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the checkpoints of one replay, used by the FILE checkpoint storage.
+ *
+ * <p>The file starts with a magic number, followed by one record per checkpoint: its length, the
+ * CRC32C of its payload, and the payload, a compact binary encoding of the checkpoint. Earlier
+ * records are never rewritten in place, so a crash part way through a write tears at most the
+ * last record, and recovery takes the last record whose length and CRC check out.
+ *
+ * <p>Appends only reach the page cache. A shared sync thread forces each journal at most once per
+ * fsync interval, so every checkpoint appended in between shares one fsync (group commit) and the
+ * replay thread never waits on the disk. The future returned by {@link #append} completes once its
+ * record is durable. Once the journal outgrows the compaction threshold, its latest record is
+ * written to a fresh file that is fsynced and atomically moved over the journal.
+ */
+@Slf4j
+public class CheckpointJournal implements Closeable {
+
+    static final int MAGIC = 0x52434A31; // "RCJ1"
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int FRAME_HEADER_BYTES = 2 * Integer.BYTES;
+    // Checkpoints are a few hundred bytes; anything larger is a torn or corrupt length
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    // One thread forces every journal in the process; fsyncs of one disk do not run in parallel anyway
+    private static final ScheduledExecutorService SYNCER = Executors.newSingleThreadScheduledExecutor(
+            ReplayThreads.factory("checkpoint-journal-sync-", false));
+
+    private final Path path;
+    private final Path compactionPath;
+    private final long fsyncIntervalMillis;
+    private final long compactThresholdBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by the lock
+    private FileChannel channel;
+    private byte[] lastRecord;
+    private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private boolean syncScheduled;
+
+    /**
+     * Creates a journal; the file is opened, and a torn tail cut off, on the first append.
+     *
+     * @param path Journal file
+     * @param fsyncIntervalMillis Most time between an append and the fsync that makes it durable
+     * @param compactThresholdBytes Journal size past which it is compacted to its latest record
+     */
+    public CheckpointJournal(Path path, long fsyncIntervalMillis, long compactThresholdBytes) {
+        this.path = path;
+        this.compactionPath = path.resolveSibling(path.getFileName() + ".compact");
+        this.fsyncIntervalMillis = Math.max(0, fsyncIntervalMillis);
+        this.compactThresholdBytes = compactThresholdBytes;
+    }
+
+    /**
+     * Appends a checkpoint.
+     *
+     * @return A future that completes once the checkpoint has been fsynced
+     * @throws IOException if the journal cannot be opened or written
+     */
+    public CompletableFuture<Void> append(ReplayCheckpoint checkpoint) throws IOException {
+        byte[] payload = encode(checkpoint);
+        ByteBuffer frame = frame(payload);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        lock.lock();
+        try {
+            FileChannel journal = openForAppend();
+            writeFully(journal, frame);
+            lastRecord = payload;
+            unsynced.add(durable);
+            if (!syncScheduled) {
+                syncScheduled = true;
+                SYNCER.schedule(this::sync, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return durable;
+    }
+
+    /**
+     * Deletes the journal. Appends after this start a new one.
+     */
+    public void delete() throws IOException {
+        lock.lock();
+        try {
+            closeChannel(false);
+            lastRecord = null;
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(compactionPath);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces and closes the journal. Appends after this reopen it.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closeChannel(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the last intact checkpoint of a journal.
+     *
+     * @return The checkpoint, or null if the file does not exist or holds no intact record
+     * @throws IOException if the file is not a journal or cannot be read
+     */
+    public static ReplayCheckpoint recover(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Scan scan = scan(ByteBuffer.wrap(Files.readAllBytes(path)));
+        if (!scan.journal()) {
+            throw new IOException("Not a checkpoint journal: " + path);
+        }
+        return scan.lastRecord() != null ? decode(scan.lastRecord()) : null;
+    }
+
+    /**
+     * Whether a file starts like a journal, rather than e.g. a JSON checkpoint of an earlier version.
+     */
+    public static boolean isJournal(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = in.readNBytes(HEADER_BYTES);
+            return header.length == HEADER_BYTES && ByteBuffer.wrap(header).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Forces the records appended since the last sync, completes their futures, and compacts the
+     * journal if it has grown past the threshold. Runs on the sync thread.
+     */
+    private void sync() {
+        List<CompletableFuture<Void>> waiters;
+        FileChannel journal;
+        lock.lock();
+        try {
+            waiters = unsynced;
+            unsynced = new ArrayList<>();
+            syncScheduled = false;
+            journal = channel;
+        } finally {
+            lock.unlock();
+        }
+
+        // Appends carry on while the disk syncs; theirs is the next sync
+        try {
+            if (!tryForce(journal)) {
+                // Closed since, e.g. by compaction or an interrupted write; the file may still hold unforced records
+                forceFile();
+            }
+            waiters.forEach(waiter -> waiter.complete(null));
+        } catch (IOException e) {
+            log.error("Failed to sync checkpoint journal {}", path, e);
+            waiters.forEach(waiter -> waiter.completeExceptionally(e));
+        }
+
+        try {
+            compactIfNeeded();
+        } catch (IOException e) {
+            log.warn("Failed to compact checkpoint journal {}", path, e);
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        lock.lock();
+        try {
+            if (channel == null || lastRecord == null || channel.size() <= compactThresholdBytes) {
+                return;
+            }
+
+            try (FileChannel compacted = FileChannel.open(compactionPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(compacted, header());
+                writeFully(compacted, frame(lastRecord));
+                compacted.force(true);
+            }
+            closeChannel(false);
+            Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            log.debug("Compacted checkpoint journal {}", path);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the journal if needed, cutting off a torn tail so new records follow the last intact one.
+     */
+    private FileChannel openForAppend() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            return channel;
+        }
+        // Not opened yet, or closed by an interrupted write
+        channel = null;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        FileChannel journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // Read the whole journal; compaction keeps it small
+            ByteBuffer contents = ByteBuffer.allocate(Math.toIntExact(journal.size()));
+            while (contents.hasRemaining()) {
+                if (journal.read(contents, contents.position()) < 0) {
+                    break;
+                }
+            }
+            contents.flip();
+
+            Scan scan = scan(contents);
+            long end = scan.end();
+            if (!scan.journal()) {
+                // New, or a JSON checkpoint of an earlier version that has been read already
+                journal.truncate(0);
+                writeFully(journal, header(), 0);
+                end = HEADER_BYTES;
+            } else if (journal.size() > end) {
+                log.warn("Discarding {} bytes of torn records at the end of checkpoint journal {}",
+                        journal.size() - end, path);
+                journal.truncate(end);
+            }
+            journal.position(end);
+            lastRecord = scan.lastRecord();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        channel = journal;
+        return journal;
+    }
+
+    private static boolean tryForce(FileChannel journal) throws IOException {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            journal.force(false);
+            return true;
+        } catch (ClosedChannelException e) {
+            return false;
+        }
+    }
+
+    private void forceFile() throws IOException {
+        try (FileChannel journal = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            journal.force(false);
+        } catch (NoSuchFileException e) {
+            // Deleted; nothing left to make durable
+        }
+    }
+
+    private void closeChannel(boolean force) throws IOException {
+        FileChannel journal = channel;
+        channel = null;
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (force) {
+                journal.force(false);
+            }
+        } finally {
+            journal.close();
+        }
+        // Otherwise the sync thread forces the file and completes the waiters
+        if (force) {
+            unsynced.forEach(waiter -> waiter.complete(null));
+            unsynced = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Makes the rename of a compacted journal durable. Not every platform can open a directory.
+     */
+    private void syncDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Walks the records of a journal.
+     *
+     * @return Whether the contents start like a journal, the offset just after the last intact
+     *         record, and that record's payload
+     */
+    static Scan scan(ByteBuffer contents) {
+        if (contents.remaining() < HEADER_BYTES || contents.getInt(contents.position()) != MAGIC) {
+            return new Scan(false, 0, null);
+        }
+
+        int offset = contents.position() + HEADER_BYTES;
+        byte[] last = null;
+        CRC32C crc = new CRC32C();
+        while (contents.limit() - offset >= FRAME_HEADER_BYTES) {
+            int length = contents.getInt(offset);
+            int expectedCrc = contents.getInt(offset + Integer.BYTES);
+            int payloadOffset = offset + FRAME_HEADER_BYTES;
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > contents.limit() - payloadOffset) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(contents.slice(payloadOffset, length));
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+
+            last = new byte[length];
+            contents.get(payloadOffset, last);
+            offset = payloadOffset + length;
+        }
+        return new Scan(true, offset - contents.position(), last);
+    }
+
+    static ByteBuffer frame(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return frame;
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(0, MAGIC);
+    }
+
+    static byte[] encode(ReplayCheckpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, checkpoint.getFileIdentifier());
+            out.writeLong(checkpoint.getCurrentLineNumber());
+            out.writeLong(checkpoint.getTotalLines());
+            writeInstant(out, checkpoint.getCheckpointTime());
+            out.writeLong(checkpoint.getEventsPublished());
+            out.writeLong(checkpoint.getEventsFailed());
+            out.writeDouble(checkpoint.getProgressPercentage());
+            writeInstant(out, checkpoint.getLastEventTime());
+            writeString(out, checkpoint.getSpeedMode());
+        }
+        return bytes.toByteArray();
+    }
+
+    static ReplayCheckpoint decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return ReplayCheckpoint.builder()
+                    .fileIdentifier(readString(in))
+                    .currentLineNumber(in.readLong())
+                    .totalLines(in.readLong())
+                    .checkpointTime(readInstant(in))
+                    .eventsPublished(in.readLong())
+                    .eventsFailed(in.readLong())
+                    .progressPercentage(in.readDouble())
+                    .lastEventTime(readInstant(in))
+                    .speedMode(readString(in))
+                    .build();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Result of walking a journal's records.
+     */
+    record Scan(boolean journal, long end, byte[] lastRecord) {
+    }
+}
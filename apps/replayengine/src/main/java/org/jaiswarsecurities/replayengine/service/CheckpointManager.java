@@ -1,11 +1,11 @@
 package org.jaiswarsecurities.replayengine.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jaiswarsecurities.replayengine.config.ReplayProperties;
 import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -17,25 +17,63 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages checkpointing for replay operations to enable crash recovery.
- * Supports both file-based and DynamoDB-based checkpoint storage.
+ * Supports both file-based (an append-only {@link CheckpointJournal}) and DynamoDB-based checkpoint storage.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CheckpointManager {
     
+    /** Session the checkpoints of the single-replay API are stored under in DynamoDB. */
+    public static final String DEFAULT_SESSION_ID = "default";
+    
     private final ReplayProperties replayProperties;
     private final ObjectMapper objectMapper;
+    private final DynamoDbCheckpointStore dynamoDbStore;
+    private final String sessionId;
     
     private volatile ReplayCheckpoint currentCheckpoint;
+    private CheckpointJournal journal;
+    
+    @Autowired
+    public CheckpointManager(ReplayProperties replayProperties, ObjectMapper objectMapper,
+                             ObjectProvider<DynamoDbCheckpointStore> dynamoDbStore) {
+        this(replayProperties, objectMapper, dynamoDbStore.getIfAvailable(), DEFAULT_SESSION_ID);
+    }
+    
+    /**
+     * Creates a manager that keeps its checkpoints in a file.
+     */
+    public CheckpointManager(ReplayProperties replayProperties, ObjectMapper objectMapper) {
+        this(replayProperties, objectMapper, null, DEFAULT_SESSION_ID);
+    }
+    
+    /**
+     * Creates a manager for one replay session.
+     * 
+     * @param dynamoDbStore Store used when the storage type is DYNAMODB; may be null otherwise
+     * @param sessionId Session the checkpoints are stored under in DynamoDB
+     */
+    public CheckpointManager(ReplayProperties replayProperties, ObjectMapper objectMapper,
+                             DynamoDbCheckpointStore dynamoDbStore, String sessionId) {
+        if (replayProperties.getCheckpoint().isEnabled()
+                && replayProperties.getCheckpoint().getStorageType() == ReplayProperties.Checkpoint.StorageType.DYNAMODB
+                && dynamoDbStore == null) {
+            throw new IllegalStateException("DynamoDB checkpoint storage requires a DynamoDbCheckpointStore");
+        }
+        this.replayProperties = replayProperties;
+        this.objectMapper = objectMapper;
+        this.dynamoDbStore = dynamoDbStore;
+        this.sessionId = sessionId;
+    }
     
     /**
-     * Saves the current checkpoint asynchronously.
+     * Saves the current checkpoint. The journal fsyncs, and the DynamoDB store writes, on their own
+     * threads, so this returns without waiting for the checkpoint to be durable.
      * 
      * @param checkpoint The checkpoint to save
-     * @return A future that completes when the checkpoint is saved
+     * @return A future that completes when the checkpoint is durable: for FILE storage, once it has been
+     *         fsynced; for DYNAMODB, once the coalesced write covering it has been made
      */
-    @Async
     public CompletableFuture<Void> saveCheckpoint(ReplayCheckpoint checkpoint) {
         if (!replayProperties.getCheckpoint().isEnabled()) {
             log.debug("Checkpointing is disabled, skipping save");
@@ -45,12 +83,13 @@ public class CheckpointManager {
         this.currentCheckpoint = checkpoint;
         
         try {
+            CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
             switch (replayProperties.getCheckpoint().getStorageType()) {
                 case FILE:
-                    saveCheckpointToFile(checkpoint);
+                    durable = saveCheckpointToFile(checkpoint);
                     break;
                 case DYNAMODB:
-                    saveCheckpointToDynamoDB(checkpoint);
+                    durable = saveCheckpointToDynamoDB(checkpoint);
                     break;
                 default:
                     throw new IllegalArgumentException("Unknown checkpoint storage type: " + 
@@ -59,7 +98,7 @@ public class CheckpointManager {
             
             log.debug("Checkpoint saved successfully: line={}, events={}", 
                     checkpoint.getCurrentLineNumber(), checkpoint.getEventsPublished());
-            return CompletableFuture.completedFuture(null);
+            return durable;
             
         } catch (Exception e) {
             log.error("Failed to save checkpoint", e);
@@ -130,14 +169,8 @@ public class CheckpointManager {
         }
     }
     
-    private void saveCheckpointToFile(ReplayCheckpoint checkpoint) throws IOException {
-        Path checkpointPath = Paths.get(replayProperties.getCheckpoint().getFilePath());
-        
-        // Ensure parent directory exists
-        Files.createDirectories(checkpointPath.getParent());
-        
-        String json = objectMapper.writeValueAsString(checkpoint);
-        Files.writeString(checkpointPath, json);
+    private CompletableFuture<Void> saveCheckpointToFile(ReplayCheckpoint checkpoint) throws IOException {
+        return journal().append(checkpoint);
     }
     
     private ReplayCheckpoint loadCheckpointFromFile(String fileIdentifier) throws IOException {
@@ -147,8 +180,16 @@ public class CheckpointManager {
             return null;
         }
         
-        String json = Files.readString(checkpointPath);
-        ReplayCheckpoint checkpoint = objectMapper.readValue(json, ReplayCheckpoint.class);
+        ReplayCheckpoint checkpoint;
+        if (CheckpointJournal.isJournal(checkpointPath)) {
+            checkpoint = CheckpointJournal.recover(checkpointPath);
+            if (checkpoint == null) {
+                return null;
+            }
+        } else {
+            // Written by an earlier version as a single JSON document; the first save replaces it with a journal
+            checkpoint = objectMapper.readValue(Files.readString(checkpointPath), ReplayCheckpoint.class);
+        }
         
         // Verify the checkpoint is for the correct file
         if (!fileIdentifier.equals(checkpoint.getFileIdentifier())) {
@@ -161,26 +202,31 @@ public class CheckpointManager {
     }
     
     private void deleteCheckpointFile(String fileIdentifier) throws IOException {
-        Path checkpointPath = Paths.get(replayProperties.getCheckpoint().getFilePath());
-        Files.deleteIfExists(checkpointPath);
+        journal().delete();
+    }
+    
+    /**
+     * Gets the journal at the configured file path, created on first use.
+     */
+    private synchronized CheckpointJournal journal() {
+        if (journal == null) {
+            ReplayProperties.Checkpoint config = replayProperties.getCheckpoint();
+            journal = new CheckpointJournal(Paths.get(config.getFilePath()),
+                    config.getJournal().getFsyncIntervalMillis(), config.getJournal().getCompactThresholdBytes());
+        }
+        return journal;
     }
     
-    private void saveCheckpointToDynamoDB(ReplayCheckpoint checkpoint) {
-        // TODO: Implement DynamoDB checkpoint storage
-        // This would use the DynamoDB client from awsconfig to store checkpoints
-        // in a table with the file identifier as the partition key
-        log.warn("DynamoDB checkpoint storage not yet implemented");
-        throw new UnsupportedOperationException("DynamoDB checkpoint storage not yet implemented");
+    private CompletableFuture<Void> saveCheckpointToDynamoDB(ReplayCheckpoint checkpoint) {
+        // Coalesced: the store writes the latest checkpoint of each session once per write interval
+        return dynamoDbStore.save(sessionId, checkpoint);
     }
     
-    private ReplayCheckpoint loadCheckpointFromDynamoDB(String fileIdentifier) {
-        // TODO: Implement DynamoDB checkpoint loading
-        log.warn("DynamoDB checkpoint loading not yet implemented");
-        return null;
+    private ReplayCheckpoint loadCheckpointFromDynamoDB(String fileIdentifier) throws IOException {
+        return dynamoDbStore.load(fileIdentifier, sessionId);
     }
     
     private void deleteCheckpointFromDynamoDB(String fileIdentifier) {
-        // TODO: Implement DynamoDB checkpoint deletion
-        log.warn("DynamoDB checkpoint deletion not yet implemented");
+        dynamoDbStore.delete(fileIdentifier, sessionId);
     }
 }
\ No newline at end of file
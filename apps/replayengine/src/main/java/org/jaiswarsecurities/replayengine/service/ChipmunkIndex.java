@@ -0,0 +1,311 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Sparse offset index over the frames of a binary Chipmunk file, kept as a sidecar next to
+ * the data ({@code <file>.idx}). Every {@code stride}-th frame is recorded as (ordinal,
+ * timestamp, byte offset), so a reader can jump to within one stride of any event and only
+ * walk the frames after that point instead of re-reading the file from the start.
+ *
+ * <p>Layout, big-endian: the magic {@code "CIDX"}, int version, int stride, long size of the
+ * indexed file, int entry count, then for each entry long ordinal, long timestamp (epoch
+ * millis) and long offset of the frame's length prefix. Ordinals count frames from zero.
+ * The chipmunk-generator writes the same layout when it uploads a file.
+ */
+@Slf4j
+public final class ChipmunkIndex {
+
+    /**
+     * Suffix appended to the data file name or object key to locate its index
+     */
+    public static final String SIDECAR_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 1;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final int stride;
+    private final long dataSize;
+    private final long[] ordinals;
+    private final long[] timestamps;
+    private final long[] offsets;
+
+    /**
+     * One indexed frame.
+     *
+     * @param ordinal Zero-based position of the frame in the file
+     * @param timestamp Event timestamp of the frame in epoch millis
+     * @param offset Byte offset of the frame's length prefix
+     */
+    public record Entry(long ordinal, long timestamp, long offset) {
+
+        /**
+         * The start of the file, used when no indexed frame precedes the target
+         */
+        public static final Entry START = new Entry(0, Long.MIN_VALUE, 0);
+    }
+
+    private ChipmunkIndex(int stride, long dataSize, long[] ordinals, long[] timestamps, long[] offsets) {
+        this.stride = stride;
+        this.dataSize = dataSize;
+        this.ordinals = ordinals;
+        this.timestamps = timestamps;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Gets the sidecar path of a local Chipmunk file.
+     */
+    public static Path sidecarPath(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Loads the sidecar of a local file, building and persisting it if it is missing or stale.
+     * Failing to persist the sidecar (e.g. a read-only directory) is not fatal; the index
+     * is still returned for this read.
+     *
+     * @param dataFile The Chipmunk file
+     * @param stride Frames between index entries when the index has to be built
+     * @return The index for the file
+     * @throws IOException if the data file cannot be read
+     */
+    public static ChipmunkIndex loadOrBuild(Path dataFile, int stride) throws IOException {
+        Path sidecar = sidecarPath(dataFile);
+        long dataSize = Files.size(dataFile);
+
+        if (Files.exists(sidecar)) {
+            try (InputStream input = Files.newInputStream(sidecar)) {
+                ChipmunkIndex index = read(input);
+                if (index.dataSize == dataSize) {
+                    return index;
+                }
+                log.info("Index {} covers {} bytes but the file has {}, rebuilding", sidecar, index.dataSize, dataSize);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable index {}, rebuilding", sidecar, e);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        ChipmunkIndex index = build(dataFile, stride);
+        log.info("Built index for {}: {} entries every {} frames in {} ms",
+                dataFile, index.size(), stride, (System.nanoTime() - startTime) / 1_000_000);
+
+        Path tempFile = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                index.write(output);
+            }
+            Files.move(tempFile, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not persist index {}, it will be rebuilt on the next seek", sidecar, e);
+            Files.deleteIfExists(tempFile);
+        }
+
+        return index;
+    }
+
+    /**
+     * Builds an index by walking the frame headers of a local file. Only the frames that get
+     * an entry are decoded (for their timestamp); all others are skipped by length.
+     * A frame that cannot be decoded defers its entry to the next decodable frame.
+     *
+     * @param dataFile The Chipmunk file
+     * @param stride Frames between index entries
+     * @return The built index
+     * @throws IOException if the file cannot be read
+     */
+    public static ChipmunkIndex build(Path dataFile, int stride) throws IOException {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("Index stride must be positive: " + stride);
+        }
+
+        long dataSize = Files.size(dataFile);
+        int capacity = 16;
+        long[] ordinals = new long[capacity];
+        long[] timestamps = new long[capacity];
+        long[] offsets = new long[capacity];
+        int count = 0;
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(dataFile), READ_BUFFER_SIZE))) {
+            long offset = 0;
+            long nextIndexedOrdinal = 0;
+
+            for (long ordinal = 0; ; ordinal++) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || offset + ChipmunkRecordDecoder.FRAME_HEADER_BYTES + length > dataSize) {
+                    log.warn("Truncated or corrupt frame at offset {} of {}, indexing stops here", offset, dataFile);
+                    break;
+                }
+
+                if (ordinal >= nextIndexedOrdinal) {
+                    byte[] frame = input.readNBytes(length);
+                    try {
+                        long timestamp = ChipmunkRecord.parseFrom(frame).getTimestamp();
+                        if (count == capacity) {
+                            capacity *= 2;
+                            ordinals = Arrays.copyOf(ordinals, capacity);
+                            timestamps = Arrays.copyOf(timestamps, capacity);
+                            offsets = Arrays.copyOf(offsets, capacity);
+                        }
+                        ordinals[count] = ordinal;
+                        timestamps[count] = timestamp;
+                        offsets[count] = offset;
+                        count++;
+                        nextIndexedOrdinal = (ordinal / stride + 1) * stride;
+                    } catch (InvalidProtocolBufferException e) {
+                        log.debug("Frame {} of {} cannot be decoded, indexing the next one instead", ordinal, dataFile);
+                    }
+                } else {
+                    input.skipNBytes(length);
+                }
+
+                offset += ChipmunkRecordDecoder.FRAME_HEADER_BYTES + length;
+            }
+        }
+
+        return new ChipmunkIndex(stride, dataSize,
+                Arrays.copyOf(ordinals, count), Arrays.copyOf(timestamps, count), Arrays.copyOf(offsets, count));
+    }
+
+    /**
+     * Reads an index in the sidecar layout.
+     *
+     * @param input Stream positioned at the start of the index
+     * @return The index
+     * @throws IOException if the stream is not a valid index
+     */
+    public static ChipmunkIndex read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input, READ_BUFFER_SIZE));
+
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a Chipmunk index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Chipmunk index version: " + version);
+        }
+
+        int stride = data.readInt();
+        long dataSize = data.readLong();
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt Chipmunk index: negative entry count");
+        }
+
+        long[] ordinals = new long[count];
+        long[] timestamps = new long[count];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = data.readLong();
+            timestamps[i] = data.readLong();
+            offsets[i] = data.readLong();
+        }
+
+        return new ChipmunkIndex(stride, dataSize, ordinals, timestamps, offsets);
+    }
+
+    /**
+     * Writes the index in the sidecar layout.
+     */
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(stride);
+        data.writeLong(dataSize);
+        data.writeInt(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            data.writeLong(ordinals[i]);
+            data.writeLong(timestamps[i]);
+            data.writeLong(offsets[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Finds the last indexed frame at or before the given ordinal.
+     *
+     * @param ordinal Zero-based position of the target frame
+     * @return The closest preceding entry, or {@link Entry#START} if there is none
+     */
+    public Entry floorByOrdinal(long ordinal) {
+        int i = Arrays.binarySearch(ordinals, ordinal);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i < 0 ? Entry.START : entry(i);
+    }
+
+    /**
+     * Finds the last indexed frame strictly before the given time. Every frame between that
+     * entry and the first frame at or after the time lies within one stride, provided the file
+     * is in timestamp order as the chipmunk-generator writes it.
+     *
+     * @param timestamp Target time in epoch millis
+     * @return The closest preceding entry, or {@link Entry#START} if there is none
+     */
+    public Entry floorByTimestamp(long timestamp) {
+        // Entries with equal timestamps may have earlier frames sharing the timestamp, so search strictly below it
+        int low = 0;
+        int high = timestamps.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? Entry.START : entry(found);
+    }
+
+    /**
+     * Gets the number of frames between entries.
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Gets the size in bytes of the file this index was built for.
+     */
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    /**
+     * Gets the number of entries.
+     */
+    public int size() {
+        return ordinals.length;
+    }
+
+    private Entry entry(int i) {
+        return new Entry(ordinals[i], timestamps[i], offsets[i]);
+    }
+}
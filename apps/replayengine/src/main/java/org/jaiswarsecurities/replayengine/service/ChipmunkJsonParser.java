@@ -0,0 +1,203 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Parses JSON Chipmunk lines into ChipmunkEvents with a single streaming pass.
+ * Only the routing fields (timestamp, region, the partitioning keys and the keys used for
+ * type detection) are pulled out of the token stream; nested values are skipped without being built. The raw
+ * line is kept as the payload and the data map is only materialised if someone calls
+ * {@link ChipmunkEvent#getData()}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChipmunkJsonParser {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    /**
+     * Placeholder for timestamp values that are neither strings nor numbers
+     */
+    private static final Object UNSUPPORTED_VALUE = new Object();
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Parses a line from the Chipmunk file into a ChipmunkEvent.
+     * Expected format: JSON objects, one per line.
+     *
+     * @param line The raw JSON line
+     * @param lineNumber The line number in the file
+     * @return The parsed event, or null if the line is not a valid JSON object
+     */
+    public ChipmunkEvent parse(String line, long lineNumber) {
+        return parse(line, lineNumber, EventIdNamespace.UNNAMED);
+    }
+
+    /**
+     * Parses a line from the Chipmunk file into a ChipmunkEvent whose id is derived from the
+     * source and line number, so replays of the file give the event the same id.
+     *
+     * @param line The raw JSON line
+     * @param lineNumber The line number in the file
+     * @param namespace Namespace of the file the line came from
+     * @return The parsed event, or null if the line is not a valid JSON object
+     */
+    public ChipmunkEvent parse(String line, long lineNumber, EventIdNamespace namespace) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            boolean hasTradeId = false;
+            boolean hasSymbol = false;
+            boolean hasPrice = false;
+            boolean hasCurrency = false;
+            Object timestamp = null;
+            Object time = null;
+            Object eventTime = null;
+            String region = null;
+            String symbol = null;
+            String instrument = null;
+            String account = null;
+            String currencyPair = null;
+            String baseCurrency = null;
+            String targetCurrency = null;
+            String correlationId = null;
+
+            // Later duplicates overwrite earlier ones, as they would in a Map
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (fieldName) {
+                    case "trade_id", "tradeId" -> hasTradeId = true;
+                    case "symbol" -> {
+                        hasSymbol = true;
+                        symbol = readString(parser, value);
+                    }
+                    case "instrument" -> instrument = readString(parser, value);
+                    case "price" -> hasPrice = true;
+                    case "currency_pair" -> {
+                        hasCurrency = true;
+                        currencyPair = readString(parser, value);
+                    }
+                    case "base_currency" -> {
+                        hasCurrency = true;
+                        baseCurrency = readString(parser, value);
+                    }
+                    case "target_currency" -> targetCurrency = readString(parser, value);
+                    case "account", "account_id" -> account = readString(parser, value);
+                    case "correlation_id", "correlationId" -> correlationId = readString(parser, value);
+                    case "timestamp" -> timestamp = readTimestampValue(parser, value);
+                    case "time" -> time = readTimestampValue(parser, value);
+                    case "event_time" -> eventTime = readTimestampValue(parser, value);
+                    case "region" -> region = readString(parser, value);
+                    default -> {
+                        // Not a routing field
+                    }
+                }
+
+                parser.skipChildren();
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unterminated JSON object");
+            }
+
+            Object timestampValue = timestamp != null ? timestamp : time != null ? time : eventTime;
+            if (currencyPair == null && baseCurrency != null && targetCurrency != null) {
+                currencyPair = baseCurrency + "/" + targetCurrency;
+            }
+
+            return ChipmunkEvent.builder()
+                    .eventId(namespace.eventId(lineNumber))
+                    .eventType(determineEventType(hasTradeId, hasSymbol, hasPrice, hasCurrency))
+                    .timestamp(extractTimestamp(timestampValue))
+                    .region(region != null ? region : "UNKNOWN")
+                    .instrument(instrument != null ? instrument : symbol)
+                    .account(account)
+                    .currencyPair(currencyPair)
+                    .correlationId(correlationId)
+                    .dataLoader(() -> readData(line))
+                    .jsonPayload(line)
+                    .lineNumber(lineNumber)
+                    .build();
+
+        } catch (Exception e) {
+            log.warn("Failed to parse line {}: {}", lineNumber, line, e);
+            return null;  // Skip invalid lines
+        }
+    }
+
+    private Map<String, Object> readData(String line) {
+        try {
+            return objectMapper.readValue(line, MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to materialise event data", e);
+        }
+    }
+
+    private String readString(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    private Object readTimestampValue(JsonParser parser, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_NULL -> null;
+            default -> UNSUPPORTED_VALUE;
+        };
+    }
+
+    private ChipmunkEvent.EventType determineEventType(boolean hasTradeId, boolean hasSymbol,
+                                                        boolean hasPrice, boolean hasCurrency) {
+        // Simple heuristic based on field names - in real implementation,
+        // this would be based on the actual Chipmunk file format specification
+        if (hasTradeId) {
+            return ChipmunkEvent.EventType.TRADE;
+        } else if (hasSymbol && hasPrice) {
+            return ChipmunkEvent.EventType.MARKET_DATA;
+        } else if (hasCurrency) {
+            return ChipmunkEvent.EventType.FX_RATE;
+        } else {
+            // Default to trade if we can't determine
+            return ChipmunkEvent.EventType.TRADE;
+        }
+    }
+
+    private Instant extractTimestamp(Object timestamp) {
+        if (timestamp instanceof String) {
+            try {
+                return Instant.parse((String) timestamp);
+            } catch (Exception e) {
+                // If parsing fails, try as epoch millis
+                try {
+                    return Instant.ofEpochMilli(Long.parseLong((String) timestamp));
+                } catch (Exception e2) {
+                    log.debug("Could not parse timestamp: {}", timestamp);
+                    return Instant.now();
+                }
+            }
+        } else if (timestamp instanceof Number) {
+            return Instant.ofEpochMilli(((Number) timestamp).longValue());
+        } else {
+            return Instant.now();
+        }
+    }
+}
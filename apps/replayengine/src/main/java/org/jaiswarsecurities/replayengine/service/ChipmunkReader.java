@@ -3,6 +3,7 @@ package org.jaiswarsecurities.replayengine.service;
 import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.stream.Stream;
 
 /**
@@ -20,6 +21,54 @@ public interface ChipmunkReader {
      */
     Stream<ChipmunkEvent> readEvents() throws IOException;
     
+    /**
+     * Opens a stream of events starting after the first {@code ordinal} events, e.g. to resume
+     * from a checkpoint. Implementations with an offset index jump straight to the nearest
+     * indexed position; the default implementation reads and discards the preceding events.
+     * Readers that resume by line number skip that many lines or frames instead.
+     * 
+     * @param ordinal Number of events to skip from the start of the source
+     * @return A stream of ChipmunkEvent objects beginning at the given ordinal
+     * @throws IOException if there's an error reading the source
+     */
+    default Stream<ChipmunkEvent> readEventsFrom(long ordinal) throws IOException {
+        Stream<ChipmunkEvent> events = readEvents();
+        return ordinal > 0 ? events.skip(ordinal) : events;
+    }
+    
+    /**
+     * Whether {@link #readEventsFrom(long)} skips lines or frames of the file rather than events,
+     * so that resuming from an event's line number continues right after it even when earlier
+     * lines failed to parse. Readers that return true number their events by that line or frame.
+     * 
+     * @return true if the ordinal passed to readEventsFrom is a line number
+     */
+    default boolean resumesByLineNumber() {
+        return false;
+    }
+    
+    /**
+     * Opens a stream of the events whose timestamps fall in [start, end). Chipmunk files are
+     * written in timestamp order, so the stream ends at the first event past the end bound.
+     * Implementations with an offset index seek to the start bound; the default implementation
+     * reads and discards the events before it.
+     * 
+     * @param start Inclusive lower bound, or null to read from the first event
+     * @param end Exclusive upper bound, or null to read to the last event
+     * @return A stream of ChipmunkEvent objects within the window
+     * @throws IOException if there's an error reading the source
+     */
+    default Stream<ChipmunkEvent> readEventsBetween(Instant start, Instant end) throws IOException {
+        Stream<ChipmunkEvent> events = readEvents();
+        if (start != null) {
+            events = events.dropWhile(event -> event.getTimestamp().isBefore(start));
+        }
+        if (end != null) {
+            events = events.takeWhile(event -> event.getTimestamp().isBefore(end));
+        }
+        return events;
+    }
+    
     /**
      * Gets the total number of lines/events in the source (if available).
      * Returns -1 if the count cannot be determined without reading the entire file.
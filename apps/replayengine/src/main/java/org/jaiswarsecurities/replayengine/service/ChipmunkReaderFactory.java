@@ -0,0 +1,194 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Creates readers for replays whose source is not the configured single file: the files of a
+ * merged replay, and the sources of replay sessions.
+ *
+ * <p>The files come from {@code replay.source.merge}: the inline file list, then the manifest,
+ * then everything under the prefix. Each file gets a reader of the configured format that sees
+ * the configured source with its object key or file path swapped for that file, so it keeps its
+ * own prefetching stream, offset index and event id namespace.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChipmunkReaderFactory {
+
+    private final MinIOObjectSource objectSource;
+    private final ReplayProperties replayProperties;
+    private final ChipmunkJsonParser jsonParser;
+    private final ChipmunkRecordDecoder recordDecoder;
+
+    /**
+     * Creates the reader for a replay's settings: a MergingChipmunkReader when merging is
+     * enabled, otherwise a reader of the configured format over the single file. Used for
+     * replay sessions, whose sources differ from the configured one.
+     *
+     * @param properties Settings whose source and event pool the reader uses
+     * @return A new reader
+     */
+    public ChipmunkReader create(ReplayProperties properties) {
+        if (properties.getSource().getMerge().isEnabled()) {
+            return new MergingChipmunkReader(this, properties);
+        }
+        return newReader(properties);
+    }
+
+    /**
+     * Resolves the files to merge for the configured source.
+     *
+     * @return Object keys (MinIO) or file paths (local) of the files to merge
+     * @throws IOException if the manifest cannot be read or the prefix cannot be listed
+     */
+    public List<String> listFiles() throws IOException {
+        return listFiles(replayProperties);
+    }
+
+    /**
+     * Resolves the files to merge. Duplicates are dropped, keeping the first occurrence, and
+     * the resulting order breaks ties between events with the same timestamp.
+     *
+     * @param properties Settings holding the source to merge
+     * @return Object keys (MinIO) or file paths (local) of the files to merge
+     * @throws IOException if the manifest cannot be read or the prefix cannot be listed
+     */
+    public List<String> listFiles(ReplayProperties properties) throws IOException {
+        ReplayProperties.Source source = properties.getSource();
+        ReplayProperties.Source.Merge merge = source.getMerge();
+        Set<String> files = new LinkedHashSet<>(merge.getFiles());
+
+        if (merge.getManifest() != null && !merge.getManifest().isEmpty()) {
+            files.addAll(readManifest(source, merge.getManifest()));
+        }
+        if (merge.getPrefix() != null && !merge.getPrefix().isEmpty()) {
+            files.addAll(listPrefix(source, merge.getPrefix(), merge.getSuffix()));
+        }
+
+        if (files.isEmpty()) {
+            throw new IOException("Merged replay has no files: set replay.source.merge.files, manifest or prefix");
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Creates a reader for one file of the configured merged replay.
+     *
+     * @param location Object key (MinIO) or file path (local) of the file
+     * @return A reader of the configured format over that file only
+     */
+    public ChipmunkReader forFile(String location) {
+        return forFile(replayProperties, location);
+    }
+
+    /**
+     * Creates a reader for one file of a merged replay.
+     *
+     * @param properties Settings holding the merged source
+     * @param location Object key (MinIO) or file path (local) of the file
+     * @return A reader of the source's format over that file only
+     */
+    public ChipmunkReader forFile(ReplayProperties properties, String location) {
+        return newReader(propertiesFor(properties, location));
+    }
+
+    private ChipmunkReader newReader(ReplayProperties properties) {
+        if (properties.getSource().getFormat() == ReplayProperties.Source.Format.PROTOBUF) {
+            return new ProtobufChipmunkReader(objectSource, properties, recordDecoder);
+        }
+        if (properties.getSource().getType() == ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            return new LocalFileChipmunkReader(properties, jsonParser);
+        }
+        return new MinIOChipmunkReader(objectSource, properties, jsonParser);
+    }
+
+    /**
+     * Copies the source settings the readers use, pointed at a single file. The readers only
+     * look at the source and the event pool settings, so the rest is left at its defaults.
+     */
+    private ReplayProperties propertiesFor(ReplayProperties properties, String location) {
+        ReplayProperties.Source source = properties.getSource();
+
+        ReplayProperties.Source.Minio minio = new ReplayProperties.Source.Minio();
+        minio.setBucketName(source.getMinio().getBucketName());
+        minio.setObjectKey(location);
+        minio.setPrefetch(source.getMinio().getPrefetch());
+
+        ReplayProperties.Source.Local local = new ReplayProperties.Source.Local();
+        local.setFilePath(location);
+        local.setMemoryMapped(source.getLocal().isMemoryMapped());
+        local.setMapWindowBytes(source.getLocal().getMapWindowBytes());
+
+        ReplayProperties.Source fileSource = new ReplayProperties.Source();
+        fileSource.setType(source.getType());
+        fileSource.setFormat(source.getFormat());
+        fileSource.setIndex(source.getIndex());
+        fileSource.setMinio(minio);
+        fileSource.setLocal(local);
+        // A configured namespace is shared by all files, so qualify it to keep their ids apart
+        if (source.getEventIdNamespace() != null && !source.getEventIdNamespace().isEmpty()) {
+            fileSource.setEventIdNamespace(source.getEventIdNamespace() + "/" + location);
+        }
+
+        ReplayProperties fileProperties = new ReplayProperties();
+        fileProperties.setSource(fileSource);
+        fileProperties.setEventPool(properties.getEventPool());
+        return fileProperties;
+    }
+
+    private List<String> readManifest(ReplayProperties.Source source, String manifest) throws IOException {
+        String content;
+        if (source.getType() == ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            content = Files.readString(Paths.get(manifest), StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = objectSource.readIfExists(source.getMinio().getBucketName(), manifest);
+            if (bytes == null) {
+                throw new IOException("Merge manifest not found: s3://" + source.getMinio().getBucketName() + "/" + manifest);
+            }
+            content = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<String> files = content.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+        log.info("Merge manifest {} lists {} files", manifest, files.size());
+        return files;
+    }
+
+    private List<String> listPrefix(ReplayProperties.Source source, String prefix, String suffix) throws IOException {
+        List<String> files;
+        if (source.getType() == ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            try (Stream<Path> paths = Files.list(Paths.get(prefix))) {
+                files = paths.filter(Files::isRegularFile)
+                        .map(Path::toString)
+                        .filter(path -> path.endsWith(suffix))
+                        .sorted()
+                        .toList();
+            }
+        } else {
+            files = objectSource.listKeys(source.getMinio().getBucketName(), prefix).stream()
+                    .filter(key -> key.endsWith(suffix))
+                    .sorted()
+                    .toList();
+        }
+
+        log.info("Found {} files ending with {} under {}", files.size(), suffix, prefix);
+        return files;
+    }
+}
@@ -0,0 +1,410 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.RequiredArgsConstructor;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.iris.proto.FxRateEvent;
+import org.jaiswarsecurities.iris.proto.MarketDataEvent;
+import org.jaiswarsecurities.iris.proto.TradeEvent;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes binary Chipmunk frames into ChipmunkEvents.
+ * A Chipmunk file is a sequence of frames, each a 4-byte big-endian length prefix
+ * followed by a serialized ChipmunkRecord whose payload is a TradeEvent,
+ * MarketDataEvent or FxRateEvent (see iris.proto).
+ *
+ * <p>{@link #decodeInto} is the pooled path: it reads the record's fields straight from the
+ * frame bytes into a reused event, interning the low-cardinality strings, and leaves the data
+ * map and JSON to be built from the payload bytes only if something asks for them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChipmunkRecordDecoder implements ChipmunkEvent.PayloadDecoder {
+
+    /**
+     * Size of the big-endian length prefix in front of every record
+     */
+    public static final int FRAME_HEADER_BYTES = 4;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final int INTERNED_VALUES = 4096;
+
+    // ChipmunkRecord tags (field number << 3 | wire type)
+    private static final int RECORD_EVENT_TYPE = 1 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int RECORD_TIMESTAMP = 2 << 3 | ProtoWireCursor.WIRETYPE_VARINT;
+    private static final int RECORD_REGION = 3 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int RECORD_CORRELATION_ID = 4 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int RECORD_PAYLOAD = 5 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+
+    // Payload tags of the routing fields
+    private static final int TRADE_INSTRUMENT = 3 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int TRADE_ACCOUNT = 4 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int MARKET_DATA_INSTRUMENT = 1 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int FX_FROM_CURRENCY = 1 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+    private static final int FX_TO_CURRENCY = 2 << 3 | ProtoWireCursor.WIRETYPE_LENGTH_DELIMITED;
+
+    private static final ThreadLocal<ProtoWireCursor> CURSORS = ThreadLocal.withInitial(ProtoWireCursor::new);
+
+    private final ObjectMapper objectMapper;
+
+    private final Utf8Interner interner = new Utf8Interner(INTERNED_VALUES);
+    private final Map<String, Map<String, String>> currencyPairs = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the 4-byte big-endian length prefix of the next frame.
+     *
+     * @param input The stream positioned at the start of a frame
+     * @return The length of the record that follows
+     * @throws IOException if the prefix is truncated or negative
+     */
+    public static int readFrameLength(CodedInputStream input) throws IOException {
+        int length = Integer.reverseBytes(input.readRawLittleEndian32());
+        if (length < 0) {
+            throw new InvalidProtocolBufferException("Negative Chipmunk frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Reads the 4-byte big-endian length prefix of the next frame from a plain stream.
+     *
+     * @param input The stream positioned at the start of a frame
+     * @return The length of the record that follows, or -1 if the stream is at its end
+     * @throws IOException if the prefix is truncated or negative
+     */
+    public static int readFrameLength(InputStream input) throws IOException {
+        int first = input.read();
+        if (first < 0) {
+            return -1;
+        }
+        int second = input.read();
+        int third = input.read();
+        int fourth = input.read();
+        if ((second | third | fourth) < 0) {
+            throw new EOFException("Truncated Chipmunk frame length");
+        }
+        int length = first << 24 | second << 16 | third << 8 | fourth;
+        if (length < 0) {
+            throw new InvalidProtocolBufferException("Negative Chipmunk frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Reads one length-prefixed ChipmunkRecord from the stream.
+     * The record is parsed in place within a pushed limit, so no intermediate copy
+     * of the frame is made. If the record itself is malformed the remainder of the
+     * frame is skipped, leaving the stream positioned at the next frame.
+     *
+     * @param input The stream positioned at the start of a frame
+     * @return The parsed record
+     * @throws InvalidProtocolBufferException if the record is malformed (the frame has been skipped)
+     * @throws IOException if the frame is truncated or the stream fails
+     */
+    public static ChipmunkRecord readRecord(CodedInputStream input) throws IOException {
+        return readRecord(input, readFrameLength(input));
+    }
+
+    /**
+     * Reads the body of a frame whose length prefix has already been read. A malformed record
+     * is skipped to the end of the frame, so only a bad length can leave the stream out of step.
+     *
+     * @param input The stream positioned just after the frame's length prefix
+     * @param length The length read from the prefix
+     * @return The parsed record
+     * @throws InvalidProtocolBufferException if the record is malformed (the frame has been skipped)
+     * @throws IOException if the frame is truncated or the stream fails
+     */
+    public static ChipmunkRecord readRecord(CodedInputStream input, int length) throws IOException {
+        int oldLimit = input.pushLimit(length);
+        try {
+            return ChipmunkRecord.parseFrom(input);
+        } catch (InvalidProtocolBufferException e) {
+            input.skipRawBytes(input.getBytesUntilLimit());
+            throw e;
+        } finally {
+            input.popLimit(oldLimit);
+        }
+    }
+
+    /**
+     * Parses a ChipmunkRecord from a frame body, typically a slice of a memory-mapped file.
+     * Aliasing is enabled so the payload bytes reference the buffer rather than being copied.
+     *
+     * @param frame The serialized record, positioned at its first byte
+     * @return The parsed record
+     * @throws InvalidProtocolBufferException if the record is malformed
+     */
+    public static ChipmunkRecord parseRecord(ByteBuffer frame) throws InvalidProtocolBufferException {
+        CodedInputStream input = CodedInputStream.newInstance(frame);
+        input.enableAliasing(true);
+        return ChipmunkRecord.parser().parseFrom(input);
+    }
+
+    /**
+     * Converts a ChipmunkRecord into a ChipmunkEvent, decoding the typed payload.
+     *
+     * @param record The record read from the file
+     * @param lineNumber The 1-based ordinal of the record within the file
+     * @return The decoded event
+     * @throws InvalidProtocolBufferException if the event type is unknown or the payload cannot be decoded
+     */
+    public ChipmunkEvent decode(ChipmunkRecord record, long lineNumber) throws InvalidProtocolBufferException {
+        return decode(record, lineNumber, EventIdNamespace.UNNAMED);
+    }
+
+    /**
+     * Converts a ChipmunkRecord into a ChipmunkEvent whose id is derived from the source and the
+     * record's ordinal, so replays of the file give the event the same id.
+     *
+     * @param record The record read from the file
+     * @param lineNumber The 1-based ordinal of the record within the file
+     * @param namespace Namespace of the file the record came from
+     * @return The decoded event
+     * @throws InvalidProtocolBufferException if the event type is unknown or the payload cannot be decoded
+     */
+    public ChipmunkEvent decode(ChipmunkRecord record, long lineNumber, EventIdNamespace namespace)
+            throws InvalidProtocolBufferException {
+        ChipmunkEvent.EventType eventType = toEventType(record.getEventType());
+
+        byte[] payload = record.getPayload().toByteArray();
+        Map<String, Object> data = decodePayload(eventType, payload);
+        data.put("region", record.getRegion());
+        if (!record.getCorrelationId().isEmpty()) {
+            data.put("correlationId", record.getCorrelationId());
+        }
+
+        return ChipmunkEvent.builder()
+                .eventId(namespace.eventId(lineNumber))
+                .eventType(eventType)
+                .timestamp(Instant.ofEpochMilli(record.getTimestamp()))
+                .region(record.getRegion().isEmpty() ? "UNKNOWN" : record.getRegion())
+                .instrument(routingField(data, "instrument"))
+                .account(routingField(data, "account"))
+                .currencyPair(currencyPair(data))
+                .correlationId(routingField(data, "correlationId"))
+                .data(data)
+                // Rendered only if something asks for it; protobuf publishing sends the payload bytes instead
+                .jsonPayloadLoader(() -> toJson(data))
+                .payload(payload)
+                .lineNumber(lineNumber)
+                .build();
+    }
+
+    /**
+     * Decodes a frame into a reusable event without building the ChipmunkRecord or the data map.
+     * The payload is still walked field by field, so a malformed payload is rejected here just as
+     * {@link #decode} rejects it; only the payload bytes themselves are copied.
+     *
+     * @param frame The serialized record, positioned at its first byte; its position is not moved, and
+     *              its bytes may be reused once this returns
+     * @param lineNumber The 1-based ordinal of the record within the file
+     * @param namespace Namespace of the file the record came from, for the event id
+     * @param event The event to fill, normally taken from a ChipmunkEventPool
+     * @throws InvalidProtocolBufferException if the record or payload is malformed or the event type is unknown
+     */
+    public void decodeInto(ByteBuffer frame, long lineNumber, EventIdNamespace namespace, ChipmunkEvent event)
+            throws InvalidProtocolBufferException {
+        ProtoWireCursor cursor = CURSORS.get().reset(frame, frame.position(), frame.remaining());
+
+        String eventTypeName = "";
+        long timestampMillis = 0;
+        String region = "";
+        String correlationId = null;
+        int payloadOffset = frame.position();
+        int payloadLength = 0;
+
+        while (cursor.hasRemaining()) {
+            int tag = cursor.readTag();
+            switch (tag) {
+                case RECORD_EVENT_TYPE -> eventTypeName = readInterned(cursor, frame);
+                case RECORD_TIMESTAMP -> timestampMillis = cursor.readVarint();
+                case RECORD_REGION -> region = readInterned(cursor, frame);
+                case RECORD_CORRELATION_ID -> {
+                    String value = cursor.readString();
+                    correlationId = value.isEmpty() ? null : value;
+                }
+                case RECORD_PAYLOAD -> {
+                    cursor.readLengthDelimited();
+                    payloadOffset = cursor.fieldOffset();
+                    payloadLength = cursor.fieldLength();
+                }
+                default -> cursor.skipField(tag);
+            }
+        }
+
+        ChipmunkEvent.EventType eventType = toEventType(eventTypeName);
+        namespace.assignTo(event, lineNumber);
+        event.setEventType(eventType);
+        event.setEpochNanos(timestampMillis * NANOS_PER_MILLI);
+        event.setRegion(region.isEmpty() ? "UNKNOWN" : region);
+        event.setCorrelationId(correlationId);
+        event.setLineNumber(lineNumber);
+        readRoutingFields(cursor.reset(frame, payloadOffset, payloadLength), frame, eventType, event);
+
+        byte[] payload = new byte[payloadLength];
+        frame.get(payloadOffset, payload);
+        event.setPayload(payload);
+        event.setPayloadDecoder(this);
+    }
+
+    @Override
+    public Map<String, Object> decodeData(ChipmunkEvent event) {
+        try {
+            Map<String, Object> data = decodePayload(event.getEventType(), event.getPayload());
+            data.put("region", event.getRegion());
+            if (event.getCorrelationId() != null) {
+                data.put("correlationId", event.getCorrelationId());
+            }
+            return data;
+        } catch (InvalidProtocolBufferException e) {
+            throw new UncheckedIOException("Failed to decode payload of event " + event.getEventId(), e);
+        }
+    }
+
+    @Override
+    public String toJson(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Walks the payload, picking up the fields used for partitioning and checking the rest are well formed.
+     */
+    private void readRoutingFields(ProtoWireCursor cursor, ByteBuffer frame, ChipmunkEvent.EventType eventType,
+                                   ChipmunkEvent event) throws InvalidProtocolBufferException {
+        String fromCurrency = null;
+        String toCurrency = null;
+
+        while (cursor.hasRemaining()) {
+            int tag = cursor.readTag();
+            if (eventType == ChipmunkEvent.EventType.TRADE && tag == TRADE_INSTRUMENT) {
+                event.setInstrument(emptyToNull(readInterned(cursor, frame)));
+            } else if (eventType == ChipmunkEvent.EventType.TRADE && tag == TRADE_ACCOUNT) {
+                event.setAccount(emptyToNull(readInterned(cursor, frame)));
+            } else if (eventType == ChipmunkEvent.EventType.MARKET_DATA && tag == MARKET_DATA_INSTRUMENT) {
+                event.setInstrument(emptyToNull(readInterned(cursor, frame)));
+            } else if (eventType == ChipmunkEvent.EventType.FX_RATE && tag == FX_FROM_CURRENCY) {
+                fromCurrency = emptyToNull(readInterned(cursor, frame));
+            } else if (eventType == ChipmunkEvent.EventType.FX_RATE && tag == FX_TO_CURRENCY) {
+                toCurrency = emptyToNull(readInterned(cursor, frame));
+            } else {
+                cursor.skipField(tag);
+            }
+        }
+
+        if (fromCurrency != null && toCurrency != null) {
+            event.setCurrencyPair(internedCurrencyPair(fromCurrency, toCurrency));
+        }
+    }
+
+    private String readInterned(ProtoWireCursor cursor, ByteBuffer frame) throws InvalidProtocolBufferException {
+        cursor.readLengthDelimited();
+        return interner.intern(frame, cursor.fieldOffset(), cursor.fieldLength());
+    }
+
+    private String internedCurrencyPair(String from, String to) {
+        Map<String, String> pairs = currencyPairs.get(from);
+        if (pairs == null) {
+            pairs = currencyPairs.computeIfAbsent(from, currency -> new ConcurrentHashMap<>());
+        }
+        String pair = pairs.get(to);
+        if (pair == null) {
+            pair = from + "/" + to;
+            pairs.putIfAbsent(to, pair);
+        }
+        return pair;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private String routingField(Map<String, Object> data, String name) {
+        Object value = data.get(name);
+        return value instanceof String text && !text.isEmpty() ? text : null;
+    }
+
+    private String currencyPair(Map<String, Object> data) {
+        String from = routingField(data, "fromCurrency");
+        String to = routingField(data, "toCurrency");
+        return from != null && to != null ? from + "/" + to : null;
+    }
+
+    private ChipmunkEvent.EventType toEventType(String eventType) throws InvalidProtocolBufferException {
+        // The generator writes TRADE, MARKET_DATA and FX
+        return switch (eventType) {
+            case "TRADE" -> ChipmunkEvent.EventType.TRADE;
+            case "MARKET_DATA" -> ChipmunkEvent.EventType.MARKET_DATA;
+            case "FX", "FX_RATE" -> ChipmunkEvent.EventType.FX_RATE;
+            default -> throw new InvalidProtocolBufferException("Unknown Chipmunk event type: " + eventType);
+        };
+    }
+
+    private Map<String, Object> decodePayload(ChipmunkEvent.EventType eventType, byte[] payload)
+            throws InvalidProtocolBufferException {
+        Map<String, Object> data = new LinkedHashMap<>();
+
+        switch (eventType) {
+            case TRADE -> {
+                TradeEvent trade = TradeEvent.parseFrom(payload);
+                data.put("tradeId", trade.getTradeId());
+                data.put("orderId", trade.getOrderId());
+                data.put("instrument", trade.getInstrument());
+                data.put("account", trade.getAccount());
+                data.put("counterparty", trade.getCounterparty());
+                data.put("quantity", trade.getQuantity());
+                data.put("price", trade.getPrice());
+                data.put("side", trade.getSide());
+                data.put("venue", trade.getVenue());
+                data.put("tradeTimestamp", trade.getTradeTimestamp());
+                data.put("status", trade.getStatus());
+                data.put("regulatoryId", trade.getRegulatoryId());
+                data.put("traderId", trade.getTraderId());
+                data.put("strategyTag", trade.getStrategyTag());
+            }
+            case MARKET_DATA -> {
+                MarketDataEvent marketData = MarketDataEvent.parseFrom(payload);
+                data.put("instrument", marketData.getInstrument());
+                data.put("bid", marketData.getBid());
+                data.put("ask", marketData.getAsk());
+                data.put("lastPrice", marketData.getLastPrice());
+                data.put("bidSize", marketData.getBidSize());
+                data.put("askSize", marketData.getAskSize());
+                data.put("timestamp", marketData.getTimestamp());
+                data.put("venue", marketData.getVenue());
+                data.put("sourceFeed", marketData.getSourceFeed());
+            }
+            case FX_RATE -> {
+                FxRateEvent fxRate = FxRateEvent.parseFrom(payload);
+                data.put("fromCurrency", fxRate.getFromCurrency());
+                data.put("toCurrency", fxRate.getToCurrency());
+                data.put("rate", fxRate.getRate());
+                data.put("bid", fxRate.getBid());
+                data.put("ask", fxRate.getAsk());
+                data.put("timestamp", fxRate.getTimestamp());
+                data.put("source", fxRate.getSource());
+            }
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,281 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores replay checkpoints in a DynamoDB table keyed by file identifier (partition key) and
+ * session id (sort key), so the sessions replaying one file keep separate checkpoints.
+ *
+ * <p>Each item carries a version that every write increments. A write is conditional on the
+ * version this node last read or wrote, and on the stored position not being ahead of the new
+ * one. Two engine nodes checkpointing the same session therefore never move it backwards: the
+ * node that is behind fails the condition, gets the stored item back, and drops its write if the
+ * stored position is further on; otherwise it takes the stored version and tries again.
+ *
+ * <p>Saves are coalesced. A save replaces the pending checkpoint of its item, and each item is
+ * written at most once per {@code replay.checkpoint.dynamodb.write-interval-millis}, so bursts of
+ * checkpoints cost one write per item per interval. Loads and deletes settle the pending save first.
+ * A save returns a future that completes when the write covering it has been made, or fails if
+ * that write cannot be made.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "replay.checkpoint.storage-type", havingValue = "dynamodb")
+public class DynamoDbCheckpointStore {
+
+    static final String FILE_IDENTIFIER = "fileIdentifier";
+    static final String SESSION_ID = "sessionId";
+    static final String VERSION = "version";
+    static final String POSITION = "position";
+    static final String CHECKPOINT = "checkpoint";
+    static final String UPDATED_AT = "updatedAt";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ObjectMapper objectMapper;
+    private final String tableName;
+    private final long writeIntervalNanos;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<ItemKey, PendingSave> pending = new ConcurrentHashMap<>();
+    private final Map<ItemKey, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    // Version of each item as this node last read or wrote it; absent if the item is not known to exist
+    private final Map<ItemKey, Long> versions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public DynamoDbCheckpointStore(DynamoDbClient dynamoDbClient, ReplayProperties replayProperties,
+                                   ObjectMapper objectMapper) {
+        ReplayProperties.Checkpoint.Dynamodb config = replayProperties.getCheckpoint().getDynamodb();
+        this.dynamoDbClient = dynamoDbClient;
+        this.objectMapper = objectMapper;
+        this.tableName = config.getTableName();
+        this.writeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getWriteIntervalMillis()));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                ReplayThreads.factory("checkpoint-dynamodb-", replayProperties.getVirtualThreads().isEnabled()));
+    }
+
+    /**
+     * Queues a checkpoint to be written, replacing any not yet written for the same item. Saves
+     * replaced this way share the future of the save that replaced them, since its write covers them.
+     *
+     * @param sessionId Session the checkpoint belongs to
+     * @param checkpoint Checkpoint whose file identifier and position are stored
+     * @return A future that completes once the checkpoint, or a later one of the same item, is written
+     */
+    public CompletableFuture<Void> save(String sessionId, ReplayCheckpoint checkpoint) {
+        ItemKey key = new ItemKey(checkpoint.getFileIdentifier(), sessionId);
+        boolean[] queued = new boolean[1];
+        PendingSave save = pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                queued[0] = true;
+                return new PendingSave(checkpoint, new CompletableFuture<>());
+            }
+            return new PendingSave(checkpoint, existing.written());
+        });
+        if (queued[0]) {
+            Long lastWrite = lastWriteNanos.get(key);
+            long delay = lastWrite == null ? 0 : Math.max(0, lastWrite + writeIntervalNanos - System.nanoTime());
+            flusher.schedule(() -> flush(key), delay, TimeUnit.NANOSECONDS);
+        }
+        return save.written();
+    }
+
+    /**
+     * Reads a checkpoint, writing out a pending save of it first.
+     *
+     * @return The stored checkpoint, or null if there is none
+     * @throws IOException if the stored checkpoint cannot be parsed
+     */
+    public ReplayCheckpoint load(String fileIdentifier, String sessionId) throws IOException {
+        ItemKey key = new ItemKey(fileIdentifier, sessionId);
+        flush(key);
+
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key.toAttributes())
+                .consistentRead(true)
+                .build()).item();
+        if (item == null || item.isEmpty()) {
+            versions.remove(key);
+            return null;
+        }
+
+        versions.put(key, Long.parseLong(item.get(VERSION).n()));
+        return objectMapper.readValue(item.get(CHECKPOINT).s(), ReplayCheckpoint.class);
+    }
+
+    /**
+     * Deletes a checkpoint along with any pending save of it. The delete is conditional on the
+     * version this node knows, so an item another node has moved on since is kept.
+     */
+    public void delete(String fileIdentifier, String sessionId) {
+        ItemKey key = new ItemKey(fileIdentifier, sessionId);
+        writeLock.lock();
+        try {
+            PendingSave save = pending.remove(key);
+            if (save != null) {
+                // Superseded by the delete
+                save.written().complete(null);
+            }
+            Long version = versions.remove(key);
+
+            DeleteItemRequest.Builder request = DeleteItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key.toAttributes());
+            if (version != null) {
+                request.conditionExpression("#version = :version")
+                        .expressionAttributeNames(Map.of("#version", VERSION))
+                        .expressionAttributeValues(Map.of(":version", number(version)));
+            }
+            dynamoDbClient.deleteItem(request.build());
+        } catch (ConditionalCheckFailedException e) {
+            log.warn("Checkpoint {} of session {} was updated by another node; not deleting it",
+                    fileIdentifier, sessionId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending checkpoint now, e.g. before shutting down.
+     */
+    public void flushAll() {
+        for (ItemKey key : new ArrayList<>(pending.keySet())) {
+            flush(key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushAll();
+    }
+
+    /**
+     * Writes the pending checkpoint of an item, if any.
+     */
+    private void flush(ItemKey key) {
+        writeLock.lock();
+        PendingSave save = null;
+        try {
+            // Recorded before taking the checkpoint, so a save racing with this write is delayed by a full interval
+            lastWriteNanos.put(key, System.nanoTime());
+            save = pending.remove(key);
+            if (save != null) {
+                write(key, save.checkpoint());
+                save.written().complete(null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write checkpoint {} of session {} to DynamoDB", key.fileIdentifier(), key.sessionId(), e);
+            if (save != null) {
+                save.written().completeExceptionally(e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(ItemKey key, ReplayCheckpoint checkpoint) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(checkpoint);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize checkpoint " + key.fileIdentifier(), e);
+        }
+        long position = checkpoint.getCurrentLineNumber();
+
+        Long expected = versions.get(key);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long version = expected != null ? expected + 1 : 1;
+            Map<String, AttributeValue> item = new HashMap<>(key.toAttributes());
+            item.put(VERSION, number(version));
+            item.put(POSITION, number(position));
+            item.put(CHECKPOINT, AttributeValue.fromS(json));
+            item.put(UPDATED_AT, AttributeValue.fromS(Instant.now().toString()));
+
+            PutItemRequest.Builder request = PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD);
+            if (expected == null) {
+                request.conditionExpression("attribute_not_exists(#version)")
+                        .expressionAttributeNames(Map.of("#version", VERSION));
+            } else {
+                request.conditionExpression("#version = :expected AND #position <= :position")
+                        .expressionAttributeNames(Map.of("#version", VERSION, "#position", POSITION))
+                        .expressionAttributeValues(Map.of(":expected", number(expected), ":position", number(position)));
+            }
+
+            try {
+                dynamoDbClient.putItem(request.build());
+                versions.put(key, version);
+                return;
+            } catch (ConditionalCheckFailedException e) {
+                Map<String, AttributeValue> stored = e.item();
+                if (stored == null || stored.isEmpty()) {
+                    // Deleted since this node last saw it
+                    expected = null;
+                    continue;
+                }
+
+                expected = Long.parseLong(stored.get(VERSION).n());
+                versions.put(key, expected);
+                long storedPosition = Long.parseLong(stored.get(POSITION).n());
+                if (storedPosition > position) {
+                    log.warn("Checkpoint {} of session {} is already at position {}, ahead of {}; keeping it",
+                            key.fileIdentifier(), key.sessionId(), storedPosition, position);
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("Gave up writing checkpoint " + key.fileIdentifier() + " of session "
+                + key.sessionId() + " after " + MAX_ATTEMPTS + " conflicting writes");
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+
+    /**
+     * The checkpoint waiting to be written for an item, and the future of the saves it covers.
+     */
+    private record PendingSave(ReplayCheckpoint checkpoint, CompletableFuture<Void> written) {
+    }
+
+    /**
+     * Primary key of a checkpoint item.
+     */
+    private record ItemKey(String fileIdentifier, String sessionId) {
+        Map<String, AttributeValue> toAttributes() {
+            return Map.of(FILE_IDENTIFIER, AttributeValue.fromS(fileIdentifier),
+                    SESSION_ID, AttributeValue.fromS(sessionId));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Derives event ids from the source file and the event's ordinal within it, so every replay of
+ * a file, including resumed and windowed ones, gives an event the same id and consumers can
+ * dedupe on it.
+ *
+ * <p>An id is the 64-bit FNV-1a hash of the source name in 16 hex digits, a dash, and the
+ * 1-based ordinal in decimal, e.g. {@code 5f0c3b6e9a21d4c7-1048576}. The source name is the
+ * configured {@code replay.source.event-id-namespace}, or else the MinIO bucket/key or local
+ * file path.
+ */
+public final class EventIdNamespace {
+
+    /**
+     * Namespace for events parsed without a known source; ids then depend on the ordinal only
+     */
+    public static final EventIdNamespace UNNAMED = of("");
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int HASH_HEX_DIGITS = 16;
+
+    private final String name;
+    private final String prefix;
+    private final byte[] prefixBytes;
+
+    private EventIdNamespace(String name) {
+        this.name = name;
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+
+        StringBuilder hex = new StringBuilder(HASH_HEX_DIGITS + 1).append(Long.toHexString(hash));
+        while (hex.length() < HASH_HEX_DIGITS) {
+            hex.insert(0, '0');
+        }
+        this.prefix = hex.append('-').toString();
+        this.prefixBytes = prefix.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Creates the namespace for a source name.
+     *
+     * @param name Name identifying the source file
+     * @return The namespace
+     */
+    public static EventIdNamespace of(String name) {
+        return new EventIdNamespace(name);
+    }
+
+    /**
+     * Creates the namespace for the configured source.
+     *
+     * @param source The source configuration
+     * @return The namespace
+     */
+    public static EventIdNamespace forSource(ReplayProperties.Source source) {
+        if (source.getEventIdNamespace() != null && !source.getEventIdNamespace().isEmpty()) {
+            return of(source.getEventIdNamespace());
+        }
+        if (source.getType() == ReplayProperties.Source.SourceType.MINIO) {
+            return of(source.getMinio().getBucketName() + "/" + source.getMinio().getObjectKey());
+        }
+        return of(String.valueOf(source.getLocal().getFilePath()));
+    }
+
+    /**
+     * Builds the id of the event at an ordinal.
+     *
+     * @param ordinal 1-based position of the event in the source
+     * @return The event id
+     */
+    public String eventId(long ordinal) {
+        return prefix + ordinal;
+    }
+
+    /**
+     * Writes the id of the event at an ordinal into the event's own buffers, without allocating
+     * for pooled events.
+     *
+     * @param event The event to label
+     * @param ordinal 1-based position of the event in the source
+     */
+    public void assignTo(ChipmunkEvent event, long ordinal) {
+        event.assignEventId(prefixBytes, ordinal);
+    }
+
+    /**
+     * Gets the source name the ids are derived from.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,158 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of events published to Kafka but not yet acknowledged, and sizes that
+ * bound from the ack latency it observes.
+ *
+ * <p>The replay thread takes a permit before each send and the producer callback returns it,
+ * so a slow broker stalls the reader instead of filling the producer's buffer.memory and
+ * blocking inside send(). Acks are evaluated one round at a time, a round being as many acks as
+ * the current limit. At the end of a round, if latency has stayed within
+ * {@code latencyTolerance} times the uncongested baseline, and the window was full at some
+ * point, the limit grows by about its square root. If latency went above the tolerance, or a
+ * send failed, the limit shrinks by a fifth. The baseline is the lowest latency seen. It
+ * creeps towards each round's minimum, so it can follow a broker that has permanently slowed.
+ */
+public class InFlightWindow {
+
+    private static final double DECREASE_RATIO = 0.8;
+    private static final double SMOOTHING = 0.1;
+    private static final int BASELINE_DRIFT_SHIFT = 4;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+
+    private int limit;
+    private int inFlight;
+
+    private long baselineNanos = Long.MAX_VALUE;
+    private double smoothedNanos;
+    private long roundMinNanos = Long.MAX_VALUE;
+    private int roundAcks;
+    private boolean roundSaturated;
+    private boolean roundFailed;
+
+    /**
+     * Creates a window.
+     *
+     * @param initialLimit Starting number of unacknowledged events allowed
+     * @param minLimit Floor the limit never shrinks below
+     * @param maxLimit Ceiling the limit never grows above
+     * @param latencyTolerance How far above the baseline ack latency may rise before the limit shrinks
+     */
+    public InFlightWindow(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("In-flight limits must satisfy 0 < min <= max: " + minLimit + ", " + maxLimit);
+        }
+        if (!(latencyTolerance >= 1.0)) {
+            throw new IllegalArgumentException("Latency tolerance must be at least 1.0: " + latencyTolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a permit, waiting while the window is full.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (inFlight >= limit) {
+                roundSaturated = true;
+                do {
+                    permitAvailable.await();
+                } while (inFlight >= limit);
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit once the send has been acknowledged or has failed, and feeds the
+     * observation to the controller.
+     *
+     * @param ackLatencyNanos Time from send to callback
+     * @param failed Whether the send failed
+     */
+    public void release(long ackLatencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            if (failed) {
+                roundFailed = true;
+            } else {
+                smoothedNanos = smoothedNanos == 0 ? ackLatencyNanos
+                        : smoothedNanos + SMOOTHING * (ackLatencyNanos - smoothedNanos);
+                roundMinNanos = Math.min(roundMinNanos, ackLatencyNanos);
+            }
+
+            if (++roundAcks >= limit) {
+                adjustLimit();
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of events currently awaiting acknowledgement.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current window limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustLimit() {
+        if (roundMinNanos != Long.MAX_VALUE) {
+            baselineNanos = baselineNanos == Long.MAX_VALUE || roundMinNanos < baselineNanos
+                    ? roundMinNanos
+                    : baselineNanos + ((roundMinNanos - baselineNanos) >> BASELINE_DRIFT_SHIFT);
+        }
+
+        boolean congested = roundFailed
+                || (baselineNanos != Long.MAX_VALUE && smoothedNanos > baselineNanos * latencyTolerance);
+
+        if (congested) {
+            limit = Math.max(minLimit, (int) (limit * DECREASE_RATIO));
+        } else if (roundSaturated) {
+            limit = Math.min(maxLimit, limit + Math.max(1, (int) Math.sqrt(limit)));
+        }
+
+        roundAcks = 0;
+        roundMinNanos = Long.MAX_VALUE;
+        roundSaturated = false;
+        roundFailed = false;
+    }
+}
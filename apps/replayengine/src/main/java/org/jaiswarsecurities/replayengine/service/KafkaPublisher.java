@@ -5,15 +5,25 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Headers;
 import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
 import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.PartitionSkewReport;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 /**
@@ -25,16 +35,52 @@ import java.util.concurrent.Future;
 @RequiredArgsConstructor
 public class KafkaPublisher {
     
-    private final KafkaProducer<String, String> kafkaProducer;
+    /**
+     * Header naming the encoding of the record value: json or protobuf
+     */
+    public static final String EVENT_FORMAT_HEADER = "event-format";
+    
+    // Header values shared by every record with the same event type
+    private static final byte[][] EVENT_TYPE_HEADER_VALUES = eventTypeHeaderValues();
+    
+    private final ObjectProvider<Producer<String, String>> kafkaProducerProvider;
+    private final ObjectProvider<Producer<String, byte[]>> byteArrayKafkaProducerProvider;
     private final KafkaProperties kafkaProperties;
+    private final ReplayProperties replayProperties;
+    private final PartitionKeyResolver partitionKeyResolver;
+    private final PartitionSkewTracker partitionSkewTracker;
     private final MeterRegistry meterRegistry;
     
+    // Header values shared by every record with the same region
+    private final Map<String, byte[]> regionHeaderValues = new ConcurrentHashMap<>();
+    
+    // Event type of every topic written to, including those of sessions with their own topic prefix
+    private final Map<String, ChipmunkEvent.EventType> topicEventTypes = new ConcurrentHashMap<>();
+    
+    // Exactly one of the two is set, for the configured payload format
+    private Producer<String, String> kafkaProducer;
+    private Producer<String, byte[]> byteArrayKafkaProducer;
+    private byte[] eventFormatHeaderValue;
+    
     private Counter publishedEventsCounter;
     private Counter failedEventsCounter;
     private Timer publishLatencyTimer;
     
     @PostConstruct
     public void initMetrics() {
+        if (kafkaProperties.getPayloadFormat() == KafkaProperties.PayloadFormat.PROTOBUF) {
+            // Only protobuf sources keep the payload bytes; JSON events would all fail to send
+            if (replayProperties.getSource().getFormat() != ReplayProperties.Source.Format.PROTOBUF) {
+                throw new IllegalStateException(
+                        "kafka.payload-format=protobuf requires replay.source.format=protobuf");
+            }
+            byteArrayKafkaProducer = byteArrayKafkaProducerProvider.getObject();
+        } else {
+            kafkaProducer = kafkaProducerProvider.getObject();
+        }
+        eventFormatHeaderValue = kafkaProperties.getPayloadFormat().name().toLowerCase()
+                .getBytes(StandardCharsets.UTF_8);
+        
         publishedEventsCounter = Counter.builder("replay.events.published")
                 .description("Number of events successfully published to Kafka")
                 .tag("component", "kafka-publisher")
@@ -58,36 +104,94 @@ public class KafkaPublisher {
      * @return A future that completes when the event is published
      */
     public CompletableFuture<RecordMetadata> publishEvent(ChipmunkEvent event) {
+        return publishEvent(event, kafkaProperties.getTopics());
+    }
+    
+    /**
+     * Publishes an event to the topic for its type among the given topics, e.g. those of a
+     * replay session that has its own.
+     * 
+     * @param event The event to publish
+     * @param topics The topics to choose from
+     * @return A future that completes when the event is published
+     */
+    public CompletableFuture<RecordMetadata> publishEvent(ChipmunkEvent event, KafkaProperties.Topics topics) {
         long startTime = System.nanoTime();
         
-        String topicName = getTopicName(event.getEventType());
+        String topicName = getTopicName(topics, event.getEventType());
         String key = generateKey(event);
         
+        if (byteArrayKafkaProducer != null) {
+            if (event.getPayload() == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Event " + event.getEventId() + " has no protobuf payload to publish"));
+            }
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topicName, key, event.getPayload());
+            addHeaders(record.headers(), event);
+            return send(byteArrayKafkaProducer, record, event, startTime);
+        }
+        
         ProducerRecord<String, String> record = new ProducerRecord<>(
                 topicName,
                 key,
                 event.getJsonPayload()
         );
-        
-        // Add headers for tracing and metadata
-        record.headers().add("event-id", event.getEventId().getBytes());
-        record.headers().add("event-type", event.getEventType().name().getBytes());
-        record.headers().add("region", event.getRegion().getBytes());
-        record.headers().add("line-number", String.valueOf(event.getLineNumber()).getBytes());
-        
+        addHeaders(record.headers(), event);
+        return send(kafkaProducer, record, event, startTime);
+    }
+    
+    /**
+     * Adds the tracing and metadata headers carried by every record. Values that repeat across
+     * records are cached, and pooled events supply their id and line number from buffers they
+     * reuse; the producer copies header values into the batch during send, before the event can
+     * be recycled.
+     */
+    void addHeaders(Headers headers, ChipmunkEvent event) {
+        headers.add("event-id", event.getEventIdBytes());
+        headers.add("event-type", EVENT_TYPE_HEADER_VALUES[event.getEventType().ordinal()]);
+        headers.add("region", regionHeaderValue(event.getRegion()));
+        headers.add("line-number", event.getLineNumberBytes());
+        headers.add(EVENT_FORMAT_HEADER, eventFormatHeaderValue);
+    }
+    
+    private byte[] regionHeaderValue(String region) {
+        if (region == null) {
+            return null;
+        }
+        byte[] value = regionHeaderValues.get(region);
+        if (value == null) {
+            value = region.getBytes(StandardCharsets.UTF_8);
+            regionHeaderValues.putIfAbsent(region, value);
+        }
+        return value;
+    }
+    
+    private static byte[][] eventTypeHeaderValues() {
+        ChipmunkEvent.EventType[] eventTypes = ChipmunkEvent.EventType.values();
+        byte[][] values = new byte[eventTypes.length][];
+        for (ChipmunkEvent.EventType eventType : eventTypes) {
+            values[eventType.ordinal()] = eventType.name().getBytes(StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+    
+    private <V> CompletableFuture<RecordMetadata> send(Producer<String, V> producer, ProducerRecord<String, V> record,
+                                                       ChipmunkEvent event, long startTime) {
         CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
         
-        kafkaProducer.send(record, (metadata, exception) -> {
+        producer.send(record, (metadata, exception) -> {
             publishLatencyTimer.record(System.nanoTime() - startTime, java.util.concurrent.TimeUnit.NANOSECONDS);
             
             if (exception == null) {
                 log.debug("Event published successfully: topic={}, partition={}, offset={}, eventId={}", 
                         metadata.topic(), metadata.partition(), metadata.offset(), event.getEventId());
                 publishedEventsCounter.increment();
+                topicEventTypes.putIfAbsent(metadata.topic(), event.getEventType());
+                partitionSkewTracker.record(metadata.topic(), metadata.partition());
                 future.complete(metadata);
             } else {
                 log.error("Failed to publish event: eventId={}, topic={}", 
-                        event.getEventId(), topicName, exception);
+                        event.getEventId(), record.topic(), exception);
                 failedEventsCounter.increment();
                 future.completeExceptionally(exception);
             }
@@ -96,31 +200,91 @@ public class KafkaPublisher {
         return future;
     }
     
+    /**
+     * Blocks until every record sent so far has been acknowledged or has failed, leaving the
+     * producers open for other replays.
+     */
+    public void flush() {
+        if (kafkaProducer != null) {
+            kafkaProducer.flush();
+        }
+        if (byteArrayKafkaProducer != null) {
+            byteArrayKafkaProducer.flush();
+        }
+    }
+    
     /**
      * Flushes any pending records and closes the producer.
      */
     public void close() {
         log.info("Closing Kafka publisher...");
-        kafkaProducer.flush();
-        kafkaProducer.close();
+        if (kafkaProducer != null) {
+            kafkaProducer.flush();
+            kafkaProducer.close();
+        }
+        if (byteArrayKafkaProducer != null) {
+            byteArrayKafkaProducer.flush();
+            byteArrayKafkaProducer.close();
+        }
     }
     
-    private String getTopicName(ChipmunkEvent.EventType eventType) {
+    private String getTopicName(KafkaProperties.Topics topics, ChipmunkEvent.EventType eventType) {
         switch (eventType) {
             case TRADE:
-                return kafkaProperties.getTopics().getTradeEvents();
+                return topics.getTradeEvents();
             case MARKET_DATA:
-                return kafkaProperties.getTopics().getMarketData();
+                return topics.getMarketData();
             case FX_RATE:
-                return kafkaProperties.getTopics().getFxRates();
+                return topics.getFxRates();
             default:
                 throw new IllegalArgumentException("Unknown event type: " + eventType);
         }
     }
     
-    private String generateKey(ChipmunkEvent event) {
-        // Generate a key for partitioning. In a real system, this would be based on
-        // business logic like symbol, region, or trading account
-        return event.getRegion() + "_" + event.getEventType().name();
+    /**
+     * Computes the Kafka key for an event using the key strategy configured for its topic;
+     * also used to assign events to publishing lanes.
+     * 
+     * @param event The event to key
+     * @return The record key
+     */
+    public String generateKey(ChipmunkEvent event) {
+        return partitionKeyResolver.resolve(event);
+    }
+    
+    /**
+     * Reports how acknowledged events are spread over the partitions of each topic written to,
+     * the configured ones and those of sessions with a topic prefix alike.
+     * 
+     * @return One report per topic that has received events, in topic name order
+     */
+    public List<PartitionSkewReport> getPartitionSkewReports() {
+        List<PartitionSkewReport> reports = new ArrayList<>();
+        for (String topicName : partitionSkewTracker.getTopics()) {
+            ChipmunkEvent.EventType eventType = topicEventTypes.get(topicName);
+            String keyStrategy = eventType != null ? partitionKeyResolver.strategyFor(eventType).name() : "UNKNOWN";
+            reports.add(partitionSkewTracker.report(topicName, keyStrategy, partitionCount(topicName)));
+        }
+        return reports;
+    }
+    
+    /**
+     * Clears the per-partition counts behind the skew report.
+     */
+    public void resetPartitionSkew() {
+        partitionSkewTracker.reset();
+        topicEventTypes.clear();
+    }
+    
+    private int partitionCount(String topicName) {
+        try {
+            // Metadata for a topic already written to is cached by the producer
+            return byteArrayKafkaProducer != null
+                    ? byteArrayKafkaProducer.partitionsFor(topicName).size()
+                    : kafkaProducer.partitionsFor(topicName).size();
+        } catch (KafkaException e) {
+            log.debug("Could not get partition count for topic {}", topicName, e);
+            return 0;
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,5 @@
 package org.jaiswarsecurities.replayengine.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jaiswarsecurities.replayengine.config.ReplayProperties;
@@ -15,9 +13,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Instant;
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
@@ -32,10 +27,19 @@ import java.util.stream.Stream;
 public class LocalFileChipmunkReader implements ChipmunkReader {
     
     private final ReplayProperties replayProperties;
-    private final ObjectMapper objectMapper;
+    private final ChipmunkJsonParser jsonParser;
     
     @Override
     public Stream<ChipmunkEvent> readEvents() throws IOException {
+        return readEventsFrom(0);
+    }
+    
+    /**
+     * Skips the first {@code ordinal} data lines without parsing them, so lines that failed to
+     * parse count towards the position like any other and the line numbers stay those of a full read.
+     */
+    @Override
+    public Stream<ChipmunkEvent> readEventsFrom(long ordinal) throws IOException {
         String filePath = replayProperties.getSource().getLocal().getFilePath();
         Path path = Paths.get(filePath);
         
@@ -46,11 +50,14 @@ public class LocalFileChipmunkReader implements ChipmunkReader {
         log.info("Reading Chipmunk file from local filesystem: {}", filePath);
         
         BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
-        AtomicLong lineNumber = new AtomicLong(0);
+        long skipped = Math.max(0, ordinal);
+        AtomicLong lineNumber = new AtomicLong(skipped);
+        EventIdNamespace namespace = EventIdNamespace.forSource(replayProperties.getSource());
         
         return reader.lines()
                 .filter(line -> !line.trim().isEmpty() && !line.startsWith("#"))
-                .map(line -> parseChipmunkLine(line, lineNumber.incrementAndGet()))
+                .skip(skipped)
+                .map(line -> jsonParser.parse(line, lineNumber.incrementAndGet(), namespace))
                 .filter(event -> event != null)
                 .onClose(() -> {
                     try {
@@ -61,6 +68,11 @@ public class LocalFileChipmunkReader implements ChipmunkReader {
                 });
     }
     
+    @Override
+    public boolean resumesByLineNumber() {
+        return true;
+    }
+    
     @Override
     public long getTotalEventCount() throws IOException {
         String filePath = replayProperties.getSource().getLocal().getFilePath();
@@ -81,92 +93,4 @@ public class LocalFileChipmunkReader implements ChipmunkReader {
     public void close() throws IOException {
         log.debug("LocalFileChipmunkReader closed");
     }
-    
-    /**
-     * Parses a line from the Chipmunk file into a ChipmunkEvent.
-     * Expected format: JSON objects, one per line.
-     */
-    private ChipmunkEvent parseChipmunkLine(String line, long lineNumber) {
-        try {
-            // Parse the JSON line into a map
-            Map<String, Object> data = objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {});
-            
-            // Determine event type based on the data content
-            ChipmunkEvent.EventType eventType = determineEventType(data);
-            
-            // Extract timestamp (assume ISO format or epoch millis)
-            Instant timestamp = extractTimestamp(data);
-            
-            // Extract region
-            String region = extractRegion(data);
-            
-            return ChipmunkEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .eventType(eventType)
-                    .timestamp(timestamp)
-                    .region(region)
-                    .data(data)
-                    .jsonPayload(line)
-                    .lineNumber(lineNumber)
-                    .build();
-                    
-        } catch (Exception e) {
-            log.warn("Failed to parse line {}: {}", lineNumber, line, e);
-            return null;  // Skip invalid lines
-        }
-    }
-    
-    private ChipmunkEvent.EventType determineEventType(Map<String, Object> data) {
-        // Simple heuristic based on field names - in real implementation,
-        // this would be based on the actual Chipmunk file format specification
-        if (data.containsKey("trade_id") || data.containsKey("tradeId")) {
-            return ChipmunkEvent.EventType.TRADE;
-        } else if (data.containsKey("symbol") && data.containsKey("price") && !data.containsKey("trade_id")) {
-            return ChipmunkEvent.EventType.MARKET_DATA;
-        } else if (data.containsKey("currency_pair") || data.containsKey("base_currency")) {
-            return ChipmunkEvent.EventType.FX_RATE;
-        } else {
-            // Default to trade if we can't determine
-            return ChipmunkEvent.EventType.TRADE;
-        }
-    }
-    
-    private Instant extractTimestamp(Map<String, Object> data) {
-        // Try to extract timestamp from common field names
-        Object timestamp = data.get("timestamp");
-        if (timestamp == null) {
-            timestamp = data.get("time");
-        }
-        if (timestamp == null) {
-            timestamp = data.get("event_time");
-        }
-        
-        if (timestamp instanceof String) {
-            try {
-                return Instant.parse((String) timestamp);
-            } catch (Exception e) {
-                // If parsing fails, try as epoch millis
-                try {
-                    return Instant.ofEpochMilli(Long.parseLong((String) timestamp));
-                } catch (Exception e2) {
-                    log.debug("Could not parse timestamp: {}", timestamp);
-                    return Instant.now();
-                }
-            }
-        } else if (timestamp instanceof Number) {
-            return Instant.ofEpochMilli(((Number) timestamp).longValue());
-        } else {
-            return Instant.now();
-        }
-    }
-    
-    private String extractRegion(Map<String, Object> data) {
-        Object region = data.get("region");
-        if (region instanceof String) {
-            return (String) region;
-        }
-        
-        // Try to infer from other fields or use a default
-        return "UNKNOWN";
-    }
 }
\ No newline at end of file
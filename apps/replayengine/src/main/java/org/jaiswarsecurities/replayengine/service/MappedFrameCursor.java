@@ -0,0 +1,126 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Walks the length-prefixed frames of a local Chipmunk file in place over read-only
+ * memory-mapped windows. Each frame is returned as a slice of the mapped window, so record
+ * bytes go straight from the page cache to the parser without being copied onto the heap.
+ * A single mapping is limited to 2 GB, so larger files are covered by a sequence of windows;
+ * a window is remapped whenever the next frame does not fit in the current one.
+ */
+@Slf4j
+public class MappedFrameCursor implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long windowBytes;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    /**
+     * Opens the file for mapping.
+     *
+     * @param path The Chipmunk file to walk
+     * @param windowBytes The preferred size of each mapped window
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFrameCursor(Path path, long windowBytes) throws IOException {
+        if (windowBytes <= ChipmunkRecordDecoder.FRAME_HEADER_BYTES || windowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map window must be between 5 bytes and 2 GB: " + windowBytes);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Returns the body of the next frame and advances past it.
+     *
+     * @return A read-only slice holding the serialized ChipmunkRecord, or null at the end of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public ByteBuffer nextFrame() throws IOException {
+        if (position + ChipmunkRecordDecoder.FRAME_HEADER_BYTES > fileSize) {
+            if (position < fileSize) {
+                log.warn("Ignoring {} trailing bytes at offset {} of {}", fileSize - position, position, path);
+                position = fileSize;
+            }
+            return null;
+        }
+
+        mapWindow(position, ChipmunkRecordDecoder.FRAME_HEADER_BYTES);
+        int length = window.getInt((int) (position - windowStart));
+
+        long frameEnd = position + ChipmunkRecordDecoder.FRAME_HEADER_BYTES + length;
+        if (length < 0 || frameEnd > fileSize) {
+            log.warn("Truncated or corrupt frame at offset {} of {} (length={}), stopping", position, path, length);
+            position = fileSize;
+            return null;
+        }
+
+        mapWindow(position, ChipmunkRecordDecoder.FRAME_HEADER_BYTES + length);
+        ByteBuffer frame = window.slice(
+                (int) (position - windowStart) + ChipmunkRecordDecoder.FRAME_HEADER_BYTES, length);
+        position = frameEnd;
+        return frame;
+    }
+
+    /**
+     * Moves the cursor to the frame starting at the given offset, e.g. one taken from a ChipmunkIndex.
+     *
+     * @param offset File offset of a frame's length prefix
+     */
+    public void seek(long offset) {
+        if (offset < 0 || offset > fileSize) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside " + path + " (" + fileSize + " bytes)");
+        }
+        position = offset;
+    }
+
+    /**
+     * Gets the file offset of the next frame.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Gets the size of the underlying file in bytes.
+     */
+    public long size() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mapped windows are released by the garbage collector once unreferenced
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Ensures [start, start + length) is covered by the current window, remapping if needed.
+     */
+    private void mapWindow(long start, long length) throws IOException {
+        if (window != null && start >= windowStart && start + length <= windowStart + window.capacity()) {
+            return;
+        }
+
+        long mapSize = Math.min(Math.max(windowBytes, length), fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, mapSize);
+        windowStart = start;
+    }
+}
@@ -0,0 +1,170 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of ChipmunkReader that replays several Chipmunk files as one stream, e.g. the
+ * per-region files of a trading day. Each file is read by its own single-file reader, with its
+ * own prefetching stream, and the files are merged in timestamp order with a k-way heap merge,
+ * holding one event per file. Events with equal timestamps keep the order of the file list.
+ *
+ * <p>Line numbers and event ids stay those of the event's own file. Resuming skips the given
+ * number of merged events, since the merge order is the same on every read; time windows are
+ * applied to each file, so indexed files still seek to the window start.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "replay.source.merge.enabled", havingValue = "true")
+public class MergingChipmunkReader implements ChipmunkReader {
+
+    private final ChipmunkReaderFactory readerFactory;
+    private final ReplayProperties replayProperties;
+
+    @Override
+    public Stream<ChipmunkEvent> readEvents() throws IOException {
+        return merge(ChipmunkReader::readEvents);
+    }
+
+    @Override
+    public Stream<ChipmunkEvent> readEventsBetween(Instant start, Instant end) throws IOException {
+        return merge(reader -> reader.readEventsBetween(start, end));
+    }
+
+    @Override
+    public long getTotalEventCount() throws IOException {
+        long total = 0;
+        for (String file : readerFactory.listFiles(replayProperties)) {
+            long count = readerFactory.forFile(replayProperties, file).getTotalEventCount();
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.debug("MergingChipmunkReader closed");
+    }
+
+    /**
+     * Merges the files, each read with the given read once the merged stream is first advanced.
+     * Closing the merged stream closes every file opened so far.
+     */
+    private Stream<ChipmunkEvent> merge(StreamOpener opener) throws IOException {
+        List<String> files = readerFactory.listFiles(replayProperties);
+        log.info("Merging {} Chipmunk files in timestamp order", files.size());
+
+        List<ChipmunkReader> readers = new ArrayList<>(files.size());
+        for (String file : files) {
+            readers.add(readerFactory.forFile(replayProperties, file));
+        }
+
+        MergeSpliterator spliterator = new MergeSpliterator(readers, opener);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::close);
+    }
+
+    @FunctionalInterface
+    private interface StreamOpener {
+        Stream<ChipmunkEvent> open(ChipmunkReader reader) throws IOException;
+    }
+
+    /**
+     * The next event of one file, ordered by timestamp and then by the file's position in the list.
+     */
+    private record Head(ChipmunkEvent event, long epochNanos, int file) {
+        static final Comparator<Head> ORDER = Comparator.comparingLong(Head::epochNanos)
+                .thenComparingInt(Head::file);
+    }
+
+    /**
+     * Emits the earliest head and refills from the file it came from. Files are only opened
+     * on the first advance, so building the stream does not start any downloads.
+     */
+    private static final class MergeSpliterator extends Spliterators.AbstractSpliterator<ChipmunkEvent> {
+
+        private final List<ChipmunkReader> readers;
+        private final StreamOpener opener;
+        private final List<Stream<ChipmunkEvent>> streams;
+        private final List<Iterator<ChipmunkEvent>> iterators;
+        private final PriorityQueue<Head> heads;
+        private boolean started;
+
+        MergeSpliterator(List<ChipmunkReader> readers, StreamOpener opener) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.readers = readers;
+            this.opener = opener;
+            this.streams = new ArrayList<>(readers.size());
+            this.iterators = new ArrayList<>(readers.size());
+            this.heads = new PriorityQueue<>(Math.max(1, readers.size()), Head.ORDER);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ChipmunkEvent> action) {
+            if (!started) {
+                started = true;
+                for (int file = 0; file < readers.size(); file++) {
+                    Stream<ChipmunkEvent> stream = open(file);
+                    streams.add(stream);
+                    iterators.add(stream.iterator());
+                    refill(file);
+                }
+            }
+
+            Head head = heads.poll();
+            if (head == null) {
+                return false;
+            }
+            refill(head.file());
+            action.accept(head.event());
+            return true;
+        }
+
+        private Stream<ChipmunkEvent> open(int file) {
+            try {
+                return opener.open(readers.get(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open merged Chipmunk file " + file, e);
+            }
+        }
+
+        /**
+         * Closes the streams of the files opened so far.
+         */
+        void close() {
+            streams.forEach(Stream::close);
+        }
+
+        private void refill(int file) {
+            Iterator<ChipmunkEvent> iterator = iterators.get(file);
+            if (iterator.hasNext()) {
+                ChipmunkEvent event = iterator.next();
+                heads.add(new Head(event, event.getEpochNanos(), file));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens Chipmunk objects stored in MinIO/S3 for the readers.
+ * Objects are fetched with parallel ranged GETs when prefetching is enabled,
+ * otherwise through a single getObject stream.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MinIOObjectSource {
+
+    private final S3Client s3Client;
+    private final ReplayProperties replayProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Opens the configured object for reading.
+     *
+     * @param bucketName Bucket holding the object
+     * @param objectKey Key of the object
+     * @return A stream over the object's bytes; the caller must close it
+     * @throws IOException if the object cannot be opened
+     */
+    public InputStream open(String bucketName, String objectKey) throws IOException {
+        return open(bucketName, objectKey, 0);
+    }
+
+    /**
+     * Opens the configured object for reading from a byte offset.
+     *
+     * @param bucketName Bucket holding the object
+     * @param objectKey Key of the object
+     * @param startOffset Offset of the first byte to read
+     * @return A stream over the object's bytes from the offset; the caller must close it
+     * @throws IOException if the object cannot be opened
+     */
+    public InputStream open(String bucketName, String objectKey, long startOffset) throws IOException {
+        ReplayProperties.Source.Minio.Prefetch prefetch = replayProperties.getSource().getMinio().getPrefetch();
+
+        try {
+            if (prefetch.isEnabled()) {
+                return new PrefetchingS3InputStream(s3Client, bucketName, objectKey, startOffset,
+                        prefetch.getPartSizeBytes(), prefetch.getParallelism(), prefetch.getMaxRetries(),
+                        meterRegistry, replayProperties.getVirtualThreads().isEnabled());
+            }
+
+            GetObjectRequest.Builder getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey);
+            if (startOffset > 0) {
+                getObjectRequest.range("bytes=" + startOffset + "-");
+            }
+
+            return s3Client.getObject(getObjectRequest.build());
+
+        } catch (Exception e) {
+            log.error("Error reading from MinIO: bucket={}, key={}", bucketName, objectKey, e);
+            throw new IOException("Failed to read Chipmunk file from MinIO", e);
+        }
+    }
+
+    /**
+     * Reads a small object, such as an index sidecar, fully into memory.
+     *
+     * @param bucketName Bucket holding the object
+     * @param objectKey Key of the object
+     * @return The object's bytes, or null if it does not exist
+     * @throws IOException if the object exists but cannot be read
+     */
+    public byte[] readIfExists(String bucketName, String objectKey) throws IOException {
+        try {
+            return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .build()).asByteArray();
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Error reading from MinIO: bucket={}, key={}", bucketName, objectKey, e);
+            throw new IOException("Failed to read s3://" + bucketName + "/" + objectKey, e);
+        }
+    }
+
+    /**
+     * Lists the keys under a prefix, following continuation tokens across pages.
+     *
+     * @param bucketName Bucket to list
+     * @param prefix Key prefix to match
+     * @return The matching keys in the order S3 returns them (lexicographic)
+     * @throws IOException if the bucket cannot be listed
+     */
+    public List<String> listKeys(String bucketName, String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+
+        try {
+            do {
+                ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                        .bucket(bucketName)
+                        .prefix(prefix)
+                        .continuationToken(continuationToken)
+                        .build());
+                for (S3Object object : response.contents()) {
+                    keys.add(object.key());
+                }
+                continuationToken = Boolean.TRUE.equals(response.isTruncated())
+                        ? response.nextContinuationToken()
+                        : null;
+            } while (continuationToken != null);
+
+        } catch (Exception e) {
+            log.error("Error listing MinIO objects: bucket={}, prefix={}", bucketName, prefix, e);
+            throw new IOException("Failed to list s3://" + bucketName + "/" + prefix, e);
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,124 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties.Partitioning.KeyStrategy;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes Kafka record keys using the key strategy configured for each topic.
+ * An event that lacks the field its strategy needs (e.g. an FX rate under an instrument
+ * strategy) falls back to the region/type key so it still has a stable partition.
+ */
+@Component
+@RequiredArgsConstructor
+public class PartitionKeyResolver {
+
+    private static final String COMPOSITE_SEPARATOR = "|";
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Region/type keys by region, indexed by event type, so the default strategy builds no strings per event
+    private final Map<String, String[]> regionTypeKeys = new ConcurrentHashMap<>();
+    
+    private Counter fallbackCounter;
+
+    @PostConstruct
+    public void initMetrics() {
+        List<KeyStrategy> compositeFields = kafkaProperties.getPartitioning().getCompositeFields();
+        if (compositeFields.isEmpty() || compositeFields.contains(KeyStrategy.COMPOSITE)) {
+            throw new IllegalStateException(
+                    "kafka.partitioning.composite-fields must list at least one non-composite strategy: " + compositeFields);
+        }
+
+        fallbackCounter = Counter.builder("replay.partition.key.fallback")
+                .description("Events keyed by region/type because the configured key field was missing")
+                .tag("component", "kafka-publisher")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Computes the record key for an event.
+     *
+     * @param event The event to key
+     * @return The record key
+     */
+    public String resolve(ChipmunkEvent event) {
+        KeyStrategy strategy = strategyFor(event.getEventType());
+
+        String key = strategy == KeyStrategy.COMPOSITE ? compositeKey(event) : fieldValue(strategy, event);
+        if (key == null) {
+            fallbackCounter.increment();
+            return regionTypeKey(event);
+        }
+        return key;
+    }
+
+    /**
+     * Gets the key strategy configured for an event type's topic.
+     */
+    public KeyStrategy strategyFor(ChipmunkEvent.EventType eventType) {
+        KafkaProperties.Partitioning partitioning = kafkaProperties.getPartitioning();
+        return switch (eventType) {
+            case TRADE -> partitioning.getTradeEvents();
+            case MARKET_DATA -> partitioning.getMarketData();
+            case FX_RATE -> partitioning.getFxRates();
+        };
+    }
+
+    private String compositeKey(ChipmunkEvent event) {
+        StringBuilder key = new StringBuilder();
+        for (KeyStrategy field : kafkaProperties.getPartitioning().getCompositeFields()) {
+            String value = fieldValue(field, event);
+            if (value == null) {
+                return null;
+            }
+            if (!key.isEmpty()) {
+                key.append(COMPOSITE_SEPARATOR);
+            }
+            key.append(value);
+        }
+        return key.toString();
+    }
+
+    private String fieldValue(KeyStrategy strategy, ChipmunkEvent event) {
+        return switch (strategy) {
+            case REGION_TYPE -> regionTypeKey(event);
+            case INSTRUMENT -> event.getInstrument();
+            case ACCOUNT -> event.getAccount();
+            case CURRENCY_PAIR -> event.getCurrencyPair();
+            case CORRELATION_ID -> event.getCorrelationId();
+            case COMPOSITE -> throw new IllegalArgumentException("Composite keys cannot be nested");
+        };
+    }
+
+    private String regionTypeKey(ChipmunkEvent event) {
+        String region = event.getRegion();
+        if (region == null) {
+            return region + "_" + event.getEventType().name();
+        }
+        String[] keys = regionTypeKeys.get(region);
+        if (keys == null) {
+            keys = regionTypeKeys.computeIfAbsent(region, PartitionKeyResolver::regionTypeKeys);
+        }
+        return keys[event.getEventType().ordinal()];
+    }
+    
+    private static String[] regionTypeKeys(String region) {
+        ChipmunkEvent.EventType[] eventTypes = ChipmunkEvent.EventType.values();
+        String[] keys = new String[eventTypes.length];
+        for (ChipmunkEvent.EventType eventType : eventTypes) {
+            keys[eventType.ordinal()] = region + "_" + eventType.name();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,88 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.model.PartitionSkewReport;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts acknowledged events per topic partition so key strategies can be checked for skew
+ * under real load. Updated from producer callbacks, so recording must stay cheap and lock-free.
+ */
+@Component
+public class PartitionSkewTracker {
+
+    private final Map<String, Map<Integer, LongAdder>> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Records one event acknowledged on a partition.
+     *
+     * @param topic The topic written to
+     * @param partition The partition the broker assigned
+     */
+    public void record(String topic, int partition) {
+        counts.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(partition, p -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Forgets all counts, e.g. when a new replay starts.
+     */
+    public void reset() {
+        counts.clear();
+    }
+
+    /**
+     * Gets every topic an event has been recorded for, in name order.
+     */
+    public SortedSet<String> getTopics() {
+        return new TreeSet<>(counts.keySet());
+    }
+
+    /**
+     * Checks whether any event has been recorded for a topic.
+     */
+    public boolean hasRecorded(String topic) {
+        return counts.containsKey(topic);
+    }
+
+    /**
+     * Builds the skew report for a topic.
+     *
+     * @param topic The topic
+     * @param keyStrategy Name of the key strategy in use, for display
+     * @param partitionCount Partitions the topic has, or 0 if unknown
+     * @return The report; empty if nothing was recorded for the topic
+     */
+    public PartitionSkewReport report(String topic, String keyStrategy, int partitionCount) {
+        SortedMap<Integer, Long> partitionCounts = new TreeMap<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionCounts.put(partition, 0L);
+        }
+        counts.getOrDefault(topic, Map.of()).forEach((partition, count) -> partitionCounts.put(partition, count.sum()));
+
+        long total = 0;
+        long max = 0;
+        for (long count : partitionCounts.values()) {
+            total += count;
+            max = Math.max(max, count);
+        }
+        double mean = partitionCounts.isEmpty() ? 0 : (double) total / partitionCounts.size();
+
+        return PartitionSkewReport.builder()
+                .topic(topic)
+                .keyStrategy(keyStrategy)
+                .totalEvents(total)
+                .partitions(partitionCounts.size())
+                .partitionCounts(partitionCounts)
+                .maxToMeanRatio(mean > 0 ? max / mean : 0)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Fans events out from the reader stage to a fixed set of publishing lanes.
+ *
+ * <p>The thread that reads and decodes the file calls {@link #submit}, which hashes the
+ * event's Kafka key to pick a lane and hands the event over through that lane's bounded queue.
+ * Each lane runs on its own thread and handles its events one at a time, so events sharing a
+ * key stay in file order while different keys are published in parallel. When a lane falls
+ * behind its queue fills and the reader blocks, which keeps memory bounded without dropping
+ * events.
+ *
+ * <p>One pipeline serves one replay: it is started on construction and finished with
+ * {@link #awaitCompletion()} or torn down with {@link #shutdownNow()}.
+ */
+@Slf4j
+public class PartitionedPublishPipeline {
+
+    /**
+     * Handles one event on a lane thread.
+     */
+    @FunctionalInterface
+    public interface LaneHandler {
+        void handle(ChipmunkEvent event) throws InterruptedException;
+    }
+
+    // Marks the end of a lane's input; compared by identity
+    private static final ChipmunkEvent END_OF_STREAM = new ChipmunkEvent();
+
+    private final Function<ChipmunkEvent, String> keyFunction;
+    private final LaneHandler handler;
+    private final List<BlockingQueue<ChipmunkEvent>> queues;
+    private final List<Thread> workers;
+
+    /**
+     * Creates the pipeline and starts its lane threads.
+     *
+     * @param lanes Number of publishing lanes
+     * @param queueCapacity Events buffered per lane before {@link #submit} blocks
+     * @param keyFunction Computes the Kafka key that decides an event's lane
+     * @param handler Publishes an event; runtime exceptions are logged and the lane moves on
+     */
+    public PartitionedPublishPipeline(int lanes, int queueCapacity,
+                                      Function<ChipmunkEvent, String> keyFunction, LaneHandler handler) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Pipeline needs at least one lane: " + lanes);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Lane queue capacity must be positive: " + queueCapacity);
+        }
+        this.keyFunction = keyFunction;
+        this.handler = handler;
+        this.queues = new ArrayList<>(lanes);
+        this.workers = new ArrayList<>(lanes);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            BlockingQueue<ChipmunkEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> runLane(queue), "publish-lane-" + lane);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Hands an event to the lane owning its key, waiting while that lane's queue is full.
+     *
+     * @param event The event to publish
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void submit(ChipmunkEvent event) throws InterruptedException {
+        queues.get(laneFor(keyFunction.apply(event))).put(event);
+    }
+
+    /**
+     * Lets every lane finish the events already queued and waits for the lane threads to exit.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitCompletion() throws InterruptedException {
+        for (int lane = 0; lane < queues.size(); lane++) {
+            // A lane that has already stopped would never drain the marker
+            if (workers.get(lane).isAlive()) {
+                queues.get(lane).put(END_OF_STREAM);
+            }
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Stops the lanes without publishing what is still queued. Queued events are recycled, since
+     * nothing will read them again.
+     */
+    public void shutdownNow() {
+        List<ChipmunkEvent> dropped = new ArrayList<>();
+        queues.forEach(queue -> queue.drainTo(dropped));
+        workers.forEach(Thread::interrupt);
+        dropped.forEach(ChipmunkEvent::recycle);
+    }
+
+    /**
+     * Gets the number of events waiting in lane queues.
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (BlockingQueue<ChipmunkEvent> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Gets the number of lanes.
+     */
+    public int getLanes() {
+        return queues.size();
+    }
+
+    int laneFor(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), queues.size());
+    }
+
+    private void runLane(BlockingQueue<ChipmunkEvent> queue) {
+        try {
+            while (true) {
+                ChipmunkEvent event = queue.take();
+                if (event == END_OF_STREAM) {
+                    return;
+                }
+                try {
+                    handler.handle(event);
+                } catch (RuntimeException e) {
+                    log.error("Error publishing event {} on {}", event.getEventId(), Thread.currentThread().getName(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("{} interrupted", Thread.currentThread().getName());
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InputStream over an S3/MinIO object that fetches it as concurrent byte-range GETs.
+ * Up to {@code parallelism} parts are in flight at once, each downloaded into a buffer
+ * from a fixed ring, and handed to the reader strictly in order. Throughput is no longer
+ * bound to a single HTTP connection, and a slow or retried part only delays the parts
+ * behind it rather than the whole stream. Memory is bounded by partSize * (parallelism + 1).
+ */
+@Slf4j
+public class PrefetchingS3InputStream extends InputStream {
+
+    private static final AtomicInteger STREAM_IDS = new AtomicInteger();
+    static final long RETRY_BASE_DELAY_MILLIS = 100;
+    static final long RETRY_MAX_DELAY_MILLIS = 2_000;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final int partSize;
+    private final int maxRetries;
+    private final long startOffset;
+    private final long contentLength;
+    private final long partCount;
+
+    private final ExecutorService executor;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final Deque<Future<Part>> pendingParts = new ArrayDeque<>();
+
+    private final Timer partLatencyTimer;
+    private final DistributionSummary partThroughput;
+    private final Counter bytesFetchedCounter;
+
+    private long nextPartToSubmit;
+    private Part currentPart;
+    private int currentOffset;
+    private boolean closed;
+
+    /**
+     * Starts prefetching the object.
+     *
+     * @param s3Client Client used for the HEAD and ranged GET requests
+     * @param bucket Bucket holding the object
+     * @param key Key of the object
+     * @param partSize Size of each ranged GET in bytes
+     * @param parallelism Maximum number of parts fetched concurrently
+     * @param maxRetries Number of times a failed part is retried, with exponential backoff, before the stream fails
+     * @param meterRegistry Registry for per-part latency and throughput metrics
+     */
+    public PrefetchingS3InputStream(S3Client s3Client, String bucket, String key,
+                                    int partSize, int parallelism, int maxRetries,
+                                    MeterRegistry meterRegistry) {
+        this(s3Client, bucket, key, 0, partSize, parallelism, maxRetries, meterRegistry);
+    }
+
+    /**
+     * Starts prefetching the object from a byte offset, e.g. a frame located through a ChipmunkIndex.
+     *
+     * @param s3Client Client used for the HEAD and ranged GET requests
+     * @param bucket Bucket holding the object
+     * @param key Key of the object
+     * @param startOffset Offset of the first byte returned by the stream
+     * @param partSize Size of each ranged GET in bytes
+     * @param parallelism Maximum number of parts fetched concurrently
+     * @param maxRetries Number of times a failed part is retried, with exponential backoff, before the stream fails
+     * @param meterRegistry Registry for per-part latency and throughput metrics
+     */
+    public PrefetchingS3InputStream(S3Client s3Client, String bucket, String key, long startOffset,
+                                    int partSize, int parallelism, int maxRetries,
+                                    MeterRegistry meterRegistry) {
+        this(s3Client, bucket, key, startOffset, partSize, parallelism, maxRetries, meterRegistry, false);
+    }
+
+    /**
+     * Starts prefetching the object from a byte offset, fetching parts on virtual threads if asked.
+     * Virtual threads unmount while waiting on the GET or for a free buffer, so many prefetching
+     * streams can be open at once without a platform thread per part in flight.
+     *
+     * @param s3Client Client used for the HEAD and ranged GET requests
+     * @param bucket Bucket holding the object
+     * @param key Key of the object
+     * @param startOffset Offset of the first byte returned by the stream
+     * @param partSize Size of each ranged GET in bytes
+     * @param parallelism Maximum number of parts fetched concurrently
+     * @param maxRetries Number of times a failed part is retried, with exponential backoff, before the stream fails
+     * @param meterRegistry Registry for per-part latency and throughput metrics
+     * @param virtualThreads Whether to fetch parts on virtual threads rather than a pool of platform threads
+     */
+    public PrefetchingS3InputStream(S3Client s3Client, String bucket, String key, long startOffset,
+                                    int partSize, int parallelism, int maxRetries,
+                                    MeterRegistry meterRegistry, boolean virtualThreads) {
+        if (partSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Part size and parallelism must be positive");
+        }
+
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.partSize = partSize;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.startOffset = startOffset;
+
+        this.contentLength = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build()).contentLength();
+        if (startOffset < 0 || startOffset > contentLength) {
+            throw new IllegalArgumentException("Start offset " + startOffset + " is outside s3://" + bucket + "/" + key);
+        }
+        long remaining = contentLength - startOffset;
+        this.partCount = (remaining + partSize - 1) / partSize;
+
+        int ringSize = (int) Math.min(parallelism, Math.max(1, partCount));
+        this.freeBuffers = new ArrayBlockingQueue<>(ringSize + 1);
+        for (int i = 0; i <= ringSize; i++) {
+            freeBuffers.add(new byte[(int) Math.min(partSize, Math.max(remaining, 1))]);
+        }
+
+        // The ring of buffers bounds the parts in flight, so virtual threads need no pool
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(prefetchThreadFactory(true))
+                : Executors.newFixedThreadPool(ringSize, prefetchThreadFactory(false));
+
+        this.partLatencyTimer = Timer.builder("replay.reader.prefetch.part.latency")
+                .description("Time taken to fetch one ranged part of a Chipmunk object")
+                .tag("component", "s3-prefetch")
+                .register(meterRegistry);
+        this.partThroughput = DistributionSummary.builder("replay.reader.prefetch.part.throughput")
+                .description("Download throughput of each ranged part")
+                .baseUnit("bytes/second")
+                .tag("component", "s3-prefetch")
+                .register(meterRegistry);
+        this.bytesFetchedCounter = Counter.builder("replay.reader.prefetch.bytes")
+                .description("Bytes fetched by ranged GETs")
+                .baseUnit("bytes")
+                .tag("component", "s3-prefetch")
+                .register(meterRegistry);
+
+        log.info("Prefetching s3://{}/{} from offset {}: {} bytes in {} parts of {} bytes, parallelism={}",
+                bucket, key, startOffset, remaining, partCount, partSize, ringSize);
+
+        for (int i = 0; i < ringSize; i++) {
+            submitNextPart();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensurePart()) {
+            return -1;
+        }
+        return currentPart.buffer[currentOffset++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensurePart()) {
+            return -1;
+        }
+
+        int count = Math.min(len, currentPart.length - currentOffset);
+        System.arraycopy(currentPart.buffer, currentOffset, b, off, count);
+        currentOffset += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return currentPart == null ? 0 : currentPart.length - currentOffset;
+    }
+
+    /**
+     * Gets the total size of the object in bytes.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        pendingParts.forEach(future -> future.cancel(true));
+        pendingParts.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Makes sure there are unread bytes in the current part, moving to the next part in order.
+     *
+     * @return false once the whole object has been read
+     */
+    private boolean ensurePart() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (currentPart != null && currentOffset < currentPart.length) {
+            return true;
+        }
+
+        if (currentPart != null) {
+            // Recycle the drained buffer so the next part can be fetched into it
+            freeBuffers.offer(currentPart.buffer);
+            currentPart = null;
+            submitNextPart();
+        }
+
+        Future<Part> next = pendingParts.pollFirst();
+        if (next == null) {
+            return false;
+        }
+
+        try {
+            currentPart = next.get();
+            currentOffset = 0;
+            return currentPart.length > 0 || ensurePart();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for part of s3://" + bucket + "/" + key);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to fetch part of s3://" + bucket + "/" + key, e.getCause());
+        }
+    }
+
+    private void submitNextPart() {
+        if (nextPartToSubmit >= partCount) {
+            return;
+        }
+
+        long partIndex = nextPartToSubmit++;
+        pendingParts.addLast(executor.submit(() -> fetchPart(partIndex)));
+    }
+
+    private Part fetchPart(long partIndex) throws IOException, InterruptedException {
+        long start = startOffset + partIndex * partSize;
+        long end = Math.min(start + partSize, contentLength) - 1;
+        int length = (int) (end - start + 1);
+
+        // Blocks until the reader has drained a part, which bounds the memory in use
+        byte[] buffer = freeBuffers.take();
+
+        for (int attempt = 0; ; attempt++) {
+            long startTime = System.nanoTime();
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .range("bytes=" + start + "-" + end)
+                    .build();
+
+            try (ResponseInputStream<GetObjectResponse> response = s3Client.getObject(request)) {
+                int read = response.readNBytes(buffer, 0, length);
+                if (read != length) {
+                    throw new IOException("Short read for part " + partIndex + ": expected " + length + " bytes, got " + read);
+                }
+
+                long elapsedNanos = System.nanoTime() - startTime;
+                partLatencyTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                partThroughput.record(length * 1_000_000_000.0 / Math.max(1, elapsedNanos));
+                bytesFetchedCounter.increment(length);
+
+                return new Part(buffer, length);
+
+            } catch (Exception e) {
+                if (attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+                    freeBuffers.offer(buffer);
+                    throw e instanceof IOException ? (IOException) e : new IOException(e);
+                }
+                long delayMillis = retryDelayMillis(attempt);
+                log.warn("Retrying part {} of s3://{}/{} in {} ms (attempt {}): {}",
+                        partIndex, bucket, key, delayMillis, attempt + 1, e.toString());
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException interrupted) {
+                    // Closed while backing off
+                    freeBuffers.offer(buffer);
+                    throw interrupted;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delay before a retry: doubles with each attempt up to a cap, and half of it is random so parts
+     * that failed together, e.g. while MinIO restarts, do not all retry at the same moment.
+     */
+    static long retryDelayMillis(int attempt) {
+        long ceiling = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(attempt, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private static ThreadFactory prefetchThreadFactory(boolean virtual) {
+        return ReplayThreads.factory("s3-prefetch-" + STREAM_IDS.incrementAndGet() + "-", virtual);
+    }
+
+    private record Part(byte[] buffer, int length) {
+    }
+}
@@ -0,0 +1,122 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader for the protobuf wire format over a region of a ByteBuffer, used by the pooled
+ * decode path to pick fields out of a record without building message objects. All reads use
+ * absolute positions, so the buffer's own position and limit are left alone, and a cursor can
+ * be reset and reused for every frame.
+ */
+final class ProtoWireCursor {
+
+    static final int WIRETYPE_VARINT = 0;
+    static final int WIRETYPE_FIXED64 = 1;
+    static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    static final int WIRETYPE_FIXED32 = 5;
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private int fieldOffset;
+    private int fieldLength;
+
+    /**
+     * Points the cursor at a serialized message.
+     *
+     * @param buffer The buffer holding the message
+     * @param offset Absolute index of the message's first byte
+     * @param length Length of the message in bytes
+     * @return This cursor
+     */
+    ProtoWireCursor reset(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Reads the next field's tag (field number and wire type).
+     */
+    int readTag() throws InvalidProtocolBufferException {
+        long tag = readVarint();
+        if (tag >>> 3 == 0 || tag < 0 || tag > Integer.MAX_VALUE) {
+            throw new InvalidProtocolBufferException("Invalid protobuf tag: " + tag);
+        }
+        return (int) tag;
+    }
+
+    long readVarint() throws InvalidProtocolBufferException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new InvalidProtocolBufferException("Truncated varint");
+            }
+            byte b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new InvalidProtocolBufferException("Malformed varint");
+    }
+
+    /**
+     * Reads a length-delimited field, leaving its bounds in {@link #fieldOffset()} and {@link #fieldLength()}.
+     */
+    void readLengthDelimited() throws InvalidProtocolBufferException {
+        long length = readVarint();
+        if (length < 0 || length > limit - position) {
+            throw new InvalidProtocolBufferException("Length-delimited field of " + length + " bytes overruns the message");
+        }
+        fieldOffset = position;
+        fieldLength = (int) length;
+        position += fieldLength;
+    }
+
+    /**
+     * Reads a length-delimited field as a UTF-8 string.
+     */
+    String readString() throws InvalidProtocolBufferException {
+        readLengthDelimited();
+        byte[] bytes = new byte[fieldLength];
+        buffer.get(fieldOffset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the value of a field whose tag has just been read.
+     */
+    void skipField(int tag) throws InvalidProtocolBufferException {
+        switch (tag & 0x7) {
+            case WIRETYPE_VARINT -> readVarint();
+            case WIRETYPE_FIXED64 -> skipBytes(8);
+            case WIRETYPE_LENGTH_DELIMITED -> readLengthDelimited();
+            case WIRETYPE_FIXED32 -> skipBytes(4);
+            default -> throw new InvalidProtocolBufferException("Unsupported protobuf wire type in tag " + tag);
+        }
+    }
+
+    int fieldOffset() {
+        return fieldOffset;
+    }
+
+    int fieldLength() {
+        return fieldLength;
+    }
+
+    private void skipBytes(int count) throws InvalidProtocolBufferException {
+        if (count > limit - position) {
+            throw new InvalidProtocolBufferException("Fixed-width field overruns the message");
+        }
+        position += count;
+    }
+}
@@ -0,0 +1,489 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEventPool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of ChipmunkReader for the native binary Chipmunk format written by
+ * the chipmunk-generator (4-byte big-endian length-prefixed ChipmunkRecord protobufs).
+ * Frames are decoded directly from the byte stream with CodedInputStream, so generated
+ * archives can be replayed without a JSON conversion step.
+ * Reads from MinIO or the local filesystem depending on the configured source type; local
+ * files are memory-mapped by default so records are parsed in place from the page cache.
+ * Resuming and time-window reads seek through the file's ChipmunkIndex sidecar, so their
+ * cost does not grow with the number of events in front of the target.
+ * With the event pool enabled, frames are decoded into pooled events that the scheduler
+ * recycles once their send completes, instead of a new ChipmunkEvent per record.
+ * Merged replays create one instance per file through ChipmunkReaderFactory instead of this bean.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${replay.source.format:json}'.equalsIgnoreCase('protobuf')"
+        + " and !'${replay.source.merge.enabled:false}'.equalsIgnoreCase('true')")
+public class ProtobufChipmunkReader implements ChipmunkReader {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_FRAME_BUFFER_SIZE = 4 * 1024;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final MinIOObjectSource objectSource;
+    private final ReplayProperties replayProperties;
+    private final ChipmunkRecordDecoder recordDecoder;
+
+    private ChipmunkEventPool eventPool;
+
+    @Override
+    public Stream<ChipmunkEvent> readEvents() throws IOException {
+        return readFrames(ChipmunkIndex.Entry.START, 0, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<ChipmunkEvent> readEventsFrom(long ordinal) throws IOException {
+        if (ordinal <= 0) {
+            return readEvents();
+        }
+
+        ChipmunkIndex index = loadIndex();
+        ChipmunkIndex.Entry entry = index != null ? index.floorByOrdinal(ordinal) : ChipmunkIndex.Entry.START;
+
+        log.info("Seeking to event {} from indexed frame {} at offset {}; {} frames to skip",
+                ordinal, entry.ordinal(), entry.offset(), ordinal - entry.ordinal());
+
+        return readFrames(entry, ordinal - entry.ordinal(), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Resumes by frame number: events are numbered by their frame, and frames that fail to
+     * decode are skipped by their length prefix like any other.
+     */
+    @Override
+    public boolean resumesByLineNumber() {
+        return true;
+    }
+
+    @Override
+    public Stream<ChipmunkEvent> readEventsBetween(Instant start, Instant end) throws IOException {
+        long fromMillis = start != null ? start.toEpochMilli() : Long.MIN_VALUE;
+        long untilMillis = end != null ? end.toEpochMilli() : Long.MAX_VALUE;
+
+        ChipmunkIndex.Entry entry = ChipmunkIndex.Entry.START;
+        if (start != null) {
+            ChipmunkIndex index = loadIndex();
+            if (index != null) {
+                entry = index.floorByTimestamp(fromMillis);
+            }
+        }
+
+        log.info("Reading events in [{}, {}) from indexed frame {} at offset {}",
+                start, end, entry.ordinal(), entry.offset());
+
+        return readFrames(entry, 0, fromMillis, untilMillis);
+    }
+
+    @Override
+    public long getTotalEventCount() throws IOException {
+        if (replayProperties.getSource().getType() != ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            // Counting frames requires reading the whole object from MinIO
+            log.debug("Total event count not available for streaming MinIO reads");
+            return -1;
+        }
+
+        Path path = resolveLocalPath();
+
+        // Only the frame headers are read; record bodies are skipped without decoding
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_SIZE))) {
+            long count = 0;
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                input.skipNBytes(length);
+                count++;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.debug("ProtobufChipmunkReader closed");
+    }
+
+    /**
+     * Opens the frames starting at an indexed position, skipping a further number of frames
+     * by their length prefix without decoding them. Records before fromMillis are dropped
+     * before being turned into events, and the stream ends at the first record at or after
+     * untilMillis.
+     */
+    private Stream<ChipmunkEvent> readFrames(ChipmunkIndex.Entry start, long framesToSkip,
+                                             long fromMillis, long untilMillis) throws IOException {
+        ReplayProperties.Source source = replayProperties.getSource();
+        if (source.getType() == ReplayProperties.Source.SourceType.LOCAL_FILE && source.getLocal().isMemoryMapped()) {
+            return readMappedEvents(start, framesToSkip, fromMillis, untilMillis);
+        }
+
+        InputStream input = openSource(start.offset());
+        Spliterator<ChipmunkEvent> frames = eventPool() != null
+                ? new BufferedFrameSpliterator(new BufferedInputStream(input, READ_BUFFER_SIZE),
+                        start.ordinal(), framesToSkip, fromMillis, untilMillis)
+                : new FrameSpliterator(CodedInputStream.newInstance(input, READ_BUFFER_SIZE),
+                        start.ordinal(), framesToSkip, fromMillis, untilMillis);
+
+        return StreamSupport.stream(frames, false)
+                .onClose(() -> {
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        log.warn("Error closing Chipmunk input stream", e);
+                    }
+                });
+    }
+
+    private Stream<ChipmunkEvent> readMappedEvents(ChipmunkIndex.Entry start, long framesToSkip,
+                                                   long fromMillis, long untilMillis) throws IOException {
+        Path path = resolveLocalPath();
+        log.info("Memory-mapping binary Chipmunk file from local filesystem: {}", path);
+
+        MappedFrameCursor cursor = new MappedFrameCursor(path, replayProperties.getSource().getLocal().getMapWindowBytes());
+        cursor.seek(start.offset());
+
+        return StreamSupport.stream(new MappedFrameSpliterator(cursor, start.ordinal(), framesToSkip, fromMillis, untilMillis), false)
+                .onClose(() -> {
+                    try {
+                        cursor.close();
+                    } catch (IOException e) {
+                        log.warn("Error closing mapped Chipmunk file", e);
+                    }
+                });
+    }
+
+    private InputStream openSource(long offset) throws IOException {
+        ReplayProperties.Source source = replayProperties.getSource();
+
+        if (source.getType() == ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            Path path = resolveLocalPath();
+            log.info("Reading binary Chipmunk file from local filesystem: {}", path);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            channel.position(offset);
+            return Channels.newInputStream(channel);
+        }
+
+        ReplayProperties.Source.Minio minioConfig = source.getMinio();
+        log.info("Reading binary Chipmunk file from MinIO: bucket={}, key={}",
+                minioConfig.getBucketName(), minioConfig.getObjectKey());
+
+        return objectSource.open(minioConfig.getBucketName(), minioConfig.getObjectKey(), offset);
+    }
+
+    /**
+     * Gets the pool events are decoded into, creating it on first use.
+     *
+     * @return The pool, or null if pooling is disabled
+     */
+    private synchronized ChipmunkEventPool eventPool() {
+        ReplayProperties.EventPool config = replayProperties.getEventPool();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        if (eventPool == null) {
+            eventPool = new ChipmunkEventPool(config.getCapacity());
+        }
+        return eventPool;
+    }
+
+    /**
+     * Loads the offset index of the configured source. Local indexes are built on first use;
+     * MinIO objects rely on the sidecar uploaded by the chipmunk-generator.
+     *
+     * @return The index, or null if indexing is disabled or no index exists
+     */
+    private ChipmunkIndex loadIndex() throws IOException {
+        ReplayProperties.Source source = replayProperties.getSource();
+        if (!source.getIndex().isEnabled()) {
+            return null;
+        }
+
+        if (source.getType() == ReplayProperties.Source.SourceType.LOCAL_FILE) {
+            return ChipmunkIndex.loadOrBuild(resolveLocalPath(), source.getIndex().getStride());
+        }
+
+        ReplayProperties.Source.Minio minioConfig = source.getMinio();
+        String indexKey = minioConfig.getObjectKey() + ChipmunkIndex.SIDECAR_SUFFIX;
+        byte[] indexBytes = objectSource.readIfExists(minioConfig.getBucketName(), indexKey);
+        if (indexBytes == null) {
+            log.info("No index found at s3://{}/{}, frames before the seek target will be read in sequence",
+                    minioConfig.getBucketName(), indexKey);
+            return null;
+        }
+
+        return ChipmunkIndex.read(new ByteArrayInputStream(indexBytes));
+    }
+
+    private Path resolveLocalPath() throws IOException {
+        String filePath = replayProperties.getSource().getLocal().getFilePath();
+        Path path = Paths.get(filePath);
+
+        if (!Files.exists(path)) {
+            throw new IOException("Chipmunk file not found: " + filePath);
+        }
+
+        return path;
+    }
+
+    /**
+     * Frame walk shared by both spliterators: line numbering, frames skipped by length, and the
+     * time window. Files are in timestamp order, so records are dropped only until the first one
+     * inside the window, and the walk ends at the first one past it.
+     */
+    private abstract class WindowedFrameSpliterator extends Spliterators.AbstractSpliterator<ChipmunkEvent> {
+
+        protected long lineNumber;
+        protected long framesToSkip;
+        protected final ChipmunkEventPool pool;
+        private final EventIdNamespace namespace;
+        private long fromMillis;
+        private final long untilMillis;
+        private boolean pastWindow;
+
+        WindowedFrameSpliterator(long firstOrdinal, long framesToSkip, long fromMillis, long untilMillis) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.lineNumber = firstOrdinal;
+            this.framesToSkip = framesToSkip;
+            this.pool = eventPool();
+            this.namespace = EventIdNamespace.forSource(replayProperties.getSource());
+            this.fromMillis = fromMillis;
+            this.untilMillis = untilMillis;
+        }
+
+        /**
+         * Hands the record to the action if it falls in the window.
+         *
+         * @return true if an event was emitted
+         */
+        protected boolean emit(ChipmunkRecord record, Consumer<? super ChipmunkEvent> action)
+                throws InvalidProtocolBufferException {
+            if (!inWindow(record.getTimestamp())) {
+                return false;
+            }
+            action.accept(recordDecoder.decode(record, lineNumber, namespace));
+            return true;
+        }
+
+        /**
+         * Decodes the frame into a pooled event and hands it to the action if it falls in the window.
+         *
+         * @return true if an event was emitted
+         */
+        protected boolean emitPooled(ByteBuffer frame, Consumer<? super ChipmunkEvent> action)
+                throws InvalidProtocolBufferException {
+            ChipmunkEvent event = pool.acquire();
+            try {
+                recordDecoder.decodeInto(frame, lineNumber, namespace, event);
+            } catch (InvalidProtocolBufferException e) {
+                event.recycle();
+                throw e;
+            }
+
+            if (!inWindow(Math.floorDiv(event.getEpochNanos(), NANOS_PER_MILLI))) {
+                event.recycle();
+                return false;
+            }
+            action.accept(event);
+            return true;
+        }
+
+        private boolean inWindow(long timestamp) {
+            if (timestamp < fromMillis) {
+                return false;
+            }
+            if (timestamp >= untilMillis) {
+                pastWindow = true;
+                return false;
+            }
+            fromMillis = Long.MIN_VALUE;
+            return true;
+        }
+
+        protected boolean isPastWindow() {
+            return pastWindow;
+        }
+    }
+
+    /**
+     * Lazily walks the length-prefixed frames of a Chipmunk stream, one record per advance.
+     * Frames that fail to decode are skipped, mirroring how the JSON readers skip invalid lines.
+     */
+    private final class FrameSpliterator extends WindowedFrameSpliterator {
+
+        private final CodedInputStream input;
+
+        FrameSpliterator(CodedInputStream input, long firstOrdinal, long framesToSkip,
+                         long fromMillis, long untilMillis) {
+            super(firstOrdinal, framesToSkip, fromMillis, untilMillis);
+            this.input = input;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ChipmunkEvent> action) {
+            try {
+                while (framesToSkip > 0 && !input.isAtEnd()) {
+                    input.resetSizeCounter();
+                    input.skipRawBytes(ChipmunkRecordDecoder.readFrameLength(input));
+                    lineNumber++;
+                    framesToSkip--;
+                }
+
+                while (!isPastWindow() && !input.isAtEnd()) {
+                    // Keep the byte counter from overflowing on archives larger than 2 GB
+                    input.resetSizeCounter();
+                    lineNumber++;
+
+                    // A bad length prefix leaves no way to find the next frame, so it ends the read
+                    int length = ChipmunkRecordDecoder.readFrameLength(input);
+                    try {
+                        if (emit(ChipmunkRecordDecoder.readRecord(input, length), action)) {
+                            return true;
+                        }
+                    } catch (InvalidProtocolBufferException e) {
+                        log.warn("Failed to decode Chipmunk frame {}", lineNumber, e);
+                    }
+                }
+                return false;
+
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read Chipmunk frame " + lineNumber, e);
+            }
+        }
+    }
+
+    /**
+     * Walks the frames of a Chipmunk stream into pooled events. Each frame is read whole into one
+     * buffer that is reused for every frame and grown when a larger one arrives, so a malformed
+     * record still leaves the stream at the next frame and the payload is the only copy made.
+     */
+    private final class BufferedFrameSpliterator extends WindowedFrameSpliterator {
+
+        private final InputStream input;
+        private byte[] frameBuffer = new byte[INITIAL_FRAME_BUFFER_SIZE];
+
+        BufferedFrameSpliterator(InputStream input, long firstOrdinal, long framesToSkip,
+                                 long fromMillis, long untilMillis) {
+            super(firstOrdinal, framesToSkip, fromMillis, untilMillis);
+            this.input = input;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ChipmunkEvent> action) {
+            try {
+                int length;
+                while (framesToSkip > 0 && (length = ChipmunkRecordDecoder.readFrameLength(input)) >= 0) {
+                    input.skipNBytes(length);
+                    lineNumber++;
+                    framesToSkip--;
+                }
+
+                while (!isPastWindow() && (length = ChipmunkRecordDecoder.readFrameLength(input)) >= 0) {
+                    lineNumber++;
+                    if (frameBuffer.length < length) {
+                        frameBuffer = new byte[Math.max(length, frameBuffer.length * 2)];
+                    }
+                    if (input.readNBytes(frameBuffer, 0, length) < length) {
+                        throw new EOFException("Truncated Chipmunk frame");
+                    }
+
+                    try {
+                        if (emitPooled(ByteBuffer.wrap(frameBuffer, 0, length), action)) {
+                            return true;
+                        }
+                    } catch (InvalidProtocolBufferException e) {
+                        log.warn("Failed to decode Chipmunk frame {}", lineNumber, e);
+                    }
+                }
+                return false;
+
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read Chipmunk frame " + lineNumber, e);
+            }
+        }
+    }
+
+    /**
+     * Walks frames of a memory-mapped file, decoding each one straight from its mapped slice.
+     */
+    private final class MappedFrameSpliterator extends WindowedFrameSpliterator {
+
+        private final MappedFrameCursor cursor;
+
+        MappedFrameSpliterator(MappedFrameCursor cursor, long firstOrdinal, long framesToSkip,
+                               long fromMillis, long untilMillis) {
+            super(firstOrdinal, framesToSkip, fromMillis, untilMillis);
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ChipmunkEvent> action) {
+            try {
+                // Skipped frames are only sliced, never parsed
+                while (framesToSkip > 0 && cursor.nextFrame() != null) {
+                    lineNumber++;
+                    framesToSkip--;
+                }
+
+                ByteBuffer frame;
+                while (!isPastWindow() && (frame = cursor.nextFrame()) != null) {
+                    lineNumber++;
+
+                    try {
+                        boolean emitted = pool != null
+                                ? emitPooled(frame, action)
+                                : emit(ChipmunkRecordDecoder.parseRecord(frame), action);
+                        if (emitted) {
+                            return true;
+                        }
+                    } catch (InvalidProtocolBufferException e) {
+                        log.warn("Failed to decode Chipmunk frame {}", lineNumber, e);
+                    }
+                }
+                return false;
+
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map Chipmunk frame " + lineNumber, e);
+            }
+        }
+    }
+}
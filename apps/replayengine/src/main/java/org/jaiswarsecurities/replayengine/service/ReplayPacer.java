@@ -0,0 +1,92 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds each event back until its due time on a scaled copy of the original timeline.
+ * The timeline is anchored at the first event: an event that occurred {@code d} after it is
+ * due {@code d / speedMultiplier} after the pacer first saw it, measured on System.nanoTime().
+ * Waits park the thread until shortly before the due time and spin for the remainder, which
+ * avoids the millisecond granularity and timer slack of Thread.sleep. Events due no later than
+ * the previous wakeup (e.g. sharing a timestamp) are released together without waiting again.
+ * How late each wakeup fires against its due time is recorded as a histogram.
+ *
+ * <p>Not thread-safe; one pacer drives one replay loop.
+ */
+public class ReplayPacer {
+
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private final double nanosPerEventMilli;
+    private final long spinThresholdNanos;
+    private final Timer driftTimer;
+    private final Counter coalescedCounter;
+
+    private long originEventMillis = UNSET;
+    private long originNanos;
+    private long lastDueNanos = UNSET;
+
+    /**
+     * Creates a pacer.
+     *
+     * @param speedMultiplier Replay speed relative to the original timeline; 1.0 is real time, fractions are honoured
+     * @param spinThresholdNanos How long before the due time to stop parking and start spinning
+     * @param meterRegistry Registry for the drift histogram
+     */
+    public ReplayPacer(double speedMultiplier, long spinThresholdNanos, MeterRegistry meterRegistry) {
+        if (!(speedMultiplier > 0) || Double.isInfinite(speedMultiplier)) {
+            throw new IllegalArgumentException("Speed multiplier must be a positive number: " + speedMultiplier);
+        }
+        this.nanosPerEventMilli = 1_000_000.0 / speedMultiplier;
+        this.spinThresholdNanos = Math.max(0, spinThresholdNanos);
+
+        this.driftTimer = Timer.builder("replay.pacer.drift")
+                .description("How late paced events are released relative to their scheduled time")
+                .tag("component", "replay-pacer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("replay.pacer.coalesced")
+                .description("Events released without a wakeup of their own because an earlier one covered their due time")
+                .tag("component", "replay-pacer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until the event with the given timestamp is due.
+     *
+     * @param eventTimeMillis The event's original timestamp in epoch millis
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitEvent(long eventTimeMillis) throws InterruptedException {
+        if (originEventMillis == UNSET) {
+            originEventMillis = eventTimeMillis;
+            originNanos = System.nanoTime();
+        }
+
+        long dueNanos = originNanos + (long) ((eventTimeMillis - originEventMillis) * nanosPerEventMilli);
+        if (lastDueNanos != UNSET && dueNanos <= lastDueNanos) {
+            // Already reached when the previous wakeup fired
+            coalescedCounter.increment();
+            return;
+        }
+
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > spinThresholdNanos) {
+            LockSupport.parkNanos(remaining - spinThresholdNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while pacing replay");
+            }
+        }
+        while (dueNanos - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+
+        driftTimer.record(System.nanoTime() - dueNanos, TimeUnit.NANOSECONDS);
+        lastDueNanos = dueNanos;
+    }
+}
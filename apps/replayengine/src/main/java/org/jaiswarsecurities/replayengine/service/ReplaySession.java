@@ -0,0 +1,648 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.jaiswarsecurities.replayengine.model.ReplaySessionStatus;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * One replay run: reads its source, paces and publishes the events, and checkpoints progress.
+ * Sessions share the KafkaPublisher, and so its producers, but each keeps its own reader,
+ * settings, topics, counters, in-flight window, pipeline and checkpoint, so several can run at
+ * once. A session is started once; replaying again takes a new session.
+ */
+@Slf4j
+public class ReplaySession {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final int DEFAULT_WATERMARK_CAPACITY = 1 << 16;
+    private static final int MAX_WATERMARK_CAPACITY = 1 << 24;
+    private static final long FINAL_CHECKPOINT_TIMEOUT_SECONDS = 5;
+
+    public enum State {
+        CREATED, RUNNING, COMPLETED, STOPPED, FAILED
+    }
+
+    private final String id;
+    private final ChipmunkReader chipmunkReader;
+    private final KafkaPublisher kafkaPublisher;
+    private final CheckpointManager checkpointManager;
+    private final ReplayProperties replayProperties;
+    private final KafkaProperties.Topics topics;
+    private final MeterRegistry meterRegistry;
+    private final Executor executor;
+    private final ScheduledExecutorService checkpointScheduler;
+    private final boolean ownsCheckpointScheduler;
+
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicLong eventsProcessed = new AtomicLong(0);
+    private final AtomicLong eventsFailed = new AtomicLong(0);
+    private final List<Meter> meters = new ArrayList<>();
+
+    // Kept as a primitive so acknowledging an event does not build an Instant; 0 until the first ack
+    private volatile long lastEventEpochNanos;
+    private volatile State state = State.CREATED;
+    private volatile String currentFileId;
+    private volatile Instant windowStart;
+    private volatile Instant windowEnd;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+    private volatile InFlightWindow inFlightWindow;
+    private volatile AckWatermark ackWatermark;
+    // Read loop state: how resume positions are counted, and the stream position of the last dispatched event
+    private boolean resumeByLineNumber;
+    private long streamPosition;
+    private volatile PartitionedPublishPipeline pipeline;
+    private volatile ScheduledFuture<?> checkpointTask;
+
+    /**
+     * @param id Session id, used in logs and metric tags
+     * @param chipmunkReader Reader over the session's source
+     * @param kafkaPublisher Shared publisher
+     * @param checkpointManager Checkpoint store for the session
+     * @param replayProperties Settings of the session
+     * @param topics Topics to publish to, or null for the configured ones
+     * @param meterRegistry Registry for the pacer and session metrics
+     * @param executor Runs the replay loop; defaults to a virtual thread when virtual threads are
+     *                 enabled, otherwise the common pool
+     * @param checkpointScheduler Runs checkpoints; by default the session starts its own thread
+     */
+    @Builder
+    private ReplaySession(String id, ChipmunkReader chipmunkReader, KafkaPublisher kafkaPublisher,
+                          CheckpointManager checkpointManager, ReplayProperties replayProperties,
+                          KafkaProperties.Topics topics, MeterRegistry meterRegistry,
+                          Executor executor, ScheduledExecutorService checkpointScheduler) {
+        this.id = id;
+        this.chipmunkReader = chipmunkReader;
+        this.kafkaPublisher = kafkaPublisher;
+        this.checkpointManager = checkpointManager;
+        this.replayProperties = replayProperties;
+        this.topics = topics;
+        this.meterRegistry = meterRegistry;
+        boolean virtualThreads = replayProperties.getVirtualThreads().isEnabled();
+        this.executor = executor != null ? executor
+                : virtualThreads ? task -> Thread.ofVirtual().name("replay-" + id).start(task)
+                : ForkJoinPool.commonPool();
+        this.ownsCheckpointScheduler = checkpointScheduler == null;
+        this.checkpointScheduler = checkpointScheduler != null ? checkpointScheduler
+                : Executors.newSingleThreadScheduledExecutor(
+                        ReplayThreads.factory("checkpoint-scheduler-", virtualThreads));
+    }
+
+    /**
+     * Registers gauges for this session, tagged with its id.
+     */
+    public void registerMetrics() {
+        Tags tags = Tags.of("session", id);
+        meters.add(Gauge.builder("replay.session.events.processed", this, ReplaySession::getEventsProcessed)
+                .description("Number of events published by the session")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("replay.session.events.failed", this, ReplaySession::getEventsFailed)
+                .description("Number of events the session failed to publish")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("replay.session.is.running", this, session -> session.isRunning() ? 1.0 : 0.0)
+                .description("Whether the session is replaying (1=running, 0=not running)")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("replay.session.inflight.depth", this, ReplaySession::getInFlight)
+                .description("Number of the session's events awaiting acknowledgement")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Removes the gauges added by {@link #registerMetrics()}.
+     */
+    public void removeMetrics() {
+        meters.forEach(meterRegistry::remove);
+        meters.clear();
+    }
+
+    /**
+     * Starts replaying the events with timestamps in [windowStart, windowEnd).
+     *
+     * @param windowStart Inclusive start of the window, or null to replay from the first event
+     * @param windowEnd Exclusive end of the window, or null to replay to the last event
+     * @return A future that completes when the replay finishes or fails
+     */
+    public CompletableFuture<Void> start(Instant windowStart, Instant windowEnd) {
+        if (windowStart != null && windowEnd != null && !windowStart.isBefore(windowEnd)) {
+            throw new IllegalArgumentException("Replay window start " + windowStart + " must be before end " + windowEnd);
+        }
+        synchronized (this) {
+            if (state != State.CREATED) {
+                throw new IllegalStateException("Replay session " + id + " has already been started");
+            }
+            state = State.RUNNING;
+        }
+        isRunning.set(true);
+        startedAt = Instant.now();
+
+        log.info("Starting replay session {} with mode: {}, window: [{}, {})", id, replayProperties.getSpeedMode(),
+                windowStart != null ? windowStart : "start", windowEnd != null ? windowEnd : "end");
+
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        currentFileId = generateFileIdentifier();
+        inFlightWindow = createInFlightWindow();
+        pipeline = createPipeline();
+
+        startCheckpointTask();
+
+        try {
+            // Load existing checkpoint if available
+            ReplayCheckpoint existingCheckpoint = checkpointManager.loadCheckpoint(currentFileId);
+            if (existingCheckpoint != null) {
+                log.info("Resuming replay session {} from checkpoint: line={}, events={}", id,
+                        existingCheckpoint.getCurrentLineNumber(), existingCheckpoint.getEventsPublished());
+            }
+            long resumeFrom = existingCheckpoint != null ? existingCheckpoint.getCurrentLineNumber() : 0;
+            resumeByLineNumber = windowStart == null && windowEnd == null && chipmunkReader.resumesByLineNumber();
+            streamPosition = resumeFrom;
+            ackWatermark = new AckWatermark(watermarkCapacity(), resumeFrom);
+
+            return switch (replayProperties.getSpeedMode()) {
+                case REAL_TIME -> startPacedReplay(existingCheckpoint, 1.0, "Real-time");
+                case ACCELERATED -> startPacedReplay(existingCheckpoint, replayProperties.getSpeedMultiplier(), "Accelerated");
+                case BURST -> startReplay(existingCheckpoint, null, "Burst");
+            };
+
+        } catch (Exception e) {
+            fail(e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops the replay, leaving its checkpoint so a later session over the same source resumes.
+     */
+    public void stop() {
+        if (!isRunning.compareAndSet(true, false)) {
+            log.warn("Replay session {} is not currently running", id);
+            return;
+        }
+
+        log.info("Stopping replay session {}...", id);
+        state = State.STOPPED;
+        finish();
+        // Every send has completed, so this records exactly where to resume
+        saveFinalCheckpoint();
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * Replays events spaced as on their original timeline, compressed by the speed multiplier.
+     */
+    private CompletableFuture<Void> startPacedReplay(ReplayCheckpoint checkpoint, double speedMultiplier, String modeName) {
+        ReplayPacer pacer = new ReplayPacer(speedMultiplier,
+                TimeUnit.MICROSECONDS.toNanos(replayProperties.getPacing().getSpinThresholdMicros()),
+                meterRegistry);
+        return startReplay(checkpoint, pacer, modeName);
+    }
+
+    /**
+     * Runs the read loop on the executor, pacing events when a pacer is given; burst replays get
+     * their flow control from the in-flight window inside publishEvent.
+     */
+    private CompletableFuture<Void> startReplay(ReplayCheckpoint checkpoint, ReplayPacer pacer, String modeName) {
+        return CompletableFuture.runAsync(() -> {
+            try (Stream<ChipmunkEvent> events = openEvents(checkpoint)) {
+
+                Iterator<ChipmunkEvent> iterator = events.iterator();
+                while (isRunning.get() && iterator.hasNext()) {
+                    ChipmunkEvent event = iterator.next();
+                    try {
+                        if (pacer != null) {
+                            awaitEvent(pacer, event);
+                        }
+                        dispatchEvent(event);
+
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        log.info("{} replay session {} interrupted", modeName, id);
+                        stop();
+                        return;
+                    } catch (Exception e) {
+                        log.error("Error in {} replay session {}", modeName.toLowerCase(), id, e);
+                        eventsFailed.incrementAndGet();
+                    }
+                }
+
+                awaitPipeline();
+                completeReplay();
+
+            } catch (Exception e) {
+                log.error("{} replay session {} failed", modeName, id, e);
+                fail(e);
+                throw new RuntimeException(modeName + " replay failed", e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Opens the event stream for the replay window, seeking past the events already published
+     * when resuming from a checkpoint.
+     */
+    private Stream<ChipmunkEvent> openEvents(ReplayCheckpoint checkpoint) throws IOException {
+        long resumeFrom = checkpoint != null ? checkpoint.getCurrentLineNumber() : 0;
+
+        if (windowStart != null || windowEnd != null) {
+            Stream<ChipmunkEvent> events = chipmunkReader.readEventsBetween(windowStart, windowEnd);
+            // Checkpoints of a windowed replay count events from the start of the window
+            return resumeFrom > 0 ? events.skip(resumeFrom) : events;
+        }
+
+        if (resumeFrom <= 0) {
+            return chipmunkReader.readEvents();
+        }
+        return chipmunkReader.readEventsFrom(resumeFrom);
+    }
+
+    /**
+     * Waits until the event is due, recycling it if the replay is interrupted first.
+     */
+    private void awaitEvent(ReplayPacer pacer, ChipmunkEvent event) throws InterruptedException {
+        try {
+            pacer.awaitEvent(Math.floorDiv(event.getEpochNanos(), NANOS_PER_MILLI));
+        } catch (InterruptedException e) {
+            event.recycle();
+            throw e;
+        }
+    }
+
+    /**
+     * Registers the event with the ack watermark, then hands it to the publishing pipeline when
+     * one is configured, otherwise publishes it from the reader thread. An event that is not
+     * handed over is recycled here.
+     */
+    private void dispatchEvent(ChipmunkEvent event) throws InterruptedException {
+        AckWatermark watermark = ackWatermark;
+        long sequence = watermark.track(resumePosition(event));
+        event.setReplaySequence(sequence);
+
+        try {
+            PartitionedPublishPipeline current = pipeline;
+            if (current != null) {
+                current.submit(event);
+            } else {
+                publishEvent(event);
+            }
+        } catch (RuntimeException e) {
+            watermark.fail(sequence);
+            event.recycle();
+            throw e;
+        } catch (InterruptedException e) {
+            event.recycle();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets where to resume once the event is acknowledged. Readers that seek by line or frame
+     * number resume after the event's own line, so lines that failed to parse are not counted
+     * against the position; windowed and merged reads resume after as many events as were read.
+     */
+    private long resumePosition(ChipmunkEvent event) {
+        streamPosition++;
+        return resumeByLineNumber ? event.getLineNumber() : streamPosition;
+    }
+
+    /**
+     * Publishes an event from a pipeline lane, counting errors the way the reader loop does.
+     */
+    private void publishFromLane(ChipmunkEvent event) throws InterruptedException {
+        try {
+            publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Error publishing event {} from pipeline lane", event.getEventId(), e);
+            eventsFailed.incrementAndGet();
+            ackWatermark.fail(event.getReplaySequence());
+            event.recycle();
+        } catch (InterruptedException e) {
+            event.recycle();
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes an event, first waiting for room in the in-flight window if flow control is enabled.
+     * The event is recycled once its send completes; if this throws, the send was never made and
+     * the caller still owns the event.
+     */
+    private void publishEvent(ChipmunkEvent event) throws InterruptedException {
+        InFlightWindow window = inFlightWindow;
+        if (window != null) {
+            window.acquire();
+        }
+
+        // The event may be recycled once its send completes, so keep its sequence number
+        long sequence = event.getReplaySequence();
+        AckWatermark watermark = ackWatermark;
+        long sendTime = System.nanoTime();
+        CompletableFuture<RecordMetadata> future;
+        try {
+            future = topics != null ? kafkaPublisher.publishEvent(event, topics) : kafkaPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            if (window != null) {
+                window.release(System.nanoTime() - sendTime, true);
+            }
+            throw e;
+        }
+
+        future.whenComplete((metadata, exception) -> {
+            if (window != null) {
+                window.release(System.nanoTime() - sendTime, exception != null);
+            }
+
+            if (exception == null) {
+                eventsProcessed.incrementAndGet();
+                lastEventEpochNanos = event.getEpochNanos();
+                watermark.acknowledge(sequence);
+            } else {
+                watermark.fail(sequence);
+                eventsFailed.incrementAndGet();
+                log.warn("Failed to publish event: {}", event.getEventId(), exception);
+            }
+
+            // Nothing reads the event after its send completes, so a pooled one can be reused
+            event.recycle();
+        });
+    }
+
+    private void completeReplay() {
+        if (!isRunning.compareAndSet(true, false)) {
+            // Stopped part way; the checkpoint is kept for a later resume
+            return;
+        }
+
+        // Finishing flushes the sends still in flight, so the counts below are final
+        state = State.COMPLETED;
+        finish();
+        log.info("Replay session {} completed successfully. Events processed: {}, failed: {}",
+                id, eventsProcessed.get(), eventsFailed.get());
+
+        if (ackWatermark.isFrozen()) {
+            // Events from the first failed send on are not all in Kafka; keep them for a resume
+            log.warn("Replay session {} had failed sends; keeping its checkpoint at position {}",
+                    id, ackWatermark.getPosition());
+            saveFinalCheckpoint();
+        } else {
+            // Delete checkpoint since replay completed successfully
+            checkpointManager.deleteCheckpoint(currentFileId);
+        }
+        finishedAt = Instant.now();
+    }
+
+    private void fail(Exception e) {
+        failure = e.getMessage();
+        if (isRunning.compareAndSet(true, false)) {
+            state = State.FAILED;
+            finish();
+            saveFinalCheckpoint();
+            finishedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Releases what the run holds. The shared publisher is flushed, never closed, so other
+     * sessions keep their producer.
+     */
+    private void finish() {
+        stopCheckpointTask();
+        shutdownPipeline();
+        kafkaPublisher.flush();
+
+        try {
+            chipmunkReader.close();
+        } catch (Exception e) {
+            log.warn("Error closing chipmunk reader", e);
+        }
+    }
+
+    private void startCheckpointTask() {
+        ReplayProperties.Checkpoint checkpoint = replayProperties.getCheckpoint();
+        long intervalMillis = checkpoint.getIntervalMillis() > 0
+                ? checkpoint.getIntervalMillis()
+                : TimeUnit.SECONDS.toMillis(checkpoint.getIntervalSeconds());
+        checkpointTask = checkpointScheduler.scheduleAtFixedRate(this::createCheckpoint,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopCheckpointTask() {
+        ScheduledFuture<?> task = checkpointTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        if (ownsCheckpointScheduler) {
+            checkpointScheduler.shutdown();
+            try {
+                if (!checkpointScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    checkpointScheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                checkpointScheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void createCheckpoint() {
+        if (isRunning.get()) {
+            saveCheckpoint();
+        }
+    }
+
+    /**
+     * Saves the last checkpoint of the run and waits until it is durable, so it survives the
+     * process exiting right after the session ends.
+     */
+    private void saveFinalCheckpoint() {
+        try {
+            saveCheckpoint().get(FINAL_CHECKPOINT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Final checkpoint of replay session {} may not be durable", id, e);
+        }
+    }
+
+    /**
+     * Saves the ack watermark as the resume position, along with the session's counts.
+     *
+     * @return A future that completes once the checkpoint is durable
+     */
+    private CompletableFuture<Void> saveCheckpoint() {
+        AckWatermark watermark = ackWatermark;
+        if (watermark == null) {
+            // Stopped before the replay got as far as reading its checkpoint
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ReplayCheckpoint checkpoint = ReplayCheckpoint.builder()
+                .fileIdentifier(currentFileId)
+                .currentLineNumber(watermark.getPosition())
+                .checkpointTime(Instant.now())
+                .eventsPublished(eventsProcessed.get())
+                .eventsFailed(eventsFailed.get())
+                .lastEventTime(lastEventEpochNanos != 0 ? Instant.ofEpochSecond(0, lastEventEpochNanos) : null)
+                .speedMode(replayProperties.getSpeedMode().getValue())
+                .build();
+
+        return checkpointManager.saveCheckpoint(checkpoint);
+    }
+
+    private String generateFileIdentifier() {
+        String fileId;
+        ReplayProperties.Source.Merge merge = replayProperties.getSource().getMerge();
+        if (merge.isEnabled()) {
+            // Merged replays are identified by what selects their files
+            fileId = "merge:" + String.join(",", merge.getFiles())
+                    + (merge.getManifest() != null ? "+manifest=" + merge.getManifest() : "")
+                    + (merge.getPrefix() != null ? "+prefix=" + merge.getPrefix() : "");
+        } else if (replayProperties.getSource().getType() == ReplayProperties.Source.SourceType.MINIO) {
+            fileId = replayProperties.getSource().getMinio().getBucketName() + "/" +
+                   replayProperties.getSource().getMinio().getObjectKey();
+        } else {
+            fileId = replayProperties.getSource().getLocal().getFilePath();
+        }
+
+        // Windowed replays of the same file keep separate checkpoints
+        if (windowStart != null || windowEnd != null) {
+            fileId += "@" + (windowStart != null ? windowStart : "") + ".." + (windowEnd != null ? windowEnd : "");
+        }
+        return fileId;
+    }
+
+    /**
+     * Gets a snapshot of the session's progress.
+     */
+    public ReplaySessionStatus getStatus() {
+        return ReplaySessionStatus.builder()
+                .id(id)
+                .state(state.name())
+                .source(currentFileId != null ? currentFileId : generateFileIdentifier())
+                .speedMode(replayProperties.getSpeedMode().getValue())
+                .eventsProcessed(eventsProcessed.get())
+                .eventsFailed(eventsFailed.get())
+                .inFlight(getInFlight())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(failure)
+                .build();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isRunning() {
+        return isRunning.get();
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed.get();
+    }
+
+    public long getEventsFailed() {
+        return eventsFailed.get();
+    }
+
+    public int getInFlight() {
+        InFlightWindow window = inFlightWindow;
+        return window != null ? window.getInFlight() : 0;
+    }
+
+    public int getInFlightLimit() {
+        InFlightWindow window = inFlightWindow;
+        return window != null ? window.getLimit() : 0;
+    }
+
+    public int getPipelineQueued() {
+        PartitionedPublishPipeline current = pipeline;
+        return current != null ? current.getQueued() : 0;
+    }
+
+    private PartitionedPublishPipeline createPipeline() {
+        ReplayProperties.Pipeline config = replayProperties.getPipeline();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        log.info("Publishing session {} through {} pipeline lanes", id, config.getLanes());
+        return new PartitionedPublishPipeline(config.getLanes(), config.getQueueCapacity(),
+                kafkaPublisher::generateKey, this::publishFromLane);
+    }
+
+    /**
+     * Waits for the pipeline lanes to publish everything the reader handed them.
+     */
+    private void awaitPipeline() throws InterruptedException {
+        PartitionedPublishPipeline current = pipeline;
+        if (current != null) {
+            current.awaitCompletion();
+        }
+    }
+
+    private void shutdownPipeline() {
+        PartitionedPublishPipeline current = pipeline;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * Sizes the watermark ring for every event that can be dispatched but not yet acknowledged:
+     * the largest in-flight window plus what the pipeline lanes can hold. Without flow control
+     * the ring itself bounds the events in flight.
+     */
+    private int watermarkCapacity() {
+        ReplayProperties.FlowControl flowControl = replayProperties.getFlowControl();
+        long capacity = flowControl.isEnabled() ? flowControl.getMaxInFlight() : DEFAULT_WATERMARK_CAPACITY;
+        ReplayProperties.Pipeline config = replayProperties.getPipeline();
+        if (config.isEnabled()) {
+            capacity += (long) config.getLanes() * (config.getQueueCapacity() + 1);
+        }
+        return (int) Math.min(capacity, MAX_WATERMARK_CAPACITY);
+    }
+
+    private InFlightWindow createInFlightWindow() {
+        ReplayProperties.FlowControl flowControl = replayProperties.getFlowControl();
+        if (!flowControl.isEnabled()) {
+            return null;
+        }
+        return new InFlightWindow(replayProperties.getBurstBatchSize(),
+                flowControl.getMinInFlight(), flowControl.getMaxInFlight(), flowControl.getLatencyTolerance());
+    }
+}
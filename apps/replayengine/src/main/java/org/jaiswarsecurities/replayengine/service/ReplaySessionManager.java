@@ -0,0 +1,309 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ReplaySessionRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Runs many independent replay sessions at once, e.g. one per QA scenario, in a single engine.
+ *
+ * <p>Each session gets its own reader over its own source, its own speed mode and window, an
+ * optional topic prefix, a checkpoint file (or DynamoDB item) named after the session, and
+ * gauges tagged with its id. All sessions share the KafkaPublisher and so its producers, one executor for their read
+ * loops and one scheduler for their checkpoints. With {@code replay.virtual-threads.enabled}
+ * each read loop runs on its own virtual thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReplaySessionManager {
+
+    // Session ids end up in file names and metric tags
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final ChipmunkReaderFactory readerFactory;
+    private final KafkaPublisher kafkaPublisher;
+    private final ReplayProperties replayProperties;
+    private final KafkaProperties kafkaProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DynamoDbCheckpointStore> dynamoDbCheckpointStore;
+
+    private final Map<String, ReplaySession> sessions = new LinkedHashMap<>();
+
+    private ExecutorService replayExecutor;
+    private ScheduledExecutorService checkpointScheduler;
+
+    @PostConstruct
+    public void init() {
+        boolean virtualThreads = replayProperties.getVirtualThreads().isEnabled();
+        replayExecutor = ReplayThreads.newExecutor("replay-session-", virtualThreads);
+        // Checkpoints are written on the scheduler's threads; virtual ones are cheap enough to
+        // give every session its own, so one slow write does not hold up the others
+        checkpointScheduler = Executors.newScheduledThreadPool(
+                virtualThreads ? Math.max(1, replayProperties.getSessions().getMaxConcurrent()) : 1,
+                ReplayThreads.factory("session-checkpoint-scheduler-", virtualThreads));
+    }
+
+    /**
+     * Creates a session and starts its replay.
+     *
+     * @param id Session id: letters, digits, '.', '_' or '-', at most 64 characters
+     * @param request Overrides of the configured replay settings; may be null
+     * @return The running session
+     * @throws IllegalArgumentException if the id or request is invalid
+     * @throws IllegalStateException if the session exists or too many sessions are running
+     */
+    public ReplaySession createSession(String id, ReplaySessionRequest request) {
+        if (id == null || !SESSION_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid session id '" + id + "': use up to 64 letters, digits, '.', '_' or '-'");
+        }
+        if (request == null) {
+            request = new ReplaySessionRequest();
+        }
+
+        ReplayProperties properties = sessionProperties(id, request);
+        ReplaySession session;
+        synchronized (sessions) {
+            if (sessions.containsKey(id)) {
+                throw new IllegalStateException("Replay session " + id + " already exists");
+            }
+            // A session takes its slot when it is added, before it starts, so concurrent creates cannot overshoot
+            long active = sessions.values().stream().filter(ReplaySessionManager::isActive).count();
+            if (active >= replayProperties.getSessions().getMaxConcurrent()) {
+                throw new IllegalStateException("Already running the maximum of " + active + " replay sessions");
+            }
+
+            session = ReplaySession.builder()
+                    .id(id)
+                    .chipmunkReader(readerFactory.create(properties))
+                    .kafkaPublisher(kafkaPublisher)
+                    .checkpointManager(new CheckpointManager(properties, objectMapper,
+                            dynamoDbCheckpointStore.getIfAvailable(), id))
+                    .replayProperties(properties)
+                    .topics(sessionTopics(request.getTopicPrefix()))
+                    .meterRegistry(meterRegistry)
+                    .executor(replayExecutor)
+                    .checkpointScheduler(checkpointScheduler)
+                    .build();
+            sessions.put(id, session);
+        }
+
+        session.registerMetrics();
+        try {
+            session.start(properties.getWindow().getStart(), properties.getWindow().getEnd());
+        } catch (RuntimeException e) {
+            removeSession(id);
+            throw e;
+        }
+        log.info("Created replay session {} over {}", id, session.getStatus().getSource());
+        return session;
+    }
+
+    /**
+     * Gets a session by id.
+     *
+     * @return The session, or null if there is none with that id
+     */
+    public ReplaySession getSession(String id) {
+        synchronized (sessions) {
+            return sessions.get(id);
+        }
+    }
+
+    /**
+     * Gets every session, running or finished, in the order they were created.
+     */
+    public Collection<ReplaySession> getSessions() {
+        synchronized (sessions) {
+            return new ArrayList<>(sessions.values());
+        }
+    }
+
+    /**
+     * Stops a session if it is running and forgets it.
+     *
+     * @return true if the session existed
+     */
+    public boolean deleteSession(String id) {
+        ReplaySession session = removeSession(id);
+        if (session == null) {
+            return false;
+        }
+        if (session.isRunning()) {
+            session.stop();
+        }
+        log.info("Deleted replay session {}", id);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        getSessions().stream()
+                .filter(ReplaySession::isRunning)
+                .forEach(ReplaySession::stop);
+        checkpointScheduler.shutdownNow();
+        replayExecutor.shutdownNow();
+        try {
+            replayExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tells whether the session holds one of the max-concurrent slots: it has been created and not finished.
+     */
+    private static boolean isActive(ReplaySession session) {
+        ReplaySession.State state = session.getState();
+        return state == ReplaySession.State.CREATED || state == ReplaySession.State.RUNNING;
+    }
+
+    private ReplaySession removeSession(String id) {
+        ReplaySession session;
+        synchronized (sessions) {
+            session = sessions.remove(id);
+        }
+        if (session != null) {
+            session.removeMetrics();
+        }
+        return session;
+    }
+
+    /**
+     * Builds the session's settings from the configured ones and the request's overrides. Only
+     * the source, speed, window and checkpoint differ; the other sections are shared.
+     */
+    private ReplayProperties sessionProperties(String id, ReplaySessionRequest request) {
+        ReplayProperties properties = new ReplayProperties();
+        properties.setSpeedMode(request.getSpeedMode() != null
+                ? ReplayProperties.SpeedMode.fromValue(request.getSpeedMode())
+                : replayProperties.getSpeedMode());
+        properties.setSpeedMultiplier(request.getSpeedMultiplier() != null
+                ? request.getSpeedMultiplier()
+                : replayProperties.getSpeedMultiplier());
+        if (properties.getSpeedMultiplier() <= 0) {
+            throw new IllegalArgumentException("Speed multiplier must be positive: " + properties.getSpeedMultiplier());
+        }
+        properties.setBurstBatchSize(replayProperties.getBurstBatchSize());
+        properties.setPacing(replayProperties.getPacing());
+        properties.setFlowControl(replayProperties.getFlowControl());
+        properties.setPipeline(replayProperties.getPipeline());
+        properties.setEventPool(replayProperties.getEventPool());
+        properties.setSessions(replayProperties.getSessions());
+        properties.setSource(sessionSource(request));
+
+        ReplayProperties.Window window = new ReplayProperties.Window();
+        window.setStart(request.getStart() != null ? request.getStart() : replayProperties.getWindow().getStart());
+        window.setEnd(request.getEnd() != null ? request.getEnd() : replayProperties.getWindow().getEnd());
+        properties.setWindow(window);
+
+        ReplayProperties.Checkpoint configuredCheckpoint = replayProperties.getCheckpoint();
+        ReplayProperties.Checkpoint checkpoint = new ReplayProperties.Checkpoint();
+        checkpoint.setEnabled(configuredCheckpoint.isEnabled());
+        checkpoint.setIntervalSeconds(configuredCheckpoint.getIntervalSeconds());
+        checkpoint.setIntervalMillis(configuredCheckpoint.getIntervalMillis());
+        checkpoint.setStorageType(configuredCheckpoint.getStorageType());
+        checkpoint.setFilePath(sessionCheckpointPath(configuredCheckpoint.getFilePath(), id));
+        checkpoint.setJournal(configuredCheckpoint.getJournal());
+        checkpoint.setDynamodb(configuredCheckpoint.getDynamodb());
+        properties.setCheckpoint(checkpoint);
+
+        return properties;
+    }
+
+    /**
+     * Gets the source of the session: the configured one, or the object key, file path or
+     * merged files given in the request.
+     */
+    private ReplayProperties.Source sessionSource(ReplaySessionRequest request) {
+        ReplayProperties.Source configured = replayProperties.getSource();
+        List<String> files = request.getFiles() != null ? request.getFiles() : List.of();
+        int overrides = (request.getObjectKey() != null ? 1 : 0) + (request.getFilePath() != null ? 1 : 0)
+                + (files.isEmpty() ? 0 : 1);
+        if (overrides == 0) {
+            return configured;
+        }
+        if (overrides > 1) {
+            throw new IllegalArgumentException("Give only one of objectKey, filePath or files");
+        }
+
+        ReplayProperties.Source source = new ReplayProperties.Source();
+        source.setType(request.getObjectKey() != null ? ReplayProperties.Source.SourceType.MINIO
+                : request.getFilePath() != null ? ReplayProperties.Source.SourceType.LOCAL_FILE
+                : configured.getType());
+        source.setFormat(configured.getFormat());
+        source.setIndex(configured.getIndex());
+        // The configured namespace names the configured file, so ids come from the session's own files
+
+        ReplayProperties.Source.Minio minio = new ReplayProperties.Source.Minio();
+        minio.setBucketName(configured.getMinio().getBucketName());
+        minio.setObjectKey(request.getObjectKey());
+        minio.setPrefetch(configured.getMinio().getPrefetch());
+        source.setMinio(minio);
+
+        ReplayProperties.Source.Local local = new ReplayProperties.Source.Local();
+        local.setFilePath(request.getFilePath());
+        local.setMemoryMapped(configured.getLocal().isMemoryMapped());
+        local.setMapWindowBytes(configured.getLocal().getMapWindowBytes());
+        source.setLocal(local);
+
+        ReplayProperties.Source.Merge merge = new ReplayProperties.Source.Merge();
+        merge.setEnabled(!files.isEmpty());
+        merge.setFiles(new ArrayList<>(files));
+        merge.setSuffix(configured.getMerge().getSuffix());
+        source.setMerge(merge);
+
+        return source;
+    }
+
+    /**
+     * Gets the configured topics with the prefix added, or null to publish to the configured ones.
+     */
+    private KafkaProperties.Topics sessionTopics(String topicPrefix) {
+        if (topicPrefix == null || topicPrefix.isEmpty()) {
+            return null;
+        }
+        KafkaProperties.Topics configured = kafkaProperties.getTopics();
+        KafkaProperties.Topics topics = new KafkaProperties.Topics();
+        topics.setTradeEvents(topicPrefix + configured.getTradeEvents());
+        topics.setMarketData(topicPrefix + configured.getMarketData());
+        topics.setFxRates(topicPrefix + configured.getFxRates());
+        return topics;
+    }
+
+    /**
+     * Names the session's checkpoint file after it, next to the configured one:
+     * /tmp/replay-checkpoint.journal becomes /tmp/replay-checkpoint-{id}.journal.
+     */
+    static String sessionCheckpointPath(String configuredPath, String id) {
+        Path path = Paths.get(configuredPath);
+        String fileName = path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String sessionFileName = extension > 0
+                ? fileName.substring(0, extension) + "-" + id + fileName.substring(extension)
+                : fileName + "-" + id;
+        return path.resolveSibling(sessionFileName).toString();
+    }
+}
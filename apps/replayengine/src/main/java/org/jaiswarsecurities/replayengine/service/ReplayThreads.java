@@ -0,0 +1,42 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads for the blocking parts of a replay: read loops that park while pacing, S3 prefetch
+ * that waits on ranged GETs, and checkpoint writes. With {@code replay.virtual-threads.enabled}
+ * they are virtual threads, which unmount from their carrier while blocked, so the number of
+ * concurrent sessions is no longer bounded by platform threads. Otherwise they are daemon
+ * platform threads, as before.
+ */
+final class ReplayThreads {
+
+    private ReplayThreads() {
+    }
+
+    /**
+     * Creates a factory naming its threads {@code namePrefix} followed by a counter from 1.
+     *
+     * @param namePrefix Prefix of the thread names
+     * @param virtual Whether to create virtual threads rather than daemon platform threads
+     */
+    static ThreadFactory factory(String namePrefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(namePrefix, 1).factory()
+                : Thread.ofPlatform().name(namePrefix, 1).daemon().factory();
+    }
+
+    /**
+     * Creates an executor for long blocking tasks: a new virtual thread per task, or a cached
+     * pool of daemon platform threads.
+     *
+     * @param namePrefix Prefix of the thread names
+     * @param virtual Whether to run tasks on virtual threads
+     */
+    static ExecutorService newExecutor(String namePrefix, boolean virtual) {
+        ThreadFactory factory = factory(namePrefix, virtual);
+        return virtual ? Executors.newThreadPerTaskExecutor(factory) : Executors.newCachedThreadPool(factory);
+    }
+}
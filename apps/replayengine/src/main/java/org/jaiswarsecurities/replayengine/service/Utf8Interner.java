@@ -0,0 +1,111 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps UTF-8 byte ranges to canonical Strings so low-cardinality fields such as regions, event
+ * types and instruments are turned into Strings once rather than once per record.
+ *
+ * <p>The table is open-addressed and never shrinks. Once it holds its maximum number of entries,
+ * or for values longer than {@link #MAX_LENGTH} bytes, a new String is returned without caching.
+ * Entries are immutable and published with plain writes; two threads racing to add a value may
+ * each get their own copy, which only costs one extra String.
+ */
+final class Utf8Interner {
+
+    static final int MAX_LENGTH = 64;
+
+    private final Entry[] table;
+    private final int mask;
+    private final int maxEntries;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxEntries Most distinct values kept; the table is sized to stay at most half full
+     */
+    Utf8Interner(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        this.table = new Entry[capacity];
+        this.mask = capacity - 1;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Gets the String for the UTF-8 bytes at buffer[offset, offset + length).
+     */
+    String intern(ByteBuffer buffer, int offset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        if (length > MAX_LENGTH) {
+            return decode(buffer, offset, length);
+        }
+
+        int hash = hash(buffer, offset, length);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            Entry entry = table[slot];
+            if (entry == null) {
+                if (size.incrementAndGet() > maxEntries) {
+                    size.decrementAndGet();
+                    return decode(buffer, offset, length);
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(offset, bytes);
+                entry = new Entry(hash, bytes, new String(bytes, StandardCharsets.UTF_8));
+                table[slot] = entry;
+                return entry.value;
+            }
+            if (entry.hash == hash && entry.matches(buffer, offset, length)) {
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of values cached.
+     */
+    int size() {
+        return size.get();
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        // Spread the high bits so short values that differ late still land in different slots
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+        final int hash;
+        final byte[] bytes;
+        final String value;
+
+        Entry(int hash, byte[] bytes, String value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(ByteBuffer buffer, int offset, int length) {
+            if (bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != buffer.get(offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
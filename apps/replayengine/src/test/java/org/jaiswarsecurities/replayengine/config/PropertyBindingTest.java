@@ -5,7 +5,9 @@ import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
 import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
 
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,4 +43,53 @@ class PropertyBindingTest {
         // This should work with Spring Boot's flexible binding
         assertEquals(ReplayProperties.Source.SourceType.LOCAL_FILE, replayProperties.getSource().getType());
     }
+    
+    @Test
+    void testReplayWindowBinding() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("replay.window.start", "2024-01-01T14:30:00Z");
+        properties.put("replay.window.end", "2024-01-01T15:00:00Z");
+        
+        ConfigurationPropertySource source = new MapConfigurationPropertySource(properties);
+        Binder binder = new Binder(source);
+        
+        ReplayProperties replayProperties = binder.bind("replay", ReplayProperties.class).get();
+        
+        assertEquals(Instant.parse("2024-01-01T14:30:00Z"), replayProperties.getWindow().getStart());
+        assertEquals(Instant.parse("2024-01-01T15:00:00Z"), replayProperties.getWindow().getEnd());
+    }
+    
+    @Test
+    void testKafkaPayloadFormatBinding() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("kafka.payload-format", "protobuf");
+        
+        ConfigurationPropertySource source = new MapConfigurationPropertySource(properties);
+        Binder binder = new Binder(source);
+        
+        KafkaProperties kafkaProperties = binder.bind("kafka", KafkaProperties.class).get();
+        
+        assertEquals(KafkaProperties.PayloadFormat.PROTOBUF, kafkaProperties.getPayloadFormat());
+        assertEquals(KafkaProperties.PayloadFormat.JSON, new KafkaProperties().getPayloadFormat());
+    }
+    
+    @Test
+    void testPartitioningStrategyBinding() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("kafka.partitioning.trade-events", "instrument");
+        properties.put("kafka.partitioning.fx-rates", "currency-pair");
+        properties.put("kafka.partitioning.composite-fields", "instrument,account");
+        
+        ConfigurationPropertySource source = new MapConfigurationPropertySource(properties);
+        Binder binder = new Binder(source);
+        
+        KafkaProperties kafkaProperties = binder.bind("kafka", KafkaProperties.class).get();
+        KafkaProperties.Partitioning partitioning = kafkaProperties.getPartitioning();
+        
+        assertEquals(KafkaProperties.Partitioning.KeyStrategy.INSTRUMENT, partitioning.getTradeEvents());
+        assertEquals(KafkaProperties.Partitioning.KeyStrategy.REGION_TYPE, partitioning.getMarketData());
+        assertEquals(KafkaProperties.Partitioning.KeyStrategy.CURRENCY_PAIR, partitioning.getFxRates());
+        assertEquals(List.of(KafkaProperties.Partitioning.KeyStrategy.INSTRUMENT, KafkaProperties.Partitioning.KeyStrategy.ACCOUNT),
+                partitioning.getCompositeFields());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package org.jaiswarsecurities.replayengine.controller;
+
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ReplayStartRequest;
+import org.jaiswarsecurities.replayengine.service.CheckpointManager;
+import org.jaiswarsecurities.replayengine.service.KafkaPublisher;
+import org.jaiswarsecurities.replayengine.service.ReplayScheduler;
+import org.jaiswarsecurities.replayengine.service.ReplaySessionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ReplayController.
+ */
+class ReplayControllerTest {
+
+    private static final Instant CONFIGURED_START = Instant.parse("2024-01-01T09:00:00Z");
+    private static final Instant CONFIGURED_END = Instant.parse("2024-01-01T17:00:00Z");
+
+    private ReplayScheduler replayScheduler;
+    private ReplayController controller;
+
+    @BeforeEach
+    void setUp() {
+        ReplayProperties replayProperties = new ReplayProperties();
+        replayProperties.getWindow().setStart(CONFIGURED_START);
+        replayProperties.getWindow().setEnd(CONFIGURED_END);
+
+        replayScheduler = mock(ReplayScheduler.class);
+        when(replayScheduler.startReplay(any(), any())).thenReturn(new CompletableFuture<>());
+
+        controller = new ReplayController(replayScheduler, mock(CheckpointManager.class),
+                mock(KafkaPublisher.class), mock(ReplaySessionManager.class), replayProperties);
+    }
+
+    @Test
+    void testPartialBodyKeepsConfiguredBound() {
+        Instant start = Instant.parse("2024-01-01T14:30:00Z");
+
+        ResponseEntity<Map<String, String>> response =
+                controller.startReplay(ReplayStartRequest.builder().start(start).build());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(replayScheduler).startReplay(start, CONFIGURED_END);
+    }
+
+    @Test
+    void testBodyWithOnlyEndKeepsConfiguredStart() {
+        Instant end = Instant.parse("2024-01-01T15:00:00Z");
+
+        controller.startReplay(ReplayStartRequest.builder().end(end).build());
+
+        verify(replayScheduler).startReplay(CONFIGURED_START, end);
+    }
+
+    @Test
+    void testMissingBodyUsesConfiguredWindow() {
+        controller.startReplay(null);
+
+        verify(replayScheduler).startReplay(CONFIGURED_START, CONFIGURED_END);
+    }
+
+    @Test
+    void testInvalidWindowIsBadRequest() {
+        Instant start = Instant.parse("2024-01-01T18:00:00Z");
+        when(replayScheduler.startReplay(start, CONFIGURED_END))
+                .thenThrow(new IllegalArgumentException("Replay window start must be before end"));
+
+        ResponseEntity<Map<String, String>> response =
+                controller.startReplay(ReplayStartRequest.builder().start(start).build());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,124 @@
+package org.jaiswarsecurities.replayengine.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChipmunkEventPool.
+ */
+class ChipmunkEventPoolTest {
+
+    @Test
+    void testRecycledEventIsReusedCleared() {
+        ChipmunkEventPool pool = new ChipmunkEventPool(4);
+
+        ChipmunkEvent event = pool.acquire();
+        event.assignEventId("ns-".getBytes(StandardCharsets.US_ASCII), 1);
+        event.setEventType(ChipmunkEvent.EventType.TRADE);
+        event.setRegion("US");
+        event.setEpochNanos(1_704_103_200_000_000_000L);
+        event.setPayload(new byte[]{1, 2, 3});
+        event.setLineNumber(42);
+        event.recycle();
+
+        assertEquals(1, pool.getAvailable());
+
+        ChipmunkEvent reused = pool.acquire();
+        assertSame(event, reused);
+        assertNull(reused.getEventId());
+        assertNull(reused.getEventType());
+        assertNull(reused.getRegion());
+        assertNull(reused.getTimestamp());
+        assertNull(reused.getPayload());
+        assertEquals(0, reused.getLineNumber());
+        assertEquals(1, pool.getCreated());
+    }
+
+    @Test
+    void testPoolKeepsAtMostItsCapacity() {
+        ChipmunkEventPool pool = new ChipmunkEventPool(2);
+
+        ChipmunkEvent first = pool.acquire();
+        ChipmunkEvent second = pool.acquire();
+        ChipmunkEvent third = pool.acquire();
+        first.recycle();
+        second.recycle();
+        third.recycle();
+
+        assertEquals(2, pool.getAvailable());
+        assertEquals(3, pool.getCreated());
+    }
+
+    @Test
+    void testSecondRecycleIsIgnored() {
+        ChipmunkEventPool pool = new ChipmunkEventPool(4);
+
+        ChipmunkEvent event = pool.acquire();
+        event.recycle();
+        event.recycle();
+
+        assertEquals(1, pool.getAvailable());
+        assertNotSame(pool.acquire(), pool.acquire());
+    }
+
+    @Test
+    void testRecycleOfUnpooledEventDoesNothing() {
+        ChipmunkEvent event = ChipmunkEvent.builder().eventId("evt-1").region("UK").build();
+
+        event.recycle();
+
+        assertEquals("evt-1", event.getEventId());
+        assertEquals("UK", event.getRegion());
+    }
+
+    @Test
+    void testAssignedEventIdIsPrefixAndOrdinal() {
+        ChipmunkEvent event = new ChipmunkEventPool(1).acquire();
+        byte[] prefix = "ab12-".getBytes(StandardCharsets.US_ASCII);
+
+        event.assignEventId(prefix, 42);
+        assertEquals("ab12-42", event.getEventId());
+        assertArrayEquals("ab12-42".getBytes(StandardCharsets.US_ASCII), event.getEventIdBytes());
+
+        event.assignEventId(prefix, 1_000_000);
+        assertEquals("ab12-1000000", event.getEventId());
+
+        event.setEventId("explicit");
+        assertArrayEquals("explicit".getBytes(StandardCharsets.UTF_8), event.getEventIdBytes());
+    }
+
+    @Test
+    void testLineNumberBytesAreDecimal() {
+        ChipmunkEvent pooled = new ChipmunkEventPool(1).acquire();
+        ChipmunkEvent unpooled = new ChipmunkEvent();
+
+        for (long lineNumber : new long[]{0, 7, 10, 999, 1_000_000, Long.MAX_VALUE}) {
+            pooled.setLineNumber(lineNumber);
+            unpooled.setLineNumber(lineNumber);
+
+            byte[] expected = Long.toString(lineNumber).getBytes(StandardCharsets.US_ASCII);
+            assertArrayEquals(expected, pooled.getLineNumberBytes());
+            assertArrayEquals(expected, unpooled.getLineNumberBytes());
+        }
+    }
+
+    @Test
+    void testEpochNanosAndTimestampAgree() {
+        ChipmunkEvent event = new ChipmunkEvent();
+
+        event.setEpochNanos(1_704_103_200_123_456_789L);
+        assertEquals(Instant.ofEpochSecond(1_704_103_200L, 123_456_789L), event.getTimestamp());
+
+        event.setTimestamp(Instant.ofEpochMilli(1_704_103_201_000L));
+        assertEquals(1_704_103_201_000_000_000L, event.getEpochNanos());
+    }
+
+    @Test
+    void testRejectsInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ChipmunkEventPool(0));
+    }
+}
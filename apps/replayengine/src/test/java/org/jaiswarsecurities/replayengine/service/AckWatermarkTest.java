@@ -0,0 +1,99 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AckWatermark.
+ */
+class AckWatermarkTest {
+
+    @Test
+    void testStartsAtInitialPosition() {
+        AckWatermark watermark = new AckWatermark(8, 42);
+
+        assertEquals(42, watermark.getPosition());
+        assertFalse(watermark.isFrozen());
+        assertEquals(0, watermark.getPending());
+    }
+
+    @Test
+    void testAdvancesOnlyOverContiguousAcks() throws InterruptedException {
+        AckWatermark watermark = new AckWatermark(8, 0);
+        long first = watermark.track(10);
+        long second = watermark.track(11);
+        long third = watermark.track(13);
+
+        // Acks out of order across partitions leave the position before the first unacked event
+        watermark.acknowledge(third);
+        watermark.acknowledge(second);
+        assertEquals(0, watermark.getPosition());
+        assertEquals(3, watermark.getPending());
+
+        watermark.acknowledge(first);
+        assertEquals(13, watermark.getPosition());
+        assertEquals(0, watermark.getPending());
+    }
+
+    @Test
+    void testFailureFreezesPosition() throws InterruptedException {
+        AckWatermark watermark = new AckWatermark(8, 0);
+        long first = watermark.track(1);
+        long second = watermark.track(2);
+        long third = watermark.track(3);
+
+        watermark.acknowledge(first);
+        watermark.fail(second);
+        watermark.acknowledge(third);
+
+        assertEquals(1, watermark.getPosition());
+        assertTrue(watermark.isFrozen());
+        // The failed slot is still freed so the replay can carry on
+        assertEquals(0, watermark.getPending());
+
+        watermark.acknowledge(watermark.track(4));
+        assertEquals(1, watermark.getPosition());
+    }
+
+    @Test
+    void testTrackWaitsWhileRingIsFull() throws Exception {
+        AckWatermark watermark = new AckWatermark(2, 0);
+        long first = watermark.track(1);
+        watermark.track(2);
+
+        Thread dispatcher = new Thread(() -> {
+            try {
+                watermark.track(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.start();
+
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertTrue(dispatcher.isAlive());
+
+        watermark.acknowledge(first);
+        dispatcher.join(5000);
+        assertFalse(dispatcher.isAlive());
+        assertEquals(2, watermark.getPending());
+    }
+
+    @Test
+    void testRingIsReused() throws InterruptedException {
+        AckWatermark watermark = new AckWatermark(4, 0);
+        for (long position = 1; position <= 100; position++) {
+            watermark.acknowledge(watermark.track(position));
+        }
+
+        assertEquals(100, watermark.getPosition());
+    }
+
+    @Test
+    void testRejectsInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AckWatermark(0, 0));
+    }
+}
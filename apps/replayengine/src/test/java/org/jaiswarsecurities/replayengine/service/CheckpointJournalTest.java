@@ -0,0 +1,170 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CheckpointJournal.
+ */
+class CheckpointJournalTest {
+
+    private static final String FILE = "replay-data/trades.chip";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecoversLatestCheckpoint() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        try (CheckpointJournal journal = new CheckpointJournal(path, 0, 1 << 20)) {
+            for (long line = 1; line <= 3; line++) {
+                journal.append(checkpoint(line)).get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        assertTrue(CheckpointJournal.isJournal(path));
+        ReplayCheckpoint recovered = CheckpointJournal.recover(path);
+        assertEquals(3, recovered.getCurrentLineNumber());
+        assertEquals(FILE, recovered.getFileIdentifier());
+    }
+
+    @Test
+    void testEncodingRoundTripsEveryField() throws IOException {
+        ReplayCheckpoint checkpoint = ReplayCheckpoint.builder()
+                .fileIdentifier(FILE)
+                .currentLineNumber(42)
+                .totalLines(100)
+                .checkpointTime(Instant.parse("2024-01-01T14:30:00.123456789Z"))
+                .eventsPublished(40)
+                .eventsFailed(2)
+                .progressPercentage(42.5)
+                .speedMode("burst")
+                .build();
+
+        assertEquals(checkpoint, CheckpointJournal.decode(CheckpointJournal.encode(checkpoint)));
+    }
+
+    @Test
+    void testTornTailFallsBackToPreviousRecord() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        try (CheckpointJournal journal = new CheckpointJournal(path, 0, 1 << 20)) {
+            journal.append(checkpoint(1)).get(5, TimeUnit.SECONDS);
+            journal.append(checkpoint(2)).get(5, TimeUnit.SECONDS);
+        }
+        long intactSize = Files.size(path);
+
+        // A crash part way through the third record
+        byte[] third = CheckpointJournal.frame(CheckpointJournal.encode(checkpoint(3))).array();
+        Files.write(path, Arrays.copyOf(third, third.length / 2), StandardOpenOption.APPEND);
+
+        assertEquals(2, CheckpointJournal.recover(path).getCurrentLineNumber());
+
+        // Reopening cuts the torn bytes off, so the next record follows the last intact one
+        try (CheckpointJournal journal = new CheckpointJournal(path, 0, 1 << 20)) {
+            journal.append(checkpoint(4)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(4, CheckpointJournal.recover(path).getCurrentLineNumber());
+        assertEquals(intactSize + third.length, Files.size(path));
+    }
+
+    @Test
+    void testCorruptRecordFailsCrc() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        try (CheckpointJournal journal = new CheckpointJournal(path, 0, 1 << 20)) {
+            journal.append(checkpoint(1)).get(5, TimeUnit.SECONDS);
+            journal.append(checkpoint(2)).get(5, TimeUnit.SECONDS);
+        }
+
+        byte[] contents = Files.readAllBytes(path);
+        contents[contents.length - 3] ^= 0x5A;
+        Files.write(path, contents);
+
+        assertEquals(1, CheckpointJournal.recover(path).getCurrentLineNumber());
+    }
+
+    @Test
+    void testAppendsWithinIntervalShareOneSync() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        try (CheckpointJournal journal = new CheckpointJournal(path, 500, 1 << 20)) {
+            List<CompletableFuture<Void>> durable = new ArrayList<>();
+            for (long line = 1; line <= 10; line++) {
+                durable.add(journal.append(checkpoint(line)));
+            }
+
+            // Appending does not wait for the disk
+            assertFalse(durable.get(0).isDone());
+            CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(10, CheckpointJournal.recover(path).getCurrentLineNumber());
+    }
+
+    @Test
+    void testCompactsToLatestRecord() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        try (CheckpointJournal journal = new CheckpointJournal(path, 0, 512)) {
+            for (long line = 1; line <= 100; line++) {
+                journal.append(checkpoint(line)).get(5, TimeUnit.SECONDS);
+            }
+
+            // Compaction runs on the sync thread after the last record is durable
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (Files.size(path) > 512 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            assertTrue(Files.size(path) <= 512);
+            assertEquals(100, CheckpointJournal.recover(path).getCurrentLineNumber());
+
+            journal.append(checkpoint(101)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(101, CheckpointJournal.recover(path).getCurrentLineNumber());
+        assertFalse(Files.exists(tempDir.resolve("checkpoint.journal.compact")));
+    }
+
+    @Test
+    void testDeleteRemovesJournal() throws Exception {
+        Path path = tempDir.resolve("checkpoint.journal");
+        CheckpointJournal journal = new CheckpointJournal(path, 0, 1 << 20);
+        journal.append(checkpoint(1)).get(5, TimeUnit.SECONDS);
+
+        journal.delete();
+
+        assertFalse(Files.exists(path));
+        assertNull(CheckpointJournal.recover(path));
+
+        journal.append(checkpoint(2)).get(5, TimeUnit.SECONDS);
+        journal.close();
+        assertEquals(2, CheckpointJournal.recover(path).getCurrentLineNumber());
+    }
+
+    @Test
+    void testRejectsFileThatIsNotJournal() throws IOException {
+        Path path = tempDir.resolve("checkpoint.json");
+        Files.writeString(path, "{\"fileIdentifier\":\"" + FILE + "\",\"currentLineNumber\":7}");
+
+        assertFalse(CheckpointJournal.isJournal(path));
+        assertThrows(IOException.class, () -> CheckpointJournal.recover(path));
+    }
+
+    private ReplayCheckpoint checkpoint(long lineNumber) {
+        return ReplayCheckpoint.builder()
+                .fileIdentifier(FILE)
+                .currentLineNumber(lineNumber)
+                .checkpointTime(Instant.now())
+                .eventsPublished(lineNumber)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChipmunkIndex.
+ */
+class ChipmunkIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBuildRecordsEveryStrideFrame() throws IOException {
+        Path file = writeFrames(10);
+
+        ChipmunkIndex index = ChipmunkIndex.build(file, 4);
+
+        assertEquals(3, index.size());
+        assertEquals(Files.size(file), index.getDataSize());
+
+        ChipmunkIndex.Entry entry = index.floorByOrdinal(9);
+        assertEquals(8, entry.ordinal());
+        assertEquals(1704103208000L, entry.timestamp());
+        assertEquals(frameOffset(8), entry.offset());
+
+        assertEquals(4, index.floorByOrdinal(4).ordinal());
+        assertEquals(0, index.floorByOrdinal(3).ordinal());
+    }
+
+    @Test
+    void testFloorByTimestamp() throws IOException {
+        ChipmunkIndex index = ChipmunkIndex.build(writeFrames(10), 4);
+
+        // Entries at ordinals 0, 4 and 8; one second apart per frame
+        assertEquals(4, index.floorByTimestamp(1704103206500L).ordinal());
+        assertEquals(0, index.floorByTimestamp(1704103204000L).ordinal(), "An entry at the exact time is not a safe floor");
+        assertEquals(8, index.floorByTimestamp(Long.MAX_VALUE).ordinal());
+        assertSame(ChipmunkIndex.Entry.START, index.floorByTimestamp(1704103200000L));
+    }
+
+    @Test
+    void testWriteAndReadRoundTrip() throws IOException {
+        ChipmunkIndex index = ChipmunkIndex.build(writeFrames(10), 3);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        index.write(baos);
+        ChipmunkIndex copy = ChipmunkIndex.read(new ByteArrayInputStream(baos.toByteArray()));
+
+        assertEquals(index.size(), copy.size());
+        assertEquals(index.getStride(), copy.getStride());
+        assertEquals(index.getDataSize(), copy.getDataSize());
+        assertEquals(index.floorByOrdinal(7), copy.floorByOrdinal(7));
+    }
+
+    @Test
+    void testLoadOrBuildPersistsAndRebuildsStaleSidecar() throws IOException {
+        Path file = writeFrames(5);
+        Path sidecar = ChipmunkIndex.sidecarPath(file);
+
+        assertEquals(2, ChipmunkIndex.loadOrBuild(file, 4).size());
+        assertTrue(Files.exists(sidecar));
+
+        // Appending frames makes the persisted sidecar stale
+        Files.write(file, frames(5, 10), StandardOpenOption.APPEND);
+
+        ChipmunkIndex rebuilt = ChipmunkIndex.loadOrBuild(file, 4);
+        assertEquals(Files.size(file), rebuilt.getDataSize());
+        assertEquals(8, rebuilt.floorByOrdinal(9).ordinal());
+    }
+
+    @Test
+    void testRejectsForeignFile() {
+        assertThrows(IOException.class,
+                () -> ChipmunkIndex.read(new ByteArrayInputStream(new byte[]{'n', 'o', 'p', 'e', 0, 0, 0, 0})));
+    }
+
+    private Path writeFrames(int count) throws IOException {
+        Path file = tempDir.resolve("indexed.chip");
+        Files.write(file, frames(0, count));
+        return file;
+    }
+
+    private byte[] frames(int from, int to) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = from; i < to; i++) {
+            byte[] recordBytes = record(i).toByteArray();
+            baos.write((recordBytes.length >>> 24) & 0xFF);
+            baos.write((recordBytes.length >>> 16) & 0xFF);
+            baos.write((recordBytes.length >>> 8) & 0xFF);
+            baos.write(recordBytes.length & 0xFF);
+            baos.write(recordBytes);
+        }
+        return baos.toByteArray();
+    }
+
+    private long frameOffset(int ordinal) {
+        long offset = 0;
+        for (int i = 0; i < ordinal; i++) {
+            offset += ChipmunkRecordDecoder.FRAME_HEADER_BYTES + record(i).getSerializedSize();
+        }
+        return offset;
+    }
+
+    private ChipmunkRecord record(int i) {
+        return ChipmunkRecord.newBuilder()
+                .setEventType("TRADE")
+                .setTimestamp(1704103200000L + i * 1000L)
+                .setRegion("US")
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChipmunkJsonParser.
+ */
+class ChipmunkJsonParserTest {
+
+    private final ChipmunkJsonParser parser = new ChipmunkJsonParser(new ObjectMapper());
+
+    @Test
+    void testExtractsRoutingFieldsAndSkipsNestedValues() {
+        String line = "{\"meta\": {\"timestamp\": 1, \"region\": \"JAPAN\"}, \"tags\": [\"a\", {\"b\": 2}], "
+                + "\"trade_id\": \"T001\", \"timestamp\": \"2024-01-01T10:00:00Z\", \"region\": \"UK\"}";
+
+        ChipmunkEvent event = parser.parse(line, 7);
+
+        assertNotNull(event);
+        assertEquals(ChipmunkEvent.EventType.TRADE, event.getEventType());
+        assertEquals(Instant.parse("2024-01-01T10:00:00Z"), event.getTimestamp());
+        assertEquals("UK", event.getRegion());
+        assertEquals(7L, event.getLineNumber());
+        assertEquals(line, event.getJsonPayload());
+    }
+
+    @Test
+    void testExtractsPartitioningKeys() {
+        ChipmunkEvent trade = parser.parse("{\"trade_id\": \"T001\", \"symbol\": \"AAPL\", \"account_id\": \"ACC-7\", "
+                + "\"correlation_id\": \"C-1\"}", 1);
+        ChipmunkEvent fx = parser.parse("{\"base_currency\": \"USD\", \"target_currency\": \"EUR\", \"rate\": 0.85}", 2);
+        ChipmunkEvent nested = parser.parse("{\"trade_id\": \"T002\", \"symbol\": {\"ric\": \"VOD.L\"}}", 3);
+
+        assertEquals("AAPL", trade.getInstrument());
+        assertEquals("ACC-7", trade.getAccount());
+        assertEquals("C-1", trade.getCorrelationId());
+        assertNull(trade.getCurrencyPair());
+        assertEquals("USD/EUR", fx.getCurrencyPair());
+        assertNull(fx.getInstrument());
+        assertNull(nested.getInstrument(), "Only string values are used as keys");
+    }
+
+    @Test
+    void testTimestampFallbacks() {
+        ChipmunkEvent epochMillis = parser.parse("{\"time\": 1704103200000, \"symbol\": \"AAPL\", \"price\": 1.0}", 1);
+        ChipmunkEvent epochString = parser.parse("{\"event_time\": \"1704103200000\", \"base_currency\": \"USD\"}", 2);
+        ChipmunkEvent precedence = parser.parse("{\"event_time\": 1, \"timestamp\": 1704103200000}", 3);
+
+        assertEquals(Instant.ofEpochMilli(1704103200000L), epochMillis.getTimestamp());
+        assertEquals(ChipmunkEvent.EventType.MARKET_DATA, epochMillis.getEventType());
+        assertEquals(Instant.ofEpochMilli(1704103200000L), epochString.getTimestamp());
+        assertEquals(ChipmunkEvent.EventType.FX_RATE, epochString.getEventType());
+        assertEquals(Instant.ofEpochMilli(1704103200000L), precedence.getTimestamp());
+        assertEquals("UNKNOWN", precedence.getRegion());
+    }
+
+    @Test
+    void testDataIsMaterialisedOnFirstAccess() {
+        ChipmunkEvent event = parser.parse("{\"trade_id\": \"T001\", \"quantity\": 100, \"legs\": [1, 2]}", 1);
+
+        assertNotNull(event.getDataLoader(), "Data should not be parsed until it is needed");
+
+        Map<String, Object> data = event.getData();
+
+        assertEquals("T001", data.get("trade_id"));
+        assertEquals(100, data.get("quantity"));
+        assertNull(event.getDataLoader());
+        assertSame(data, event.getData());
+    }
+
+    @Test
+    void testInvalidLinesReturnNull() {
+        assertNull(parser.parse("invalid json line", 1));
+        assertNull(parser.parse("{ incomplete json", 2));
+        assertNull(parser.parse("[1, 2, 3]", 3));
+    }
+}
@@ -0,0 +1,322 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jaiswarsecurities.replayengine.config.ReplayEngineConfig;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DynamoDbCheckpointStore.
+ */
+class DynamoDbCheckpointStoreTest {
+
+    private static final String FILE = "minio:replay-data/trades.chip";
+
+    private InMemoryDynamoDbClient dynamoDb;
+    private ObjectMapper objectMapper;
+    private List<DynamoDbCheckpointStore> stores;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDb = new InMemoryDynamoDbClient();
+        objectMapper = new ReplayEngineConfig().objectMapper();
+        stores = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(DynamoDbCheckpointStore::shutdown);
+    }
+
+    @Test
+    void testSaveAndLoad() throws Exception {
+        DynamoDbCheckpointStore store = newStore(0);
+
+        assertNull(store.load(FILE, "s1"));
+        store.save("s1", checkpoint(10));
+        store.save("s2", checkpoint(20));
+        store.flushAll();
+
+        assertEquals(10, store.load(FILE, "s1").getCurrentLineNumber());
+        assertEquals(20, store.load(FILE, "s2").getCurrentLineNumber());
+        assertEquals("1", dynamoDb.item(FILE, "s1").get(DynamoDbCheckpointStore.VERSION).n());
+    }
+
+    @Test
+    void testEveryWriteIncrementsVersion() throws Exception {
+        DynamoDbCheckpointStore store = newStore(0);
+
+        for (long position = 1; position <= 3; position++) {
+            store.save("s1", checkpoint(position));
+            store.flushAll();
+        }
+
+        Map<String, AttributeValue> item = dynamoDb.item(FILE, "s1");
+        assertEquals("3", item.get(DynamoDbCheckpointStore.VERSION).n());
+        assertEquals("3", item.get(DynamoDbCheckpointStore.POSITION).n());
+    }
+
+    @Test
+    void testStaleNodeCannotRegressPosition() throws Exception {
+        DynamoDbCheckpointStore ahead = newStore(0);
+        DynamoDbCheckpointStore behind = newStore(0);
+        assertNull(ahead.load(FILE, "s1"));
+        assertNull(behind.load(FILE, "s1"));
+
+        ahead.save("s1", checkpoint(100));
+        ahead.flushAll();
+        behind.save("s1", checkpoint(50));
+        behind.flushAll();
+
+        assertEquals(100, ahead.load(FILE, "s1").getCurrentLineNumber());
+        assertEquals("1", dynamoDb.item(FILE, "s1").get(DynamoDbCheckpointStore.VERSION).n());
+
+        // Having seen the stored version, the node moves the checkpoint on once it passes it
+        behind.save("s1", checkpoint(150));
+        behind.flushAll();
+        assertEquals(150, ahead.load(FILE, "s1").getCurrentLineNumber());
+        assertEquals("2", dynamoDb.item(FILE, "s1").get(DynamoDbCheckpointStore.VERSION).n());
+    }
+
+    @Test
+    void testNodeWithOutdatedVersionRetriesWhenNotBehind() throws Exception {
+        DynamoDbCheckpointStore first = newStore(0);
+        DynamoDbCheckpointStore second = newStore(0);
+        first.save("s1", checkpoint(10));
+        first.flushAll();
+        assertEquals(10, second.load(FILE, "s1").getCurrentLineNumber());
+
+        first.save("s1", checkpoint(20));
+        first.flushAll();
+        second.save("s1", checkpoint(30));
+        second.flushAll();
+
+        assertEquals(30, first.load(FILE, "s1").getCurrentLineNumber());
+        assertEquals("3", dynamoDb.item(FILE, "s1").get(DynamoDbCheckpointStore.VERSION).n());
+    }
+
+    @Test
+    void testRapidSavesAreCoalesced() throws Exception {
+        DynamoDbCheckpointStore store = newStore(60_000);
+
+        store.save("s1", checkpoint(1));
+        awaitPuts(1);
+        for (long position = 2; position <= 50; position++) {
+            store.save("s1", checkpoint(position));
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(1, dynamoDb.puts.get());
+
+        store.flushAll();
+        assertEquals(2, dynamoDb.puts.get());
+        assertEquals(50, store.load(FILE, "s1").getCurrentLineNumber());
+    }
+
+    @Test
+    void testLoadWritesPendingSaveFirst() throws Exception {
+        DynamoDbCheckpointStore store = newStore(60_000);
+        store.save("s1", checkpoint(1));
+        awaitPuts(1);
+
+        store.save("s1", checkpoint(2));
+
+        assertEquals(2, store.load(FILE, "s1").getCurrentLineNumber());
+    }
+
+    @Test
+    void testSaveFutureCompletesOnceWritten() throws Exception {
+        DynamoDbCheckpointStore store = newStore(300);
+        store.save("s1", checkpoint(1)).get(5, TimeUnit.SECONDS);
+
+        // Within the write interval, so coalesced into a later write
+        CompletableFuture<Void> coalesced = store.save("s1", checkpoint(2));
+        CompletableFuture<Void> last = store.save("s1", checkpoint(3));
+        assertFalse(last.isDone());
+
+        last.get(5, TimeUnit.SECONDS);
+        assertTrue(coalesced.isDone());
+        assertEquals("3", dynamoDb.item(FILE, "s1").get(DynamoDbCheckpointStore.POSITION).n());
+    }
+
+    @Test
+    void testSaveFutureFailsWhenWriteFails() {
+        DynamoDbCheckpointStore store = newStore(0);
+        dynamoDb.failPuts = true;
+
+        CompletableFuture<Void> written = store.save("s1", checkpoint(1));
+
+        assertThrows(ExecutionException.class, () -> written.get(5, TimeUnit.SECONDS));
+        assertNull(dynamoDb.item(FILE, "s1"));
+    }
+
+    @Test
+    void testDeleteDropsItemAndPendingSave() throws Exception {
+        DynamoDbCheckpointStore store = newStore(60_000);
+        store.save("s1", checkpoint(1));
+        awaitPuts(1);
+        store.save("s1", checkpoint(2));
+
+        store.delete(FILE, "s1");
+        store.flushAll();
+
+        assertNull(dynamoDb.item(FILE, "s1"));
+        assertNull(store.load(FILE, "s1"));
+    }
+
+    @Test
+    void testDeleteKeepsItemUpdatedByAnotherNode() throws Exception {
+        DynamoDbCheckpointStore first = newStore(0);
+        DynamoDbCheckpointStore second = newStore(0);
+        first.save("s1", checkpoint(10));
+        first.flushAll();
+        second.load(FILE, "s1");
+        second.save("s1", checkpoint(20));
+        second.flushAll();
+
+        first.delete(FILE, "s1");
+
+        assertEquals(20, second.load(FILE, "s1").getCurrentLineNumber());
+    }
+
+    private DynamoDbCheckpointStore newStore(long writeIntervalMillis) {
+        ReplayProperties properties = new ReplayProperties();
+        properties.getCheckpoint().setStorageType(ReplayProperties.Checkpoint.StorageType.DYNAMODB);
+        properties.getCheckpoint().getDynamodb().setWriteIntervalMillis(writeIntervalMillis);
+        DynamoDbCheckpointStore store = new DynamoDbCheckpointStore(dynamoDb, properties, objectMapper);
+        stores.add(store);
+        return store;
+    }
+
+    private ReplayCheckpoint checkpoint(long lineNumber) {
+        return ReplayCheckpoint.builder()
+                .fileIdentifier(FILE)
+                .currentLineNumber(lineNumber)
+                .checkpointTime(Instant.now())
+                .eventsPublished(lineNumber)
+                .build();
+    }
+
+    private void awaitPuts(int puts) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dynamoDb.puts.get() < puts && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(puts, dynamoDb.puts.get());
+    }
+
+    /**
+     * Stand-in for a DynamoDB table that evaluates the condition expressions the store uses.
+     */
+    private static class InMemoryDynamoDbClient implements DynamoDbClient {
+
+        private final Map<Map<String, AttributeValue>, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        private final AtomicInteger puts = new AtomicInteger();
+        private volatile boolean failPuts;
+
+        Map<String, AttributeValue> item(String fileIdentifier, String sessionId) {
+            return items.get(Map.of(DynamoDbCheckpointStore.FILE_IDENTIFIER, AttributeValue.fromS(fileIdentifier),
+                    DynamoDbCheckpointStore.SESSION_ID, AttributeValue.fromS(sessionId)));
+        }
+
+        @Override
+        public synchronized GetItemResponse getItem(GetItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key());
+            return GetItemResponse.builder().item(item).build();
+        }
+
+        @Override
+        public synchronized PutItemResponse putItem(PutItemRequest request) {
+            if (failPuts) {
+                throw DynamoDbException.builder().message("Service unavailable").build();
+            }
+            Map<String, AttributeValue> key = Map.of(
+                    DynamoDbCheckpointStore.FILE_IDENTIFIER, request.item().get(DynamoDbCheckpointStore.FILE_IDENTIFIER),
+                    DynamoDbCheckpointStore.SESSION_ID, request.item().get(DynamoDbCheckpointStore.SESSION_ID));
+            Map<String, AttributeValue> existing = items.get(key);
+            String condition = request.conditionExpression();
+            Map<String, AttributeValue> values = request.expressionAttributeValues();
+
+            boolean passes;
+            if (condition == null) {
+                passes = true;
+            } else if (condition.equals("attribute_not_exists(#version)")) {
+                passes = existing == null;
+            } else if (condition.equals("#version = :expected AND #position <= :position")) {
+                passes = existing != null
+                        && existing.get(DynamoDbCheckpointStore.VERSION).equals(values.get(":expected"))
+                        && number(existing, DynamoDbCheckpointStore.POSITION) <= Long.parseLong(values.get(":position").n());
+            } else {
+                throw new UnsupportedOperationException(condition);
+            }
+
+            if (!passes) {
+                boolean returnOld = request.returnValuesOnConditionCheckFailure() == ReturnValuesOnConditionCheckFailure.ALL_OLD;
+                throw ConditionalCheckFailedException.builder()
+                        .message("The conditional request failed")
+                        .item(returnOld ? existing : null)
+                        .build();
+            }
+            items.put(key, Map.copyOf(request.item()));
+            puts.incrementAndGet();
+            return PutItemResponse.builder().build();
+        }
+
+        @Override
+        public synchronized DeleteItemResponse deleteItem(DeleteItemRequest request) {
+            Map<String, AttributeValue> existing = items.get(request.key());
+            String condition = request.conditionExpression();
+            if (condition != null) {
+                if (!condition.equals("#version = :version")) {
+                    throw new UnsupportedOperationException(condition);
+                }
+                if (existing == null || !existing.get(DynamoDbCheckpointStore.VERSION)
+                        .equals(request.expressionAttributeValues().get(":version"))) {
+                    throw ConditionalCheckFailedException.builder()
+                            .message("The conditional request failed")
+                            .build();
+                }
+            }
+            items.remove(request.key());
+            return DeleteItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static long number(Map<String, AttributeValue> item, String attribute) {
+            return Long.parseLong(item.get(attribute).n());
+        }
+    }
+}
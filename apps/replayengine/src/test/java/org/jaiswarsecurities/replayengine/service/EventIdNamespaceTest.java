@@ -0,0 +1,59 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEventPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EventIdNamespace.
+ */
+class EventIdNamespaceTest {
+
+    @Test
+    void testIdIsHashedNameAndOrdinal() {
+        EventIdNamespace namespace = EventIdNamespace.of("iris-events/2024-01-01.chip");
+
+        String eventId = namespace.eventId(1_048_576);
+
+        assertTrue(eventId.matches("[0-9a-f]{16}-1048576"), eventId);
+        assertEquals(eventId, EventIdNamespace.of("iris-events/2024-01-01.chip").eventId(1_048_576));
+        assertNotEquals(eventId, EventIdNamespace.of("iris-events/2024-01-02.chip").eventId(1_048_576));
+        // FNV-1a of the empty string is the offset basis
+        assertEquals("cbf29ce484222325-7", EventIdNamespace.UNNAMED.eventId(7));
+    }
+
+    @Test
+    void testAssignToMatchesEventId() {
+        EventIdNamespace namespace = EventIdNamespace.of("orders.chip");
+        ChipmunkEvent pooled = new ChipmunkEventPool(1).acquire();
+        ChipmunkEvent unpooled = new ChipmunkEvent();
+
+        for (long ordinal : new long[]{1, 9, 10, 12_345, Long.MAX_VALUE}) {
+            namespace.assignTo(pooled, ordinal);
+            namespace.assignTo(unpooled, ordinal);
+
+            assertEquals(namespace.eventId(ordinal), pooled.getEventId());
+            assertEquals(namespace.eventId(ordinal), unpooled.getEventId());
+        }
+    }
+
+    @Test
+    void testForSourcePrefersConfiguredNamespace() {
+        ReplayProperties.Source source = new ReplayProperties.Source();
+        source.setType(ReplayProperties.Source.SourceType.MINIO);
+        source.getMinio().setBucketName("iris-events");
+        source.getMinio().setObjectKey("2024-01-01.chip");
+
+        assertEquals("iris-events/2024-01-01.chip", EventIdNamespace.forSource(source).getName());
+
+        source.setType(ReplayProperties.Source.SourceType.LOCAL_FILE);
+        source.getLocal().setFilePath("/data/2024-01-01.chip");
+        assertEquals("/data/2024-01-01.chip", EventIdNamespace.forSource(source).getName());
+
+        source.setEventIdNamespace("trades-2024-01-01");
+        assertEquals("trades-2024-01-01", EventIdNamespace.forSource(source).getName());
+    }
+}
@@ -0,0 +1,130 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InFlightWindow.
+ */
+class InFlightWindowTest {
+
+    private static final long ONE_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testBlocksWhenFullUntilReleased() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow(2, 1, 10, 2.0);
+        window.acquire();
+        window.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread sender = new Thread(() -> {
+            try {
+                window.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sender.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS), "Third send should wait for a permit");
+        assertEquals(2, window.getInFlight());
+
+        window.release(ONE_MS, false);
+
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        sender.join();
+        assertEquals(2, window.getInFlight());
+    }
+
+    @Test
+    void testGrowsWhileSaturatedAndLatencyIsFlat() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow(16, 4, 1000, 2.0);
+
+        for (int round = 0; round < 5; round++) {
+            runSaturatedRound(window, ONE_MS);
+        }
+
+        // +sqrt(limit) per round: 16, 20, 24, 28, 33, 38
+        assertEquals(38, window.getLimit());
+    }
+
+    @Test
+    void testDoesNotGrowWhenWindowIsNotTheBottleneck() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow(16, 4, 1000, 2.0);
+
+        for (int i = 0; i < 64; i++) {
+            window.acquire();
+            window.release(ONE_MS, false);
+        }
+
+        assertEquals(16, window.getLimit());
+    }
+
+    @Test
+    void testShrinksWhenAckLatencyRises() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow(100, 10, 1000, 2.0);
+        runSaturatedRound(window, ONE_MS);
+        int grown = window.getLimit();
+
+        // Latency jumps to 10x the baseline; the smoothed latency crosses 2x within the round
+        runSaturatedRound(window, 10 * ONE_MS);
+
+        assertEquals((int) (grown * 0.8), window.getLimit());
+    }
+
+    @Test
+    void testShrinksOnFailureButNotBelowMinimum() throws InterruptedException {
+        InFlightWindow window = new InFlightWindow(20, 16, 1000, 2.0);
+
+        for (int i = 0; i < 20; i++) {
+            window.acquire();
+        }
+        for (int i = 0; i < 20; i++) {
+            window.release(ONE_MS, i == 0);
+        }
+
+        assertEquals(16, window.getLimit());
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    void testRejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new InFlightWindow(10, 0, 10, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new InFlightWindow(10, 20, 10, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new InFlightWindow(10, 1, 10, 0.5));
+    }
+
+    /**
+     * Fills the window, notes that a further send had to wait, then acknowledges a full round.
+     */
+    private void runSaturatedRound(InFlightWindow window, long latencyNanos) throws InterruptedException {
+        int limit = window.getLimit();
+        for (int i = 0; i < limit; i++) {
+            window.acquire();
+        }
+
+        Thread blocked = new Thread(() -> {
+            try {
+                window.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.start();
+        while (blocked.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+
+        for (int i = 0; i < limit; i++) {
+            window.release(latencyNanos, false);
+        }
+        blocked.join();
+        // Return the permit taken by the sender that had to wait
+        window.release(latencyNanos, false);
+    }
+}
@@ -0,0 +1,129 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.PartitionSkewReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for KafkaPublisher.
+ */
+class KafkaPublisherTest {
+
+    private KafkaProperties kafkaProperties;
+    private ReplayProperties replayProperties;
+    private ObjectProvider<Producer<String, String>> kafkaProducerProvider;
+    private MockProducer<String, byte[]> byteArrayProducer;
+    private KafkaPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaProperties = new KafkaProperties();
+        kafkaProperties.setPayloadFormat(KafkaProperties.PayloadFormat.PROTOBUF);
+        replayProperties = new ReplayProperties();
+        replayProperties.getSource().setFormat(ReplayProperties.Source.Format.PROTOBUF);
+
+        kafkaProducerProvider = mock(ObjectProvider.class);
+        byteArrayProducer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        ObjectProvider<Producer<String, byte[]>> byteArrayProducerProvider = mock(ObjectProvider.class);
+        when(byteArrayProducerProvider.getObject()).thenReturn(byteArrayProducer);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PartitionKeyResolver partitionKeyResolver = new PartitionKeyResolver(kafkaProperties, meterRegistry);
+        partitionKeyResolver.initMetrics();
+        publisher = new KafkaPublisher(kafkaProducerProvider, byteArrayProducerProvider, kafkaProperties,
+                replayProperties, partitionKeyResolver, new PartitionSkewTracker(), meterRegistry);
+    }
+
+    @Test
+    void testProtobufDoesNotRequestJsonProducer() {
+        publisher.initMetrics();
+        publisher.flush();
+        publisher.close();
+
+        verify(kafkaProducerProvider, never()).getObject();
+    }
+
+    @Test
+    void testProtobufRecordValueIsThePayload() throws Exception {
+        publisher.initMetrics();
+        byte[] payload = {0x0A, 0x04, 'T', '0', '0', '1', 0x1A, 0x04, 'A', 'A', 'P', 'L'};
+
+        RecordMetadata metadata = publisher.publishEvent(event(payload)).get();
+
+        assertEquals(1, byteArrayProducer.history().size());
+        ProducerRecord<String, byte[]> record = byteArrayProducer.history().get(0);
+        assertArrayEquals(payload, record.value());
+        assertEquals("trade-events", metadata.topic());
+        assertEquals("protobuf", new String(
+                record.headers().lastHeader(KafkaPublisher.EVENT_FORMAT_HEADER).value(), StandardCharsets.UTF_8));
+        assertEquals("evt-1", new String(record.headers().lastHeader("event-id").value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEventWithoutPayloadFails() {
+        publisher.initMetrics();
+
+        CompletableFuture<RecordMetadata> future = publisher.publishEvent(event(null));
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertTrue(byteArrayProducer.history().isEmpty());
+    }
+
+    @Test
+    void testSkewReportCoversPrefixedTopics() throws Exception {
+        publisher.initMetrics();
+        kafkaProperties.getPartitioning().setTradeEvents(KafkaProperties.Partitioning.KeyStrategy.ACCOUNT);
+        KafkaProperties.Topics sessionTopics = new KafkaProperties.Topics();
+        sessionTopics.setTradeEvents("qa1.trade-events");
+
+        publisher.publishEvent(event(new byte[]{1})).get();
+        publisher.publishEvent(event(new byte[]{2}), sessionTopics).get();
+
+        List<PartitionSkewReport> reports = publisher.getPartitionSkewReports();
+        assertEquals(List.of("qa1.trade-events", "trade-events"),
+                reports.stream().map(PartitionSkewReport::getTopic).toList());
+        assertEquals("ACCOUNT", reports.get(0).getKeyStrategy());
+        assertEquals(1, reports.get(0).getTotalEvents());
+    }
+
+    @Test
+    void testProtobufPayloadRequiresProtobufSource() {
+        replayProperties.getSource().setFormat(ReplayProperties.Source.Format.JSON);
+
+        assertThrows(IllegalStateException.class, publisher::initMetrics);
+    }
+
+    private static ChipmunkEvent event(byte[] payload) {
+        return ChipmunkEvent.builder()
+                .eventId("evt-1")
+                .eventType(ChipmunkEvent.EventType.TRADE)
+                .region("US")
+                .lineNumber(1)
+                .payload(payload)
+                .build();
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -35,7 +36,7 @@ class LocalFileChipmunkReaderTest {
         replayProperties.getSource().setLocal(new ReplayProperties.Source.Local());
         
         objectMapper = new ObjectMapper();
-        reader = new LocalFileChipmunkReader(replayProperties, objectMapper);
+        reader = new LocalFileChipmunkReader(replayProperties, new ChipmunkJsonParser(objectMapper));
     }
     
     @Test
@@ -93,6 +94,29 @@ class LocalFileChipmunkReaderTest {
         assertEquals(3, count); // Only non-empty, non-comment lines should be counted
     }
     
+    @Test
+    void testReadEventsBetween() throws IOException {
+        Path testFile = tempDir.resolve("test-events.json");
+        String content = """
+            {"timestamp": "2024-01-01T14:29:59Z", "trade_id": "T001", "symbol": "AAPL", "price": 150.0}
+            {"timestamp": "2024-01-01T14:30:00Z", "trade_id": "T002", "symbol": "AAPL", "price": 150.1}
+            {"timestamp": "2024-01-01T14:45:00Z", "trade_id": "T003", "symbol": "AAPL", "price": 150.2}
+            {"timestamp": "2024-01-01T15:00:00Z", "trade_id": "T004", "symbol": "AAPL", "price": 150.3}
+            """;
+        Files.writeString(testFile, content);
+        
+        replayProperties.getSource().getLocal().setFilePath(testFile.toString());
+        
+        try (Stream<ChipmunkEvent> events = reader.readEventsBetween(
+                Instant.parse("2024-01-01T14:30:00Z"), Instant.parse("2024-01-01T15:00:00Z"))) {
+            List<ChipmunkEvent> eventList = events.toList();
+            
+            assertEquals(2, eventList.size());
+            assertEquals(2L, eventList.get(0).getLineNumber());
+            assertEquals(3L, eventList.get(1).getLineNumber());
+        }
+    }
+    
     @Test
     void testReadEventsFromNonExistentFile() {
         replayProperties.getSource().getLocal().setFilePath("/nonexistent/file.json");
@@ -122,4 +146,31 @@ class LocalFileChipmunkReaderTest {
             assertEquals(3, eventList.size());
         }
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testReadEventsFromSkipsLinesIncludingInvalidOnes() throws IOException {
+        Path testFile = tempDir.resolve("test-events.json");
+        String content = """
+            {"timestamp": "2024-01-01T10:00:00Z", "trade_id": "T001", "symbol": "AAPL", "price": 150.0}
+            invalid json line
+            
+            # comment
+            {"timestamp": "2024-01-01T10:00:01Z", "symbol": "AAPL", "price": 150.1}
+            {"timestamp": "2024-01-01T10:00:02Z", "base_currency": "USD", "target_currency": "EUR", "rate": 0.85}
+            """;
+        Files.writeString(testFile, content);
+        
+        replayProperties.getSource().getLocal().setFilePath(testFile.toString());
+        assertTrue(reader.resumesByLineNumber());
+        
+        // Resuming after line 2 continues from line 3, whether or not line 2 parsed
+        try (Stream<ChipmunkEvent> events = reader.readEventsFrom(2)) {
+            List<ChipmunkEvent> eventList = events.toList();
+            
+            assertEquals(2, eventList.size());
+            assertEquals(3L, eventList.get(0).getLineNumber());
+            assertEquals(ChipmunkEvent.EventType.MARKET_DATA, eventList.get(0).getEventType());
+            assertEquals(4L, eventList.get(1).getLineNumber());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MappedFrameCursor.
+ */
+class MappedFrameCursorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWalksFramesAcrossWindowBoundaries() throws IOException {
+        // A 16-byte window forces frames to straddle windows and the 40-byte frame to exceed one
+        Path file = writeFrames("a", "frame-two", "x".repeat(40), "last");
+
+        try (MappedFrameCursor cursor = new MappedFrameCursor(file, 16)) {
+            assertEquals("a", asString(cursor.nextFrame()));
+            assertEquals("frame-two", asString(cursor.nextFrame()));
+            assertEquals("x".repeat(40), asString(cursor.nextFrame()));
+            assertEquals("last", asString(cursor.nextFrame()));
+            assertNull(cursor.nextFrame());
+            assertEquals(cursor.size(), cursor.position());
+        }
+    }
+
+    @Test
+    void testFramesAreSlicesOfTheMapping() throws IOException {
+        Path file = writeFrames("payload");
+
+        try (MappedFrameCursor cursor = new MappedFrameCursor(file, 1024)) {
+            ByteBuffer frame = cursor.nextFrame();
+
+            assertTrue(frame.isDirect(), "Frames should not be copied onto the heap");
+            assertEquals(7, frame.remaining());
+        }
+    }
+
+    @Test
+    void testStopsAtTruncatedFrame() throws IOException {
+        Path file = writeFrames("complete");
+        // Length prefix claims 100 bytes but only 3 follow
+        Files.write(file, new byte[]{0, 0, 0, 100, 1, 2, 3}, java.nio.file.StandardOpenOption.APPEND);
+
+        try (MappedFrameCursor cursor = new MappedFrameCursor(file, 1024)) {
+            assertEquals("complete", asString(cursor.nextFrame()));
+            assertNull(cursor.nextFrame());
+        }
+    }
+
+    @Test
+    void testEmptyFile() throws IOException {
+        Path file = tempDir.resolve("empty.chip");
+        Files.write(file, new byte[0]);
+
+        try (MappedFrameCursor cursor = new MappedFrameCursor(file, 1024)) {
+            assertNull(cursor.nextFrame());
+        }
+    }
+
+    private Path writeFrames(String... bodies) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (String body : bodies) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            baos.write((bytes.length >>> 24) & 0xFF);
+            baos.write((bytes.length >>> 16) & 0xFF);
+            baos.write((bytes.length >>> 8) & 0xFF);
+            baos.write(bytes.length & 0xFF);
+            baos.write(bytes);
+        }
+
+        Path file = tempDir.resolve("frames.chip");
+        Files.write(file, baos.toByteArray());
+        return file;
+    }
+
+    private String asString(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,174 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.iris.proto.TradeEvent;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for MergingChipmunkReader.
+ */
+class MergingChipmunkReaderTest {
+
+    private static final long BASE_MILLIS = 1704103200000L;
+
+    @TempDir
+    Path tempDir;
+
+    private ReplayProperties replayProperties;
+    private MergingChipmunkReader reader;
+
+    @BeforeEach
+    void setUp() {
+        replayProperties = new ReplayProperties();
+        replayProperties.getSource().setType(ReplayProperties.Source.SourceType.LOCAL_FILE);
+        replayProperties.getSource().setFormat(ReplayProperties.Source.Format.PROTOBUF);
+        replayProperties.getSource().getMerge().setEnabled(true);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        MinIOObjectSource objectSource = new MinIOObjectSource(
+                mock(S3Client.class), replayProperties, new SimpleMeterRegistry());
+        ChipmunkReaderFactory readerFactory = new ChipmunkReaderFactory(objectSource, replayProperties,
+                new ChipmunkJsonParser(objectMapper), new ChipmunkRecordDecoder(objectMapper));
+        reader = new MergingChipmunkReader(readerFactory, replayProperties);
+    }
+
+    @Test
+    void testMergesFilesInTimestampOrder() throws IOException {
+        Path us = writeChipmunkFile("us.chip", "US", 0, 3, 3, 7);
+        Path uk = writeChipmunkFile("uk.chip", "UK", 1, 3, 5);
+        Path jp = writeChipmunkFile("jp.chip", "JP");
+        replayProperties.getSource().getMerge().setFiles(List.of(us.toString(), uk.toString(), jp.toString()));
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            List<ChipmunkEvent> eventList = events.toList();
+
+            assertEquals(List.of(0L, 1L, 3L, 3L, 3L, 5L, 7L), eventList.stream()
+                    .map(event -> event.getTimestamp().toEpochMilli() - BASE_MILLIS)
+                    .toList());
+            // Equal timestamps keep the order of the file list
+            assertEquals(List.of("US", "UK", "US", "US", "UK", "UK", "US"), eventList.stream()
+                    .map(ChipmunkEvent::getRegion)
+                    .toList());
+            // Line numbers stay those of each event's own file
+            assertEquals(2L, eventList.get(2).getLineNumber());
+            assertEquals(7, eventList.stream().map(ChipmunkEvent::getEventId).distinct().count());
+        }
+
+        assertEquals(7, reader.getTotalEventCount());
+    }
+
+    @Test
+    void testResumeAndWindowMatchFullRead() throws IOException {
+        Path us = writeChipmunkFile("us.chip", "US", 0, 2, 4, 6);
+        Path uk = writeChipmunkFile("uk.chip", "UK", 1, 3, 5, 7);
+        replayProperties.getSource().getMerge().setFiles(List.of(us.toString(), uk.toString()));
+
+        List<String> fullRead;
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            fullRead = events.map(ChipmunkEvent::getEventId).toList();
+        }
+
+        try (Stream<ChipmunkEvent> events = reader.readEventsFrom(5)) {
+            assertEquals(fullRead.subList(5, 8), events.map(ChipmunkEvent::getEventId).toList());
+        }
+        try (Stream<ChipmunkEvent> events = reader.readEventsBetween(
+                Instant.ofEpochMilli(BASE_MILLIS + 2), Instant.ofEpochMilli(BASE_MILLIS + 6))) {
+            assertEquals(fullRead.subList(2, 6), events.map(ChipmunkEvent::getEventId).toList());
+        }
+    }
+
+    @Test
+    void testListsFilesFromManifestAndPrefix() throws IOException {
+        Path dailyDir = Files.createDirectories(tempDir.resolve("2024-01-01"));
+        Path us = writeChipmunkFile("2024-01-01/us.chip", "US", 0);
+        Path uk = writeChipmunkFile("2024-01-01/uk.chip", "UK", 1);
+        Files.writeString(dailyDir.resolve("uk.chip.idx"), "not a chipmunk file");
+        Path jp = writeChipmunkFile("jp.chip", "JP", 2);
+
+        Path manifest = tempDir.resolve("manifest.txt");
+        Files.writeString(manifest, "# Asia\n" + jp + "\n\n" + us + "\n");
+
+        ReplayProperties.Source.Merge merge = replayProperties.getSource().getMerge();
+        merge.setManifest(manifest.toString());
+        merge.setPrefix(dailyDir.toString());
+
+        ChipmunkReaderFactory readerFactory = new ChipmunkReaderFactory(null, replayProperties, null, null);
+        // Manifest order first; the prefix adds the files it has not listed, sorted
+        assertEquals(List.of(jp.toString(), us.toString(), uk.toString()), readerFactory.listFiles());
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            assertEquals(List.of("US", "UK", "JP"), events.map(ChipmunkEvent::getRegion).toList());
+        }
+    }
+
+    @Test
+    void testRejectsMergeWithoutFiles() {
+        assertThrows(IOException.class, () -> reader.readEvents());
+    }
+
+    @Test
+    void testFilesAreOpenedOnFirstAdvance() throws IOException {
+        Path us = writeChipmunkFile("us.chip", "US", 0);
+        Path missing = tempDir.resolve("missing.chip");
+        replayProperties.getSource().getMerge().setFiles(List.of(us.toString(), missing.toString()));
+
+        // Building the stream opens nothing, so the missing file only fails the first read
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            assertThrows(UncheckedIOException.class, events::findFirst);
+        }
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            writeChipmunkFile("missing.chip", "UK", 1);
+            assertEquals(List.of("US", "UK"), events.map(ChipmunkEvent::getRegion).toList());
+        }
+    }
+
+    /**
+     * Writes a file of trades at the given millisecond offsets from BASE_MILLIS.
+     */
+    private Path writeChipmunkFile(String name, String region, long... offsets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        for (long offset : offsets) {
+            long timestamp = BASE_MILLIS + offset;
+            byte[] record = ChipmunkRecord.newBuilder()
+                    .setEventType("TRADE")
+                    .setTimestamp(timestamp)
+                    .setRegion(region)
+                    .setPayload(TradeEvent.newBuilder()
+                            .setTradeId(region + "-" + offset)
+                            .setInstrument("AAPL")
+                            .setTradeTimestamp(timestamp)
+                            .build()
+                            .toByteString())
+                    .build()
+                    .toByteArray();
+            output.writeInt(record.length);
+            output.write(record);
+        }
+
+        Path file = tempDir.resolve(name);
+        Files.write(file, bytes.toByteArray());
+        return file;
+    }
+}
@@ -0,0 +1,90 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties.Partitioning.KeyStrategy;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionKeyResolver.
+ */
+class PartitionKeyResolverTest {
+
+    private KafkaProperties kafkaProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionKeyResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        kafkaProperties = new KafkaProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new PartitionKeyResolver(kafkaProperties, meterRegistry);
+        resolver.initMetrics();
+    }
+
+    @Test
+    void testDefaultsToRegionTypeKey() {
+        assertEquals("US_TRADE", resolver.resolve(trade()));
+        assertEquals("UK_FX_RATE", resolver.resolve(fx()));
+    }
+
+    @Test
+    void testStrategyIsChosenPerTopic() {
+        kafkaProperties.getPartitioning().setTradeEvents(KeyStrategy.ACCOUNT);
+        kafkaProperties.getPartitioning().setFxRates(KeyStrategy.CURRENCY_PAIR);
+
+        assertEquals("ACC-1", resolver.resolve(trade()));
+        assertEquals("GBP/USD", resolver.resolve(fx()));
+        assertEquals(KeyStrategy.REGION_TYPE, resolver.strategyFor(ChipmunkEvent.EventType.MARKET_DATA));
+    }
+
+    @Test
+    void testMissingFieldFallsBackToRegionTypeKey() {
+        kafkaProperties.getPartitioning().setFxRates(KeyStrategy.INSTRUMENT);
+
+        assertEquals("UK_FX_RATE", resolver.resolve(fx()));
+        assertEquals(1, meterRegistry.get("replay.partition.key.fallback").counter().count(), 0.0);
+    }
+
+    @Test
+    void testCompositeJoinsConfiguredFields() {
+        kafkaProperties.getPartitioning().setTradeEvents(KeyStrategy.COMPOSITE);
+        kafkaProperties.getPartitioning().setCompositeFields(List.of(KeyStrategy.INSTRUMENT, KeyStrategy.ACCOUNT));
+
+        assertEquals("AAPL|ACC-1", resolver.resolve(trade()));
+
+        ChipmunkEvent withoutAccount = trade();
+        withoutAccount.setAccount(null);
+        assertEquals("US_TRADE", resolver.resolve(withoutAccount));
+    }
+
+    @Test
+    void testRejectsNestedComposite() {
+        kafkaProperties.getPartitioning().setCompositeFields(List.of(KeyStrategy.INSTRUMENT, KeyStrategy.COMPOSITE));
+
+        assertThrows(IllegalStateException.class, () -> resolver.initMetrics());
+    }
+
+    private ChipmunkEvent trade() {
+        return ChipmunkEvent.builder()
+                .eventType(ChipmunkEvent.EventType.TRADE)
+                .region("US")
+                .instrument("AAPL")
+                .account("ACC-1")
+                .build();
+    }
+
+    private ChipmunkEvent fx() {
+        return ChipmunkEvent.builder()
+                .eventType(ChipmunkEvent.EventType.FX_RATE)
+                .region("UK")
+                .currencyPair("GBP/USD")
+                .build();
+    }
+}
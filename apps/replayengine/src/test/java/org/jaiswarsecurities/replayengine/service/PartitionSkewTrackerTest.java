@@ -0,0 +1,56 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.model.PartitionSkewReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionSkewTracker.
+ */
+class PartitionSkewTrackerTest {
+
+    private final PartitionSkewTracker tracker = new PartitionSkewTracker();
+
+    @Test
+    void testReportIncludesIdlePartitions() {
+        for (int i = 0; i < 6; i++) {
+            tracker.record("trade-events", 0);
+        }
+        tracker.record("trade-events", 2);
+        tracker.record("trade-events", 2);
+
+        PartitionSkewReport report = tracker.report("trade-events", "REGION_TYPE", 4);
+
+        assertEquals(8, report.getTotalEvents());
+        assertEquals(4, report.getPartitions());
+        assertEquals(new TreeMap<>(Map.of(0, 6L, 1, 0L, 2, 2L, 3, 0L)), report.getPartitionCounts());
+        // Busiest partition holds 6 of 8 events against a mean of 2
+        assertEquals(3.0, report.getMaxToMeanRatio(), 1e-9);
+    }
+
+    @Test
+    void testUnknownPartitionCountUsesObservedPartitions() {
+        tracker.record("fx-rates", 1);
+        tracker.record("fx-rates", 5);
+
+        PartitionSkewReport report = tracker.report("fx-rates", "CURRENCY_PAIR", 0);
+
+        assertEquals(2, report.getPartitions());
+        assertEquals(1.0, report.getMaxToMeanRatio(), 1e-9);
+    }
+
+    @Test
+    void testReset() {
+        tracker.record("market-data", 0);
+        assertTrue(tracker.hasRecorded("market-data"));
+
+        tracker.reset();
+
+        assertFalse(tracker.hasRecorded("market-data"));
+        assertEquals(0, tracker.report("market-data", "INSTRUMENT", 0).getTotalEvents());
+    }
+}
@@ -0,0 +1,162 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEventPool;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionedPublishPipeline.
+ */
+class PartitionedPublishPipelineTest {
+
+    @Test
+    void testPreservesOrderPerKeyAcrossLanes() throws InterruptedException {
+        Map<String, List<Long>> publishedByKey = new ConcurrentHashMap<>();
+        Set<String> laneThreads = ConcurrentHashMap.newKeySet();
+
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(4, 8, ChipmunkEvent::getRegion,
+                event -> {
+                    laneThreads.add(Thread.currentThread().getName());
+                    publishedByKey.computeIfAbsent(event.getRegion(), k -> new ArrayList<>()).add(event.getLineNumber());
+                });
+
+        String[] keys = {"UK", "US", "JAPAN", "CHINA", "INDIA", "BRAZIL", "GERMANY", "FRANCE"};
+        for (long line = 0; line < 4000; line++) {
+            pipeline.submit(event(keys[(int) (line % keys.length)], line));
+        }
+        pipeline.awaitCompletion();
+
+        assertEquals(keys.length, publishedByKey.size());
+        for (String key : keys) {
+            List<Long> lines = publishedByKey.get(key);
+            assertEquals(500, lines.size());
+            for (int i = 1; i < lines.size(); i++) {
+                assertTrue(lines.get(i - 1) < lines.get(i), "Events for " + key + " were reordered");
+            }
+        }
+        assertTrue(laneThreads.size() > 1, "Events should be spread over several lanes");
+        assertEquals(0, pipeline.getQueued());
+    }
+
+    @Test
+    void testReaderBlocksWhenLaneQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(1, 2, ChipmunkEvent::getRegion,
+                event -> release.await());
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                // One event held by the lane, two queued, the fourth has to wait
+                for (long line = 0; line < 4; line++) {
+                    pipeline.submit(event("US", line));
+                }
+                submitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reader.start();
+
+        assertFalse(submitted.await(100, TimeUnit.MILLISECONDS), "Reader should wait for room in the lane");
+        assertEquals(2, pipeline.getQueued());
+
+        release.countDown();
+        assertTrue(submitted.await(1, TimeUnit.SECONDS));
+        pipeline.awaitCompletion();
+        reader.join();
+    }
+
+    @Test
+    void testLaneSurvivesFailingEvent() throws InterruptedException {
+        List<Long> published = new ArrayList<>();
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(1, 4, ChipmunkEvent::getRegion,
+                event -> {
+                    if (event.getLineNumber() == 1) {
+                        throw new IllegalStateException("send failed");
+                    }
+                    published.add(event.getLineNumber());
+                });
+
+        for (long line = 0; line < 3; line++) {
+            pipeline.submit(event("UK", line));
+        }
+        pipeline.awaitCompletion();
+
+        assertEquals(List.of(0L, 2L), published);
+    }
+
+    @Test
+    void testShutdownNowStopsLanes() {
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(2, 4, ChipmunkEvent::getRegion,
+                event -> { });
+
+        pipeline.shutdownNow();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), pipeline::awaitCompletion);
+    }
+
+    @Test
+    void testShutdownNowRecyclesQueuedEvents() throws InterruptedException {
+        ChipmunkEventPool pool = new ChipmunkEventPool(4);
+        CountDownLatch handling = new CountDownLatch(1);
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(1, 4, ChipmunkEvent::getRegion,
+                event -> {
+                    handling.countDown();
+                    new CountDownLatch(1).await();
+                });
+
+        for (int i = 0; i < 3; i++) {
+            ChipmunkEvent event = pool.acquire();
+            event.setRegion("US");
+            pipeline.submit(event);
+        }
+        assertTrue(handling.await(1, TimeUnit.SECONDS));
+
+        pipeline.shutdownNow();
+
+        // The event on the lane belongs to its handler; the two still queued go back to the pool
+        assertEquals(2, pool.getAvailable());
+        assertEquals(0, pipeline.getQueued());
+    }
+
+    @Test
+    void testSameKeyAlwaysMapsToSameLane() {
+        PartitionedPublishPipeline pipeline = new PartitionedPublishPipeline(3, 1, ChipmunkEvent::getRegion,
+                event -> { });
+
+        assertEquals(pipeline.laneFor("US_TRADE"), pipeline.laneFor("US_TRADE"));
+        assertEquals(0, pipeline.laneFor(null));
+        assertEquals(3, pipeline.getLanes());
+
+        pipeline.shutdownNow();
+    }
+
+    @Test
+    void testRejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionedPublishPipeline(0, 4, ChipmunkEvent::getRegion, event -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionedPublishPipeline(2, 0, ChipmunkEvent::getRegion, event -> { }));
+    }
+
+    private ChipmunkEvent event(String region, long lineNumber) {
+        return ChipmunkEvent.builder()
+                .eventId("evt-" + lineNumber)
+                .eventType(ChipmunkEvent.EventType.TRADE)
+                .region(region)
+                .lineNumber(lineNumber)
+                .build();
+    }
+}
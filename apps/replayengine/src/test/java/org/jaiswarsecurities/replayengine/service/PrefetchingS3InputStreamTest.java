@@ -0,0 +1,149 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PrefetchingS3InputStream against an in-memory S3 stand-in that serves byte ranges.
+ */
+class PrefetchingS3InputStreamTest {
+
+    private S3Client s3Client;
+    private SimpleMeterRegistry meterRegistry;
+    private byte[] object;
+    private AtomicInteger rangedGets;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        meterRegistry = new SimpleMeterRegistry();
+        rangedGets = new AtomicInteger();
+        object = new byte[100_003];
+        new Random(42).nextBytes(object);
+
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenAnswer(invocation -> HeadObjectResponse.builder().contentLength((long) object.length).build());
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenAnswer(invocation -> serveRange(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testReassemblesPartsInOrder() throws IOException {
+        try (InputStream input = new PrefetchingS3InputStream(
+                s3Client, "bucket", "key", 4096, 3, 0, meterRegistry)) {
+            assertArrayEquals(object, input.readAllBytes());
+        }
+
+        // 100,003 bytes in 4 KB parts
+        assertEquals(25, rangedGets.get());
+        assertEquals(25, meterRegistry.get("replay.reader.prefetch.part.latency").timer().count());
+        assertEquals(25, meterRegistry.get("replay.reader.prefetch.part.throughput").summary().count());
+        assertEquals(object.length, meterRegistry.get("replay.reader.prefetch.bytes").counter().count(), 0.1);
+    }
+
+    @Test
+    void testSingleByteReads() throws IOException {
+        try (InputStream input = new PrefetchingS3InputStream(
+                s3Client, "bucket", "key", 1000, 2, 0, meterRegistry)) {
+            for (int i = 0; i < 2500; i++) {
+                assertEquals(object[i] & 0xFF, input.read());
+            }
+        }
+    }
+
+    @Test
+    void testStartsFromOffset() throws IOException {
+        try (InputStream input = new PrefetchingS3InputStream(
+                s3Client, "bucket", "key", 90_000, 4096, 2, 0, meterRegistry)) {
+            assertArrayEquals(Arrays.copyOfRange(object, 90_000, object.length), input.readAllBytes());
+        }
+
+        // Only the 10,003 bytes after the offset are fetched
+        assertEquals(3, rangedGets.get());
+    }
+
+    @Test
+    void testRetriesFailedPart() throws IOException {
+        AtomicInteger failures = new AtomicInteger();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.range().startsWith("bytes=8192-") && failures.getAndIncrement() == 0) {
+                throw SdkClientException.create("Connection reset");
+            }
+            return serveRange(request);
+        });
+
+        try (InputStream input = new PrefetchingS3InputStream(
+                s3Client, "bucket", "key", 4096, 4, 2, meterRegistry)) {
+            assertArrayEquals(object, input.readAllBytes());
+        }
+        // One failed attempt for the third part, then a successful retry
+        assertEquals(2, failures.get());
+    }
+
+    @Test
+    void testFailsAfterRetriesExhausted() {
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(SdkClientException.create("Connection reset"));
+
+        assertThrows(IOException.class, () -> {
+            try (InputStream input = new PrefetchingS3InputStream(
+                    s3Client, "bucket", "key", 4096, 2, 1, meterRegistry)) {
+                input.readAllBytes();
+            }
+        });
+    }
+
+    @Test
+    void testRetryDelayGrowsUpToCap() {
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long ceiling = Math.min(PrefetchingS3InputStream.RETRY_MAX_DELAY_MILLIS,
+                    PrefetchingS3InputStream.RETRY_BASE_DELAY_MILLIS << Math.min(attempt, 20));
+            long delay = PrefetchingS3InputStream.retryDelayMillis(attempt);
+            assertTrue(delay >= ceiling / 2 && delay <= ceiling, "attempt " + attempt + ": " + delay);
+        }
+    }
+
+    @Test
+    void testEmptyObject() throws IOException {
+        object = new byte[0];
+
+        try (InputStream input = new PrefetchingS3InputStream(
+                s3Client, "bucket", "key", 4096, 4, 0, meterRegistry)) {
+            assertEquals(-1, input.read());
+        }
+        assertEquals(0, rangedGets.get());
+    }
+
+    private ResponseInputStream<GetObjectResponse> serveRange(GetObjectRequest request) {
+        rangedGets.incrementAndGet();
+        String[] range = request.range().substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(range[0]);
+        int end = Math.min(Integer.parseInt(range[1]), object.length - 1);
+
+        byte[] slice = Arrays.copyOfRange(object, start, end + 1);
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) slice.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(slice)));
+    }
+}
@@ -0,0 +1,436 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.iris.proto.FxRateEvent;
+import org.jaiswarsecurities.iris.proto.MarketDataEvent;
+import org.jaiswarsecurities.iris.proto.TradeEvent;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for ProtobufChipmunkReader.
+ */
+class ProtobufChipmunkReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ProtobufChipmunkReader reader;
+    private ReplayProperties replayProperties;
+
+    @BeforeEach
+    void setUp() {
+        replayProperties = new ReplayProperties();
+        replayProperties.getSource().setType(ReplayProperties.Source.SourceType.LOCAL_FILE);
+        replayProperties.getSource().setFormat(ReplayProperties.Source.Format.PROTOBUF);
+
+        MinIOObjectSource objectSource = new MinIOObjectSource(
+                mock(S3Client.class), replayProperties, new SimpleMeterRegistry());
+        reader = new ProtobufChipmunkReader(objectSource, replayProperties,
+                new ChipmunkRecordDecoder(new ObjectMapper()));
+    }
+
+    @Test
+    void testReadEventsFromValidFile() throws IOException {
+        writeChipmunkFile("test-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, "JP"));
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            List<ChipmunkEvent> eventList = events.toList();
+
+            assertEquals(3, eventList.size());
+
+            ChipmunkEvent tradeEvent = eventList.get(0);
+            assertEquals(ChipmunkEvent.EventType.TRADE, tradeEvent.getEventType());
+            assertEquals("US", tradeEvent.getRegion());
+            assertEquals(1704103200000L, tradeEvent.getTimestamp().toEpochMilli());
+            assertEquals("T001", tradeEvent.getData().get("tradeId"));
+            assertEquals("AAPL", tradeEvent.getInstrument());
+            assertTrue(tradeEvent.getJsonPayload().contains("\"tradeId\":\"T001\""));
+            assertEquals(1L, tradeEvent.getLineNumber());
+
+            ChipmunkEvent marketEvent = eventList.get(1);
+            assertEquals(ChipmunkEvent.EventType.MARKET_DATA, marketEvent.getEventType());
+            assertEquals("AAPL", marketEvent.getData().get("instrument"));
+            assertEquals(2L, marketEvent.getLineNumber());
+
+            ChipmunkEvent fxEvent = eventList.get(2);
+            assertEquals(ChipmunkEvent.EventType.FX_RATE, fxEvent.getEventType());
+            assertEquals("USD", fxEvent.getData().get("fromCurrency"));
+            assertEquals("USD/JPY", fxEvent.getCurrencyPair());
+            assertEquals(3L, fxEvent.getLineNumber());
+        }
+    }
+
+    @Test
+    void testPayloadBytesAreKeptAsWritten() throws IOException {
+        ChipmunkRecord trade = tradeRecord(1704103200000L, "US");
+        ChipmunkRecord fx = fxRecord(1704103201000L, "JP");
+        replayProperties.getSource().getLocal().setMemoryMapped(true);
+        writeChipmunkFile("payload-events.chip", trade, fx);
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            List<ChipmunkEvent> eventList = events.toList();
+
+            assertArrayEquals(trade.getPayload().toByteArray(), eventList.get(0).getPayload());
+            assertArrayEquals(fx.getPayload().toByteArray(), eventList.get(1).getPayload());
+            // JSON is still available on demand
+            assertTrue(eventList.get(1).getJsonPayload().contains("\"fromCurrency\":\"USD\""));
+        }
+    }
+
+    @Test
+    void testPooledEventsMatchDecodedEvents() throws IOException {
+        ChipmunkRecord correlatedTrade = tradeRecord(1704103200000L, "US").toBuilder()
+                .setCorrelationId("corr-1")
+                .build();
+        writeChipmunkFile("pooled-events.chip",
+                correlatedTrade,
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, ""));
+
+        for (boolean memoryMapped : new boolean[]{true, false}) {
+            replayProperties.getSource().getLocal().setMemoryMapped(memoryMapped);
+
+            replayProperties.getEventPool().setEnabled(false);
+            List<ChipmunkEvent> decoded;
+            try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+                decoded = events.toList();
+            }
+
+            replayProperties.getEventPool().setEnabled(true);
+            try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+                List<ChipmunkEvent> pooled = events.toList();
+
+                assertEquals(decoded.size(), pooled.size());
+                for (int i = 0; i < decoded.size(); i++) {
+                    ChipmunkEvent expected = decoded.get(i);
+                    ChipmunkEvent actual = pooled.get(i);
+
+                    assertEquals(expected.getEventType(), actual.getEventType());
+                    assertEquals(expected.getTimestamp(), actual.getTimestamp());
+                    assertEquals(expected.getRegion(), actual.getRegion());
+                    assertEquals(expected.getInstrument(), actual.getInstrument());
+                    assertEquals(expected.getAccount(), actual.getAccount());
+                    assertEquals(expected.getCurrencyPair(), actual.getCurrencyPair());
+                    assertEquals(expected.getCorrelationId(), actual.getCorrelationId());
+                    assertEquals(expected.getLineNumber(), actual.getLineNumber());
+                    assertArrayEquals(expected.getPayload(), actual.getPayload());
+                    assertEquals(expected.getData().get("tradeId"), actual.getData().get("tradeId"));
+                    assertEquals(expected.getEventId(), actual.getEventId());
+                }
+                // Interned, so every event from a region shares one String
+                try (Stream<ChipmunkEvent> again = reader.readEvents()) {
+                    assertSame(pooled.get(0).getRegion(), again.findFirst().orElseThrow().getRegion());
+                }
+                assertEquals("corr-1", pooled.get(0).getData().get("correlationId"));
+                assertEquals("UNKNOWN", pooled.get(2).getRegion());
+            }
+        }
+    }
+
+    @Test
+    void testPooledStreamReadsFramesLargerThanItsBuffer() throws IOException {
+        ChipmunkRecord small = tradeRecord(1704103200000L, "US");
+        ChipmunkRecord large = tradeRecord(1704103201000L, "UK").toBuilder()
+                .setPayload(TradeEvent.newBuilder()
+                        .setTradeId("T002")
+                        .setInstrument("AAPL")
+                        .setVenue("X".repeat(20_000))
+                        .setTradeTimestamp(1704103201000L)
+                        .build()
+                        .toByteString())
+                .build();
+        ChipmunkRecord after = fxRecord(1704103202000L, "JP");
+        replayProperties.getSource().getLocal().setMemoryMapped(false);
+        writeChipmunkFile("large-events.chip", small, large, after);
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            List<ChipmunkEvent> eventList = events.toList();
+
+            // Each payload is copied out, so reusing the frame buffer leaves earlier events intact
+            assertEquals(3, eventList.size());
+            assertArrayEquals(small.getPayload().toByteArray(), eventList.get(0).getPayload());
+            assertArrayEquals(large.getPayload().toByteArray(), eventList.get(1).getPayload());
+            assertArrayEquals(after.getPayload().toByteArray(), eventList.get(2).getPayload());
+            assertEquals("T002", eventList.get(1).getData().get("tradeId"));
+            assertEquals(3L, eventList.get(2).getLineNumber());
+        }
+    }
+
+    @Test
+    void testGetTotalEventCount() throws IOException {
+        writeChipmunkFile("count-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                tradeRecord(1704103201000L, "US"),
+                marketDataRecord(1704103202000L, "UK"),
+                fxRecord(1704103203000L, "CN"));
+
+        assertEquals(4, reader.getTotalEventCount());
+    }
+
+    @Test
+    void testNegativeFrameLengthEndsRead() throws IOException {
+        ChipmunkRecord trade = tradeRecord(1704103200000L, "US");
+        byte[] following = fxRecord(1704103201000L, "JP").toByteArray();
+        replayProperties.getSource().getLocal().setMemoryMapped(false);
+        replayProperties.getEventPool().setEnabled(false);
+        writeChipmunkFile("negative-length.chip", trade);
+
+        // A corrupt prefix in front of an otherwise valid record must not be read past
+        Path file = tempDir.resolve("negative-length.chip");
+        ByteArrayOutputStream corrupt = new ByteArrayOutputStream();
+        corrupt.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0});
+        corrupt.write(following);
+        Files.write(file, corrupt.toByteArray(), StandardOpenOption.APPEND);
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            Iterator<ChipmunkEvent> iterator = events.iterator();
+
+            assertEquals(1L, iterator.next().getLineNumber());
+            assertThrows(UncheckedIOException.class, iterator::hasNext);
+        }
+    }
+
+    @Test
+    void testReadEventsSkipsUndecodableFrames() throws IOException {
+        ChipmunkRecord unknownType = ChipmunkRecord.newBuilder()
+                .setEventType("UNKNOWN")
+                .setTimestamp(1704103201000L)
+                .setRegion("US")
+                .build();
+        ChipmunkRecord corruptPayload = ChipmunkRecord.newBuilder()
+                .setEventType("TRADE")
+                .setTimestamp(1704103202000L)
+                .setRegion("US")
+                .setPayload(ByteString.copyFrom(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF}))
+                .build();
+
+        writeChipmunkFile("invalid-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                unknownType,
+                corruptPayload,
+                fxRecord(1704103203000L, "JP"));
+
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            List<ChipmunkEvent> eventList = events.toList();
+
+            // Undecodable frames are skipped but still count towards the line numbers
+            assertEquals(2, eventList.size());
+            assertEquals(1L, eventList.get(0).getLineNumber());
+            assertEquals(4L, eventList.get(1).getLineNumber());
+        }
+    }
+
+    @Test
+    void testReadEventsFromSeeksThroughIndex() throws IOException {
+        writeChipmunkFile("resume-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, "JP"),
+                tradeRecord(1704103203000L, "US"),
+                marketDataRecord(1704103204000L, "UK"),
+                fxRecord(1704103205000L, "CN"));
+        replayProperties.getSource().getIndex().setStride(2);
+
+        for (boolean memoryMapped : new boolean[]{true, false}) {
+            replayProperties.getSource().getLocal().setMemoryMapped(memoryMapped);
+
+            try (Stream<ChipmunkEvent> events = reader.readEventsFrom(3)) {
+                List<ChipmunkEvent> eventList = events.toList();
+
+                assertEquals(3, eventList.size());
+                assertEquals(4L, eventList.get(0).getLineNumber());
+                assertEquals(1704103203000L, eventList.get(0).getTimestamp().toEpochMilli());
+                assertEquals(6L, eventList.get(2).getLineNumber());
+                assertEquals("CN", eventList.get(2).getRegion());
+            }
+        }
+
+        // The index built on first read is kept next to the file
+        Path chipmunkFile = Path.of(replayProperties.getSource().getLocal().getFilePath());
+        assertTrue(Files.exists(ChipmunkIndex.sidecarPath(chipmunkFile)));
+    }
+
+    @Test
+    void testEventIdsAreStableAcrossReads() throws IOException {
+        writeChipmunkFile("id-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, "JP"),
+                tradeRecord(1704103203000L, "US"));
+        replayProperties.getSource().getIndex().setStride(2);
+
+        List<String> fullRead;
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            fullRead = events.map(ChipmunkEvent::getEventId).toList();
+        }
+        try (Stream<ChipmunkEvent> events = reader.readEventsFrom(2)) {
+            assertEquals(fullRead.subList(2, 4), events.map(ChipmunkEvent::getEventId).toList());
+        }
+
+        EventIdNamespace namespace = EventIdNamespace.forSource(replayProperties.getSource());
+        assertEquals(namespace.eventId(1), fullRead.get(0));
+        assertEquals(4, fullRead.stream().distinct().count());
+
+        replayProperties.getSource().setEventIdNamespace("trades-2024-01-01");
+        try (Stream<ChipmunkEvent> events = reader.readEvents()) {
+            assertEquals(EventIdNamespace.of("trades-2024-01-01").eventId(1),
+                    events.findFirst().orElseThrow().getEventId());
+        }
+    }
+
+    @Test
+    void testReadEventsBetweenStopsAtWindowEnd() throws IOException {
+        writeChipmunkFile("window-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, "JP"),
+                tradeRecord(1704103202000L, "CN"),
+                marketDataRecord(1704103204000L, "UK"),
+                fxRecord(1704103205000L, "CN"));
+        replayProperties.getSource().getIndex().setStride(2);
+
+        for (boolean memoryMapped : new boolean[]{true, false}) {
+            replayProperties.getSource().getLocal().setMemoryMapped(memoryMapped);
+
+            try (Stream<ChipmunkEvent> events = reader.readEventsBetween(
+                    Instant.ofEpochMilli(1704103202000L), Instant.ofEpochMilli(1704103204000L))) {
+                List<ChipmunkEvent> eventList = events.toList();
+
+                // Both events sharing the start timestamp are included, the end bound is exclusive
+                assertEquals(2, eventList.size());
+                assertEquals(3L, eventList.get(0).getLineNumber());
+                assertEquals("JP", eventList.get(0).getRegion());
+                assertEquals(4L, eventList.get(1).getLineNumber());
+            }
+        }
+    }
+
+    @Test
+    void testReadEventsBetweenOpenBounds() throws IOException {
+        writeChipmunkFile("open-window-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                marketDataRecord(1704103201000L, "UK"),
+                fxRecord(1704103202000L, "JP"));
+
+        try (Stream<ChipmunkEvent> events = reader.readEventsBetween(null, Instant.ofEpochMilli(1704103202000L))) {
+            assertEquals(2, events.count());
+        }
+        try (Stream<ChipmunkEvent> events = reader.readEventsBetween(Instant.ofEpochMilli(1704103201000L), null)) {
+            assertEquals(2, events.count());
+        }
+    }
+
+    @Test
+    void testReadEventsFromPastEndIsEmpty() throws IOException {
+        writeChipmunkFile("short-events.chip",
+                tradeRecord(1704103200000L, "US"),
+                fxRecord(1704103201000L, "JP"));
+
+        try (Stream<ChipmunkEvent> events = reader.readEventsFrom(5)) {
+            assertEquals(0, events.count());
+        }
+    }
+
+    @Test
+    void testReadEventsFromNonExistentFile() {
+        replayProperties.getSource().getLocal().setFilePath("/nonexistent/file.chip");
+
+        assertThrows(IOException.class, () -> reader.readEvents());
+    }
+
+    private void writeChipmunkFile(String name, ChipmunkRecord... records) throws IOException {
+        // Same framing as ChipmunkFileGenerator: 4-byte big-endian length prefix per record
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (ChipmunkRecord record : records) {
+            byte[] recordBytes = record.toByteArray();
+            baos.write((recordBytes.length >>> 24) & 0xFF);
+            baos.write((recordBytes.length >>> 16) & 0xFF);
+            baos.write((recordBytes.length >>> 8) & 0xFF);
+            baos.write(recordBytes.length & 0xFF);
+            baos.write(recordBytes);
+        }
+
+        Path file = tempDir.resolve(name);
+        Files.write(file, baos.toByteArray());
+        replayProperties.getSource().getLocal().setFilePath(file.toString());
+    }
+
+    private ChipmunkRecord tradeRecord(long timestamp, String region) {
+        TradeEvent trade = TradeEvent.newBuilder()
+                .setTradeId("T001")
+                .setInstrument("AAPL")
+                .setPrice(150.0)
+                .setQuantity(100)
+                .setSide("BUY")
+                .setVenue("NYSE")
+                .setTradeTimestamp(timestamp)
+                .build();
+
+        return ChipmunkRecord.newBuilder()
+                .setEventType("TRADE")
+                .setTimestamp(timestamp)
+                .setRegion(region)
+                .setPayload(trade.toByteString())
+                .build();
+    }
+
+    private ChipmunkRecord marketDataRecord(long timestamp, String region) {
+        MarketDataEvent marketData = MarketDataEvent.newBuilder()
+                .setInstrument("AAPL")
+                .setBid(149.5)
+                .setAsk(150.5)
+                .setLastPrice(150.0)
+                .setTimestamp(timestamp)
+                .build();
+
+        return ChipmunkRecord.newBuilder()
+                .setEventType("MARKET_DATA")
+                .setTimestamp(timestamp)
+                .setRegion(region)
+                .setPayload(marketData.toByteString())
+                .build();
+    }
+
+    private ChipmunkRecord fxRecord(long timestamp, String region) {
+        FxRateEvent fxRate = FxRateEvent.newBuilder()
+                .setFromCurrency("USD")
+                .setToCurrency("JPY")
+                .setRate(110.0)
+                .setBid(109.99)
+                .setAsk(110.01)
+                .setTimestamp(timestamp)
+                .build();
+
+        return ChipmunkRecord.newBuilder()
+                .setEventType("FX")
+                .setTimestamp(timestamp)
+                .setRegion(region)
+                .setPayload(fxRate.toByteString())
+                .build();
+    }
+}
@@ -41,7 +41,7 @@ class ReplayEngineIntegrationTest {
         
         // Create reader
         ObjectMapper objectMapper = new ObjectMapper();
-        chipmunkReader = new LocalFileChipmunkReader(replayProperties, objectMapper);
+        chipmunkReader = new LocalFileChipmunkReader(replayProperties, new ChipmunkJsonParser(objectMapper));
     }
     
     @Test
@@ -0,0 +1,82 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplayPacer.
+ */
+class ReplayPacerTest {
+
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testFractionalMultiplierIsHonoured() throws InterruptedException {
+        ReplayPacer pacer = new ReplayPacer(2.5, SPIN_THRESHOLD_NANOS, meterRegistry);
+
+        long start = System.nanoTime();
+        pacer.awaitEvent(1_000);
+        pacer.awaitEvent(1_400);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 400 ms of event time at 2.5x is 160 ms; truncating to 2x would take 200 ms
+        assertTrue(elapsedMillis >= 160, "Released too early: " + elapsedMillis + " ms");
+        assertTrue(elapsedMillis < 200, "Multiplier was not honoured: " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testEventsSharingDueTimeAreCoalesced() throws InterruptedException {
+        ReplayPacer pacer = new ReplayPacer(1.0, SPIN_THRESHOLD_NANOS, meterRegistry);
+
+        pacer.awaitEvent(5_000);
+        pacer.awaitEvent(5_010);
+        pacer.awaitEvent(5_010);
+        pacer.awaitEvent(5_010);
+        // Out-of-order event already in the past
+        pacer.awaitEvent(5_005);
+
+        assertEquals(3, meterRegistry.get("replay.pacer.coalesced").counter().count(), 0.0);
+        assertEquals(2, meterRegistry.get("replay.pacer.drift").timer().count());
+    }
+
+    @Test
+    void testDriftIsRecordedPerWakeup() throws InterruptedException {
+        ReplayPacer pacer = new ReplayPacer(10.0, SPIN_THRESHOLD_NANOS, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            pacer.awaitEvent(i * 100L);
+        }
+
+        assertEquals(5, meterRegistry.get("replay.pacer.drift").timer().count());
+        // Spinning through the last stretch keeps wakeups well inside a millisecond on an idle machine
+        assertTrue(meterRegistry.get("replay.pacer.drift").timer().mean(TimeUnit.MILLISECONDS) < 5);
+    }
+
+    @Test
+    void testInterruptStopsWaiting() {
+        ReplayPacer pacer = new ReplayPacer(1.0, SPIN_THRESHOLD_NANOS, meterRegistry);
+
+        assertDoesNotThrow(() -> pacer.awaitEvent(0));
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, () -> pacer.awaitEvent(60_000));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void testRejectsNonPositiveMultiplier() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayPacer(0, SPIN_THRESHOLD_NANOS, meterRegistry));
+        assertThrows(IllegalArgumentException.class, () -> new ReplayPacer(Double.NaN, SPIN_THRESHOLD_NANOS, meterRegistry));
+    }
+}
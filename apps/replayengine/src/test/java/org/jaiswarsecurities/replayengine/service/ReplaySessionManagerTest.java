@@ -0,0 +1,245 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayEngineConfig;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ReplayCheckpoint;
+import org.jaiswarsecurities.replayengine.model.ReplaySessionRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ReplaySessionManager.
+ */
+class ReplaySessionManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReplayProperties replayProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private KafkaPublisher kafkaPublisher;
+    private ObjectMapper objectMapper;
+    private ReplaySessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        replayProperties = new ReplayProperties();
+        replayProperties.setSpeedMode(ReplayProperties.SpeedMode.BURST);
+        replayProperties.getSource().setType(ReplayProperties.Source.SourceType.LOCAL_FILE);
+        replayProperties.getCheckpoint().setFilePath(tempDir.resolve("replay-checkpoint.journal").toString());
+
+        kafkaPublisher = mock(KafkaPublisher.class);
+        when(kafkaPublisher.publishEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaPublisher.publishEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        objectMapper = new ReplayEngineConfig().objectMapper();
+        meterRegistry = new SimpleMeterRegistry();
+        ChipmunkReaderFactory readerFactory = new ChipmunkReaderFactory(
+                new MinIOObjectSource(mock(S3Client.class), replayProperties, meterRegistry), replayProperties,
+                new ChipmunkJsonParser(objectMapper), new ChipmunkRecordDecoder(objectMapper));
+
+        sessionManager = new ReplaySessionManager(readerFactory, kafkaPublisher, replayProperties,
+                new KafkaProperties(), objectMapper, meterRegistry,
+                new StaticListableBeanFactory().getBeanProvider(DynamoDbCheckpointStore.class));
+        sessionManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.shutdown();
+    }
+
+    @Test
+    void testSessionsReplayTheirOwnSources() throws Exception {
+        Path trades = writeEvents("trades.json", 3);
+        Path quotes = writeEvents("quotes.json", 5);
+
+        ReplaySession first = sessionManager.createSession("qa-1", ReplaySessionRequest.builder()
+                .filePath(trades.toString())
+                .topicPrefix("qa1.")
+                .build());
+        ReplaySession second = sessionManager.createSession("qa-2", ReplaySessionRequest.builder()
+                .filePath(quotes.toString())
+                .build());
+
+        awaitFinished(first);
+        awaitFinished(second);
+
+        assertEquals(ReplaySession.State.COMPLETED, first.getState());
+        assertEquals(3, first.getEventsProcessed());
+        assertEquals(5, second.getEventsProcessed());
+        assertEquals(trades.toString(), first.getStatus().getSource());
+
+        verify(kafkaPublisher, times(3)).publishEvent(any(ChipmunkEvent.class),
+                argThat(topics -> "qa1.trade-events".equals(topics.getTradeEvents())));
+        verify(kafkaPublisher, times(5)).publishEvent(any(ChipmunkEvent.class));
+
+        assertEquals(3.0, meterRegistry.get("replay.session.events.processed").tag("session", "qa-1").gauge().value());
+        assertEquals(2, sessionManager.getSessions().size());
+    }
+
+    @Test
+    void testRejectsInvalidAndDuplicateSessions() throws Exception {
+        Path trades = writeEvents("trades.json", 1);
+        ReplaySessionRequest request = ReplaySessionRequest.builder().filePath(trades.toString()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> sessionManager.createSession("../etc", request));
+        assertThrows(IllegalArgumentException.class, () -> sessionManager.createSession("qa-1",
+                ReplaySessionRequest.builder().filePath(trades.toString()).objectKey("trades.json").build()));
+        assertThrows(IllegalArgumentException.class, () -> sessionManager.createSession("qa-1",
+                ReplaySessionRequest.builder().filePath(trades.toString()).speedMode("warp").build()));
+
+        sessionManager.createSession("qa-1", request);
+        assertThrows(IllegalStateException.class, () -> sessionManager.createSession("qa-1", request));
+
+        replayProperties.getSessions().setMaxConcurrent(0);
+        assertThrows(IllegalStateException.class, () -> sessionManager.createSession("qa-2", request));
+        assertNull(sessionManager.getSession("qa-2"));
+    }
+
+    @Test
+    void testConcurrentCreatesStayWithinLimit() throws Exception {
+        Path trades = writeEvents("trades.json", 3);
+        ReplaySessionRequest request = ReplaySessionRequest.builder().filePath(trades.toString()).build();
+        replayProperties.getSessions().setMaxConcurrent(2);
+
+        // Sends hold until the end of the test, so every created session stays running
+        CountDownLatch sendsHeld = new CountDownLatch(1);
+        when(kafkaPublisher.publishEvent(any())).thenAnswer(invocation -> {
+            sendsHeld.await();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        int creators = 8;
+        CyclicBarrier barrier = new CyclicBarrier(creators);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(creators);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < creators; i++) {
+                String id = "qa-" + i;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        sessionManager.createSession(id, request);
+                        created.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            assertEquals(2, created.get());
+            assertEquals(creators - 2, rejected.get());
+            assertEquals(2, sessionManager.getSessions().size());
+        } finally {
+            sendsHeld.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDeleteForgetsSession() throws Exception {
+        Path trades = writeEvents("trades.json", 2);
+        ReplaySession session = sessionManager.createSession("qa-1",
+                ReplaySessionRequest.builder().filePath(trades.toString()).build());
+        awaitFinished(session);
+
+        assertTrue(sessionManager.deleteSession("qa-1"));
+        assertNull(sessionManager.getSession("qa-1"));
+        assertNull(meterRegistry.find("replay.session.events.processed").tag("session", "qa-1").gauge());
+        assertFalse(sessionManager.deleteSession("qa-1"));
+    }
+
+    @Test
+    void testFailedSendKeepsCheckpointBeforeIt() throws Exception {
+        Path trades = writeEvents("trades.json", 3);
+        ReplaySessionRequest request = ReplaySessionRequest.builder().filePath(trades.toString()).build();
+        when(kafkaPublisher.publishEvent(any())).thenAnswer(invocation ->
+                invocation.<ChipmunkEvent>getArgument(0).getLineNumber() == 2
+                        ? CompletableFuture.failedFuture(new IllegalStateException("Broker unavailable"))
+                        : CompletableFuture.completedFuture(null));
+
+        ReplaySession failing = sessionManager.createSession("qa-1", request);
+        awaitFinished(failing);
+
+        // Lines 1 and 3 were acknowledged, but line 2 was not, so a resume starts at line 2
+        assertEquals(2, failing.getEventsProcessed());
+        assertEquals(1, failing.getEventsFailed());
+        Path checkpointFile = tempDir.resolve("replay-checkpoint-qa-1.journal");
+        ReplayCheckpoint checkpoint = CheckpointJournal.recover(checkpointFile);
+        assertEquals(1, checkpoint.getCurrentLineNumber());
+
+        when(kafkaPublisher.publishEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        sessionManager.deleteSession("qa-1");
+        ReplaySession resumed = sessionManager.createSession("qa-1", request);
+        awaitFinished(resumed);
+
+        assertEquals(2, resumed.getEventsProcessed());
+        assertFalse(Files.exists(checkpointFile));
+    }
+
+    @Test
+    void testSessionCheckpointPathIsNamedAfterSession() {
+        assertEquals(Path.of("/tmp/replay-checkpoint-qa-1.json").toString(),
+                ReplaySessionManager.sessionCheckpointPath("/tmp/replay-checkpoint.json", "qa-1"));
+        assertEquals(Path.of("/tmp/checkpoint-qa-1").toString(),
+                ReplaySessionManager.sessionCheckpointPath("/tmp/checkpoint", "qa-1"));
+    }
+
+    private Path writeEvents(String name, int count) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            content.append("{\"timestamp\": \"2024-01-01T10:00:0").append(i)
+                    .append("Z\", \"trade_id\": \"T00").append(i)
+                    .append("\", \"symbol\": \"AAPL\", \"price\": 150.0, \"region\": \"US\"}\n");
+        }
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static void awaitFinished(ReplaySession session) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        // The finish time is set once the session has flushed its sends and closed its reader
+        while (session.getStatus().getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(session.getStatus().getFinishedAt(), "Session " + session.getId() + " did not finish");
+    }
+}
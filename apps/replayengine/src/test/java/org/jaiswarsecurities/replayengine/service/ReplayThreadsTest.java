@@ -0,0 +1,50 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplayThreads.
+ */
+class ReplayThreadsTest {
+
+    @Test
+    void testPlatformThreadsAreNamedDaemons() {
+        ThreadFactory factory = ReplayThreads.factory("replay-test-", false);
+
+        Thread first = factory.newThread(() -> { });
+        Thread second = factory.newThread(() -> { });
+
+        assertFalse(first.isVirtual());
+        assertTrue(first.isDaemon());
+        assertEquals("replay-test-1", first.getName());
+        assertEquals("replay-test-2", second.getName());
+    }
+
+    @Test
+    void testVirtualThreadsAreNamed() {
+        Thread thread = ReplayThreads.factory("replay-test-", true).newThread(() -> { });
+
+        assertTrue(thread.isVirtual());
+        assertEquals("replay-test-1", thread.getName());
+    }
+
+    @Test
+    void testExecutorRunsTasksOnRequestedThreads() throws Exception {
+        for (boolean virtual : new boolean[] {false, true}) {
+            ExecutorService executor = ReplayThreads.newExecutor("replay-test-", virtual);
+            try {
+                Thread worker = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+                assertEquals(virtual, worker.isVirtual());
+                assertTrue(worker.getName().startsWith("replay-test-"));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.jaiswarsecurities.chipmunkgenerator.service;
+
+import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per record of generating a Chipmunk file and framing it with its index, as the upload path
+ * does, writing to a stream that discards the bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChipmunkFileGeneratorBenchmark {
+
+    private static final int RECORDS = 10_000;
+    private static final long SEED = 42;
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    private GeneratorProperties generatorProperties;
+    private ChipmunkFileGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generatorProperties = new GeneratorProperties();
+        // Only writeChipmunkRecords is measured; nothing is uploaded
+        generator = new ChipmunkFileGenerator(generatorProperties, null, new EventDataGenerator(generatorProperties));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long writeChipmunkRecords() throws IOException {
+        ChipmunkIndexBuilder indexBuilder = new ChipmunkIndexBuilder(generatorProperties.getIndex().getStride());
+        return generator.writeChipmunkRecords(OutputStream.nullOutputStream(), RECORDS, indexBuilder, SEED, BASE_TIME);
+    }
+}
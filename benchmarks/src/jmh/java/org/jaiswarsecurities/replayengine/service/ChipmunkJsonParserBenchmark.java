@@ -0,0 +1,58 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jaiswarsecurities.benchmarks.BenchmarkData;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one JSON Chipmunk line into a ChipmunkEvent, as the JSON readers do per line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChipmunkJsonParserBenchmark {
+
+    private ChipmunkJsonParser parser;
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        parser = new ChipmunkJsonParser(new ObjectMapper());
+        lines = BenchmarkData.jsonLines(BenchmarkData.records(4096, 42));
+    }
+
+    /**
+     * Routing fields only; the data map stays unparsed.
+     */
+    @Benchmark
+    public ChipmunkEvent parseChipmunkLine() {
+        String line = lines[next++ & (lines.length - 1)];
+        return parser.parse(line, next);
+    }
+
+    /**
+     * Parse followed by materialising the data map, the worst case for a consumer that needs every field.
+     */
+    @Benchmark
+    public void parseChipmunkLineWithData(Blackhole blackhole) {
+        String line = lines[next++ & (lines.length - 1)];
+        blackhole.consume(parser.parse(line, next).getData());
+    }
+}
@@ -0,0 +1,90 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import org.jaiswarsecurities.benchmarks.BenchmarkData;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEventPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding one binary Chipmunk frame, from a stream and from a mapped buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChipmunkRecordDecoderBenchmark {
+
+    private ChipmunkRecordDecoder decoder;
+    private byte[][] frames;
+    private ByteBuffer[] frameBodies;
+    private ChipmunkEventPool pool;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        decoder = new ChipmunkRecordDecoder(new ObjectMapper());
+        pool = new ChipmunkEventPool(16);
+        frames = BenchmarkData.frames(BenchmarkData.records(4096, 42));
+
+        // Record bytes without the length prefix, as MappedFrameCursor hands them out
+        frameBodies = new ByteBuffer[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            frameBodies[i] = ByteBuffer.allocateDirect(frames[i].length - ChipmunkRecordDecoder.FRAME_HEADER_BYTES)
+                    .put(frames[i], ChipmunkRecordDecoder.FRAME_HEADER_BYTES,
+                            frames[i].length - ChipmunkRecordDecoder.FRAME_HEADER_BYTES)
+                    .flip();
+        }
+    }
+
+    /**
+     * Length prefix, record and typed payload read from a stream, as for MinIO and unmapped files.
+     */
+    @Benchmark
+    public ChipmunkEvent decodeStreamFrame() throws IOException {
+        int i = next++ & (frames.length - 1);
+        ChipmunkRecord record = ChipmunkRecordDecoder.readRecord(CodedInputStream.newInstance(frames[i]));
+        return decoder.decode(record, i);
+    }
+
+    /**
+     * Record and typed payload parsed in place from a direct buffer, as for memory-mapped files.
+     */
+    @Benchmark
+    public ChipmunkEvent decodeMappedFrame() throws IOException {
+        int i = next++ & (frameBodies.length - 1);
+        ChipmunkRecord record = ChipmunkRecordDecoder.parseRecord(frameBodies[i].duplicate());
+        return decoder.decode(record, i);
+    }
+
+    /**
+     * Frame read field by field into a pooled event that is recycled straight away, as on the
+     * burst path; with -prof gc this should allocate little beyond the payload copy.
+     */
+    @Benchmark
+    public long decodeMappedFrameIntoPooledEvent() throws IOException {
+        int i = next++ & (frameBodies.length - 1);
+        ChipmunkEvent event = pool.acquire();
+        decoder.decodeInto(frameBodies[i], i, EventIdNamespace.UNNAMED, event);
+        long epochNanos = event.getEpochNanos();
+        event.recycle();
+        return epochNanos;
+    }
+}
@@ -0,0 +1,115 @@
+package org.jaiswarsecurities.replayengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.jaiswarsecurities.benchmarks.BenchmarkData;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties.Partitioning.KeyStrategy;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.model.ChipmunkEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ResolvableType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing one event through KafkaPublisher against a MockProducer, so the figures cover
+ * topic lookup, key and header construction, record creation and the callback, without a broker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KafkaPublisherBenchmark {
+
+    // MockProducer keeps every record it is sent; clearing it this often keeps the heap flat
+    private static final int CLEAR_INTERVAL = 1 << 16;
+
+    @Param({"REGION_TYPE", "INSTRUMENT", "COMPOSITE"})
+    public KeyStrategy keyStrategy;
+
+    private MockProducer<String, String> producer;
+    private KafkaPublisher publisher;
+    private ChipmunkEvent[] events;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.getPartitioning().setTradeEvents(keyStrategy);
+        kafkaProperties.getPartitioning().setMarketData(keyStrategy);
+        kafkaProperties.getPartitioning().setFxRates(keyStrategy);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PartitionKeyResolver keyResolver = new PartitionKeyResolver(kafkaProperties, meterRegistry);
+        keyResolver.initMetrics();
+
+        // JSON payloads only, so no byte[] producer is available
+        ObjectProvider<Producer<String, byte[]>> noByteArrayProducer = new StaticListableBeanFactory()
+                .getBeanProvider(ResolvableType.forClassWithGenerics(Producer.class, String.class, byte[].class));
+
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        publisher = new KafkaPublisher(producerProvider(producer), noByteArrayProducer, kafkaProperties,
+                new ReplayProperties(), keyResolver, new PartitionSkewTracker(), meterRegistry);
+        publisher.initMetrics();
+
+        List<ChipmunkRecord> records = BenchmarkData.records(4096, 42);
+        ChipmunkRecordDecoder decoder = new ChipmunkRecordDecoder(new ObjectMapper());
+        events = new ChipmunkEvent[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            events[i] = decoder.decode(records.get(i), i + 1);
+            // Render the JSON up front so only publishing is measured
+            events[i].getJsonPayload();
+        }
+    }
+
+    @Benchmark
+    public CompletableFuture<RecordMetadata> publishEvent() {
+        if ((next & (CLEAR_INTERVAL - 1)) == 0) {
+            producer.clear();
+        }
+        return publisher.publishEvent(events[next++ & (events.length - 1)]);
+    }
+
+    @Benchmark
+    public String generateKey() {
+        return publisher.generateKey(events[next++ & (events.length - 1)]);
+    }
+
+    @Benchmark
+    public RecordHeaders buildHeaders() {
+        RecordHeaders headers = new RecordHeaders();
+        publisher.addHeaders(headers, events[next++ & (events.length - 1)]);
+        return headers;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ObjectProvider<Producer<String, String>> producerProvider(Producer<String, String> producer) {
+        return (ObjectProvider) new StaticListableBeanFactory(Map.of("kafkaProducer", producer))
+                .getBeanProvider(Producer.class);
+    }
+}
@@ -0,0 +1,188 @@
+package org.jaiswarsecurities.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jaiswarsecurities.chipmunkgenerator.config.GeneratorProperties;
+import org.jaiswarsecurities.chipmunkgenerator.service.EventDataGenerator;
+import org.jaiswarsecurities.iris.proto.ChipmunkRecord;
+import org.jaiswarsecurities.iris.proto.FxRateEvent;
+import org.jaiswarsecurities.iris.proto.MarketDataEvent;
+import org.jaiswarsecurities.iris.proto.TradeEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Benchmark inputs built from the chipmunk-generator's EventDataGenerator, so the replay side is
+ * measured on the same event shapes and mix the generator writes.
+ */
+public final class BenchmarkData {
+
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T08:00:00Z");
+    private static final long DEFAULT_EVENTS_PER_SECOND = 100;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates records in timestamp order with the generator's default event type ratios and regions.
+     *
+     * @param count Number of records
+     * @param seed Seed for every field of the records, so the same seed gives the same records
+     * @return The records
+     */
+    public static List<ChipmunkRecord> records(int count, long seed) {
+        List<ChipmunkRecord> records = new ArrayList<>(count);
+        generate(count, seed, DEFAULT_EVENTS_PER_SECOND, records::add);
+        return records;
+    }
+
+    /**
+     * Generates records in timestamp order, handing each to the sink as it is built so that
+     * inputs larger than the heap can be streamed to disk.
+     *
+     * @param count Number of records
+     * @param seed Seed for every field of the records, so the same seed gives the same records
+     * @param eventsPerSecond Spacing of the timestamps, in events per second of event time
+     * @param sink Receives each record
+     */
+    public static void generate(long count, long seed, long eventsPerSecond, Consumer<ChipmunkRecord> sink) {
+        GeneratorProperties properties = new GeneratorProperties();
+        GeneratorProperties.EventGeneration config = properties.getEventGeneration();
+        EventDataGenerator eventDataGenerator = new EventDataGenerator(properties);
+        Random random = new Random(seed);
+        long baseMillis = BASE_TIME.toEpochMilli();
+
+        for (long i = 0; i < count; i++) {
+            Instant timestamp = Instant.ofEpochMilli(baseMillis + i * 1000 / eventsPerSecond);
+            String region = properties.getRegions()[random.nextInt(properties.getRegions().length)];
+            String correlationId = random.nextDouble() < 0.3 ? "corr-" + i : "";
+
+            ChipmunkRecord.Builder builder = ChipmunkRecord.newBuilder()
+                    .setTimestamp(timestamp.toEpochMilli())
+                    .setRegion(region)
+                    .setCorrelationId(correlationId);
+
+            double type = random.nextDouble();
+            if (type < config.getTradeEventRatio()) {
+                builder.setEventType("TRADE")
+                        .setPayload(eventDataGenerator.generateTradeEvent(random, timestamp, region, correlationId).toByteString());
+            } else if (type < config.getTradeEventRatio() + config.getMarketDataEventRatio()) {
+                builder.setEventType("MARKET_DATA")
+                        .setPayload(eventDataGenerator.generateMarketDataEvent(random, timestamp, region).toByteString());
+            } else {
+                builder.setEventType("FX")
+                        .setPayload(eventDataGenerator.generateFxRateEvent(random, timestamp, region).toByteString());
+            }
+            sink.accept(builder.build());
+        }
+    }
+
+    /**
+     * Streams generated records into a binary Chipmunk file.
+     *
+     * @param file The file to write
+     * @param count Number of records
+     * @param seed Seed for every field of the records
+     * @param eventsPerSecond Spacing of the timestamps, in events per second of event time
+     * @return Size of the written file in bytes
+     * @throws IOException if the file cannot be written
+     */
+    public static long writeChipmunkFile(Path file, long count, long seed, long eventsPerSecond) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 20))) {
+            generate(count, seed, eventsPerSecond, record -> {
+                try {
+                    // DataOutputStream writes the big-endian length prefix
+                    out.writeInt(record.getSerializedSize());
+                    record.writeTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return Files.size(file);
+    }
+
+    /**
+     * Frames each record as the generator does: a 4-byte big-endian length prefix and the record bytes.
+     *
+     * @param records The records to frame
+     * @return One byte array per frame
+     */
+    public static byte[][] frames(List<ChipmunkRecord> records) {
+        byte[][] frames = new byte[records.size()][];
+        for (int i = 0; i < records.size(); i++) {
+            byte[] recordBytes = records.get(i).toByteArray();
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(4 + recordBytes.length);
+            frame.write((recordBytes.length >>> 24) & 0xFF);
+            frame.write((recordBytes.length >>> 16) & 0xFF);
+            frame.write((recordBytes.length >>> 8) & 0xFF);
+            frame.write(recordBytes.length & 0xFF);
+            frame.writeBytes(recordBytes);
+            frames[i] = frame.toByteArray();
+        }
+        return frames;
+    }
+
+    /**
+     * Renders each record as a JSON Chipmunk line in the layout the JSON readers expect.
+     *
+     * @param records The records to render
+     * @return One JSON object per record
+     */
+    public static String[] jsonLines(List<ChipmunkRecord> records) {
+        String[] lines = new String[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            lines[i] = toJsonLine(records.get(i));
+        }
+        return lines;
+    }
+
+    private static String toJsonLine(ChipmunkRecord record) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("timestamp", Instant.ofEpochMilli(record.getTimestamp()).toString());
+        try {
+            switch (record.getEventType()) {
+                case "TRADE" -> {
+                    TradeEvent trade = TradeEvent.parseFrom(record.getPayload());
+                    line.put("trade_id", trade.getTradeId());
+                    line.put("symbol", trade.getInstrument());
+                    line.put("account", trade.getAccount());
+                    line.put("price", trade.getPrice());
+                    line.put("quantity", trade.getQuantity());
+                    line.put("side", trade.getSide());
+                    line.put("venue", trade.getVenue());
+                }
+                case "MARKET_DATA" -> {
+                    MarketDataEvent marketData = MarketDataEvent.parseFrom(record.getPayload());
+                    line.put("symbol", marketData.getInstrument());
+                    line.put("price", marketData.getLastPrice());
+                    line.put("bid", marketData.getBid());
+                    line.put("ask", marketData.getAsk());
+                }
+                default -> {
+                    FxRateEvent fxRate = FxRateEvent.parseFrom(record.getPayload());
+                    line.put("base_currency", fxRate.getFromCurrency());
+                    line.put("target_currency", fxRate.getToCurrency());
+                    line.put("rate", fxRate.getRate());
+                }
+            }
+            line.put("region", record.getRegion());
+            return OBJECT_MAPPER.writeValueAsString(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.jaiswarsecurities.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Producer;
+import org.jaiswarsecurities.replayengine.config.KafkaProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayEngineConfig;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties;
+import org.jaiswarsecurities.replayengine.config.ReplayProperties.SpeedMode;
+import org.jaiswarsecurities.replayengine.service.CheckpointManager;
+import org.jaiswarsecurities.replayengine.service.ChipmunkRecordDecoder;
+import org.jaiswarsecurities.replayengine.service.KafkaPublisher;
+import org.jaiswarsecurities.replayengine.service.MinIOObjectSource;
+import org.jaiswarsecurities.replayengine.service.PartitionKeyResolver;
+import org.jaiswarsecurities.replayengine.service.PartitionSkewTracker;
+import org.jaiswarsecurities.replayengine.service.ProtobufChipmunkReader;
+import org.jaiswarsecurities.replayengine.service.ReplaySession;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load run: writes generated events to a binary Chipmunk file, replays it in one or
+ * more concurrent ReplaySessions once per speed mode into an embedded single-node Kafka broker, and
+ * writes a JSON report with throughput, publish latency percentiles, GC pauses and allocation for
+ * each mode. Running many sessions on platform and then on virtual threads shows how many
+ * concurrent sessions a node sustains under each.
+ *
+ * <p>Each mode gets a fresh producer, publisher and sessions, so no state carries over between
+ * modes; the producer is closed once the mode's report is taken. Options are passed as {@code --name=value}:
+ * <ul>
+ *   <li>{@code events} - events to generate (default 1,000,000)</li>
+ *   <li>{@code rate} - event-time rate of the generated file in events per second (default 100,000)</li>
+ *   <li>{@code modes} - comma separated speed modes to run (default real-time,accelerated,burst)</li>
+ *   <li>{@code multiplier} - speed multiplier for accelerated mode (default 10)</li>
+ *   <li>{@code partitions} - partitions per topic on the embedded broker (default 12)</li>
+ *   <li>{@code lanes} - publishing pipeline lanes, 0 to publish from the reader thread (default 0)</li>
+ *   <li>{@code acks} - producer acks (default 1)</li>
+ *   <li>{@code sessions} - sessions replaying the file at once, each with its own reader (default 1)</li>
+ *   <li>{@code virtual-threads} - run the sessions' read loops on virtual threads (default false)</li>
+ *   <li>{@code output} - directory for the report (default build/results/load)</li>
+ *   <li>{@code revision} - label for the code under test, normally the commit</li>
+ * </ul>
+ */
+public final class ReplayLoadHarness {
+
+    private static final String PUBLISH_LATENCY = "replay.events.publish.latency";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final long SEED = 42;
+
+    /**
+     * Result of one replay in one speed mode.
+     */
+    public record ModeResult(String mode, long events, long failed, double seconds, double eventsPerSecond,
+                             double p50Millis, double p99Millis, double p999Millis, double maxMillis,
+                             long gcPauses, double gcPauseMillis, double gcMaxPauseMillis,
+                             long allocatedBytes, double allocatedMbPerSecond) {
+    }
+
+    /**
+     * Everything needed to compare two runs.
+     */
+    public record LoadReport(String revision, Instant startedAt, String jvm, int processors, long maxHeapBytes,
+                             Map<String, Object> config, List<ModeResult> results) {
+    }
+
+    private ReplayLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        long events = Long.parseLong(options.getOrDefault("events", "1000000"));
+        long rate = Long.parseLong(options.getOrDefault("rate", "100000"));
+        double multiplier = Double.parseDouble(options.getOrDefault("multiplier", "10"));
+        int partitions = Integer.parseInt(options.getOrDefault("partitions", "12"));
+        int lanes = Integer.parseInt(options.getOrDefault("lanes", "0"));
+        String acks = options.getOrDefault("acks", "1");
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "1"));
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+        Path output = Path.of(options.getOrDefault("output", "build/results/load"));
+        String revision = options.getOrDefault("revision", "local");
+
+        List<SpeedMode> modes = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "real-time,accelerated,burst").split(",")) {
+            modes.add(SpeedMode.fromValue(mode.trim()));
+        }
+
+        Instant startedAt = Instant.now();
+        Path workDir = Files.createTempDirectory("replay-load");
+        Path chipmunkFile = workDir.resolve("load.chipmunk");
+        long fileBytes = BenchmarkData.writeChipmunkFile(chipmunkFile, events, SEED, rate);
+        System.out.printf("Generated %,d events (%,d bytes) in %s%n", events, fileBytes, chipmunkFile);
+
+        KafkaProperties topics = new KafkaProperties();
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, partitions,
+                topics.getTopics().getTradeEvents(), topics.getTopics().getMarketData(), topics.getTopics().getFxRates());
+        broker.afterPropertiesSet();
+
+        List<ModeResult> results = new ArrayList<>();
+        try {
+            for (SpeedMode mode : modes) {
+                ModeResult result = runMode(mode, chipmunkFile, broker.getBrokersAsString(), multiplier, lanes, acks,
+                        sessions, virtualThreads);
+                results.add(result);
+                System.out.printf("%-12s %,12.0f events/s  p50 %8.3f ms  p99 %8.3f ms  p999 %8.3f ms  "
+                                + "gc %4d pauses / %8.1f ms  alloc %,10.1f MB/s%n",
+                        result.mode(), result.eventsPerSecond(), result.p50Millis(), result.p99Millis(),
+                        result.p999Millis(), result.gcPauses(), result.gcPauseMillis(), result.allocatedMbPerSecond());
+            }
+        } finally {
+            broker.destroy();
+            Files.deleteIfExists(chipmunkFile);
+            Files.deleteIfExists(workDir);
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("events", events);
+        config.put("fileBytes", fileBytes);
+        config.put("eventTimeRate", rate);
+        config.put("speedMultiplier", multiplier);
+        config.put("partitions", partitions);
+        config.put("pipelineLanes", lanes);
+        config.put("acks", acks);
+        config.put("sessions", sessions);
+        config.put("virtualThreads", virtualThreads);
+
+        Runtime runtime = Runtime.getRuntime();
+        LoadReport report = new LoadReport(revision, startedAt,
+                System.getProperty("java.vm.name") + " " + System.getProperty("java.version"),
+                runtime.availableProcessors(), runtime.maxMemory(), config, results);
+
+        Files.createDirectories(output);
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(startedAt);
+        Path reportFile = output.resolve("load-" + revision + "-" + timestamp + ".json");
+        // The engine's mapper writes instants as ISO-8601 strings
+        new ReplayEngineConfig().objectMapper()
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    private static ModeResult runMode(SpeedMode mode, Path chipmunkFile, String bootstrapServers,
+                                      double multiplier, int lanes, String acks, int sessionCount,
+                                      boolean virtualThreads) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config().meterFilter(publishLatencyPercentiles());
+
+        ReplayProperties replayProperties = new ReplayProperties();
+        replayProperties.setSpeedMode(mode);
+        replayProperties.setSpeedMultiplier(multiplier);
+        replayProperties.getSource().setType(ReplayProperties.Source.SourceType.LOCAL_FILE);
+        replayProperties.getSource().setFormat(ReplayProperties.Source.Format.PROTOBUF);
+        replayProperties.getSource().getLocal().setFilePath(chipmunkFile.toString());
+        replayProperties.getCheckpoint().setEnabled(false);
+        replayProperties.getVirtualThreads().setEnabled(virtualThreads);
+        if (lanes > 0) {
+            replayProperties.getPipeline().setEnabled(true);
+            replayProperties.getPipeline().setLanes(lanes);
+        }
+
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(bootstrapServers);
+        kafkaProperties.getProducer().setAcks(acks);
+
+        ReplayEngineConfig engineConfig = new ReplayEngineConfig();
+        ObjectMapper objectMapper = engineConfig.objectMapper();
+        Producer<String, String> producer = engineConfig.kafkaProducer(kafkaProperties);
+        ObjectProvider<Producer<String, byte[]>> noByteArrayProducer = new StaticListableBeanFactory()
+                .getBeanProvider(ResolvableType.forClassWithGenerics(Producer.class, String.class, byte[].class));
+
+        PartitionKeyResolver keyResolver = new PartitionKeyResolver(kafkaProperties, meterRegistry);
+        keyResolver.initMetrics();
+        KafkaPublisher publisher = new KafkaPublisher(producerProvider(producer), noByteArrayProducer,
+                kafkaProperties, replayProperties, keyResolver, new PartitionSkewTracker(), meterRegistry);
+        publisher.initMetrics();
+
+        MinIOObjectSource objectSource = new MinIOObjectSource(null, replayProperties, meterRegistry);
+        ChipmunkRecordDecoder recordDecoder = new ChipmunkRecordDecoder(objectMapper);
+        CheckpointManager checkpointManager = new CheckpointManager(replayProperties, objectMapper);
+        List<ReplaySession> sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(ReplaySession.builder()
+                    .id("load-" + i)
+                    .chipmunkReader(new ProtobufChipmunkReader(objectSource, replayProperties, recordDecoder))
+                    .kafkaPublisher(publisher)
+                    .checkpointManager(checkpointManager)
+                    .replayProperties(replayProperties)
+                    .meterRegistry(meterRegistry)
+                    .build());
+        }
+
+        try (JvmGcMetrics gcMetrics = new JvmGcMetrics()) {
+            gcMetrics.bindTo(meterRegistry);
+            // Start from a collected heap; the closing collection below counts what the run left in the young gen
+            System.gc();
+            double allocatedBefore = allocatedBytes(meterRegistry);
+            long pausesBefore = gcPauseCount(meterRegistry);
+            double pauseMillisBefore = gcPauseMillis(meterRegistry);
+
+            long start = System.nanoTime();
+            // Each future completes after its session has flushed the producer, so every send is acknowledged
+            List<CompletableFuture<Void>> replays = new ArrayList<>(sessionCount);
+            for (ReplaySession session : sessions) {
+                replays.add(session.start(null, null));
+            }
+            CompletableFuture.allOf(replays.toArray(CompletableFuture[]::new)).get();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // Pauses and allocation are counted from GC notifications, which arrive asynchronously
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(200);
+
+            Timer latency = meterRegistry.get(PUBLISH_LATENCY).timer();
+            Map<Double, Double> percentiles = new HashMap<>();
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                percentiles.put(value.percentile(), value.value(TimeUnit.MILLISECONDS));
+            }
+
+            long events = sessions.stream().mapToLong(ReplaySession::getEventsProcessed).sum();
+            long failed = sessions.stream().mapToLong(ReplaySession::getEventsFailed).sum();
+            double allocated = allocatedBytes(meterRegistry) - allocatedBefore;
+            return new ModeResult(mode.getValue(), events, failed, seconds, events / seconds,
+                    percentiles.getOrDefault(0.5, Double.NaN), percentiles.getOrDefault(0.99, Double.NaN),
+                    percentiles.getOrDefault(0.999, Double.NaN), latency.max(TimeUnit.MILLISECONDS),
+                    gcPauseCount(meterRegistry) - pausesBefore, gcPauseMillis(meterRegistry) - pauseMillisBefore,
+                    gcMaxPauseMillis(meterRegistry), (long) allocated, allocated / (1024 * 1024) / seconds);
+        } finally {
+            publisher.close();
+        }
+    }
+
+    /**
+     * Client-side percentiles for the publish latency timer, kept for the whole run rather than
+     * decaying over the default two minute window.
+     */
+    private static MeterFilter publishLatencyPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!PUBLISH_LATENCY.equals(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(PERCENTILES)
+                        .percentilePrecision(3)
+                        .expiry(Duration.ofDays(1))
+                        .bufferLength(1)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ObjectProvider<Producer<String, String>> producerProvider(Producer<String, String> producer) {
+        return (ObjectProvider) new StaticListableBeanFactory(Map.of("kafkaProducer", producer))
+                .getBeanProvider(Producer.class);
+    }
+
+    private static double allocatedBytes(SimpleMeterRegistry meterRegistry) {
+        Counter counter = meterRegistry.find("jvm.gc.memory.allocated").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static long gcPauseCount(SimpleMeterRegistry meterRegistry) {
+        return gcPauses(meterRegistry).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private static double gcPauseMillis(SimpleMeterRegistry meterRegistry) {
+        return gcPauses(meterRegistry).timers().stream()
+                .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS)).sum();
+    }
+
+    private static double gcMaxPauseMillis(SimpleMeterRegistry meterRegistry) {
+        return gcPauses(meterRegistry).timers().stream()
+                .mapToDouble(timer -> timer.max(TimeUnit.MILLISECONDS)).max().orElse(0);
+    }
+
+    private static Search gcPauses(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.find("jvm.gc.pause");
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}